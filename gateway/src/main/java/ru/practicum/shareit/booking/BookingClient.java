@@ -1,56 +1,83 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.Bulkhead;
+import ru.practicum.shareit.client.Bulkheads;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    private final Bulkhead exports;
+
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, WebClient.Builder builder,
+            Bulkheads bulkheads) {
+        super(builder.baseUrl(serverUrl + API_PREFIX).build(), bulkheads.get("bookings"));
+        this.exports = bulkheads.get("exports");
     }
 
-    public ResponseEntity<Object> getBookingsByUserId(Long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getBookingsByUserId(Long userId, BookingState state, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        String path = "?state={state}&from={from}&size={size}";
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            path += "&cursor={cursor}";
+        }
+        return get(path, userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Flux<String>>> exportBookingsByUserId(Long userId, BookingState state) {
+        return stream(exports, "/export?state={state}", userId, Map.of("state", state.name()));
     }
 
-    public ResponseEntity<Object> getBookingById(Long userId, Long bookingId) {
+    public Mono<ResponseEntity<Object>> getBookingById(Long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getBookingsByOwnerId(Long ownerId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getBookingsByOwnerId(Long ownerId, BookingState state, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", ownerId, parameters);
+        ));
+        String path = "/owner?state={state}&from={from}&size={size}";
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            path += "&cursor={cursor}";
+        }
+        return get(path, ownerId, parameters);
+    }
+
+    public Mono<ResponseEntity<Flux<String>>> exportBookingsByOwnerId(Long ownerId, BookingState state) {
+        return stream(exports, "/owner/export?state={state}", ownerId, Map.of("state", state.name()));
     }
 
-    public ResponseEntity<Object> create(Long userId, BookingDto bookingDto) {
+    public Mono<ResponseEntity<Object>> create(Long userId, BookingDto bookingDto) {
         return post("", userId, bookingDto);
     }
 
-    public ResponseEntity<Object> update(Long bookingId, Long ownerId, Boolean approved) {
+    public Mono<ResponseEntity<Object>> updateAll(Long ownerId, List<BookingDecisionDto> decisions) {
+        return patch("/batch", ownerId, decisions);
+    }
+
+    public Mono<ResponseEntity<Object>> update(Long bookingId, Long ownerId, Boolean approved) {
         Map<String, Object> parameters = Map.of(
                 "approved", approved
         );
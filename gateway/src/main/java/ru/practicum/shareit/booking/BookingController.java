@@ -1,15 +1,21 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.util.List;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -19,35 +25,60 @@ public class BookingController {
     private final BookingClient client;
 
     @GetMapping
-    public ResponseEntity<Object> getBookingsByUserId(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+    public Mono<ResponseEntity<Object>> getBookingsByUserId(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
             @RequestParam(value = "state", defaultValue = "ALL") BookingState state,
             @RequestParam(value = "from", defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(value = "size", defaultValue = "20") @Min(1) Integer size) {
-        return client.getBookingsByUserId(userId, state, from, size);
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        return client.getBookingsByUserId(userId, state, from, size, cursor);
+    }
+
+    //labelled ndjson like the server body; */* still accepts other Accept headers, which then get it as text/plain
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.ALL_VALUE})
+    public Mono<ResponseEntity<Flux<String>>> exportBookingsByUserId(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestParam(value = "state", defaultValue = "ALL") BookingState state) {
+        return client.exportBookingsByUserId(userId, state);
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBookingById(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+    public Mono<ResponseEntity<Object>> getBookingById(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
             @PathVariable("bookingId") Long bookingId) {
         return client.getBookingById(userId, bookingId);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getBookingsByOwnerId(@RequestHeader(value = "X-Sharer-User-Id") Long ownerId,
+    public Mono<ResponseEntity<Object>> getBookingsByOwnerId(@RequestHeader(value = "X-Sharer-User-Id") Long ownerId,
             @RequestParam(value = "state", defaultValue = "ALL") BookingState state,
             @RequestParam(value = "from", defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(value = "size", defaultValue = "20") @Min(1) Integer size) {
-        return client.getBookingsByOwnerId(ownerId, state, from, size);
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        return client.getBookingsByOwnerId(ownerId, state, from, size, cursor);
+    }
+
+    @GetMapping(value = "/owner/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.ALL_VALUE})
+    public Mono<ResponseEntity<Flux<String>>> exportBookingsByOwnerId(
+            @RequestHeader(value = "X-Sharer-User-Id") Long ownerId,
+            @RequestParam(value = "state", defaultValue = "ALL") BookingState state) {
+        return client.exportBookingsByOwnerId(ownerId, state);
     }
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+    public Mono<ResponseEntity<Object>> create(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
             @Valid @RequestBody BookingDto bookingDto) {
         return client.create(userId, bookingDto);
     }
 
+    @PatchMapping("/batch")
+    public Mono<ResponseEntity<Object>> updateAll(@RequestHeader(value = "X-Sharer-User-Id") Long ownerId,
+            @RequestBody @Size(min = 1, max = 5000,
+                    message = "Произошло исключение! В пакете должно быть от 1 до 5000 элементов.")
+            List<@Valid BookingDecisionDto> decisions) {
+        return client.updateAll(ownerId, decisions);
+    }
+
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> update(@PathVariable("bookingId") Long bookingId,
+    public Mono<ResponseEntity<Object>> update(@PathVariable("bookingId") Long bookingId,
             @RequestHeader(value = "X-Sharer-User-Id") Long ownerId,
             @RequestParam(value = "approved", required = false) Boolean approved) {
         return client.update(bookingId, ownerId, approved);
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+public class BookingDecisionDto {
+    @NotNull(message = "BookingId равен null!")
+    private Long bookingId;
+    @NotNull(message = "Approved равен null!")
+    private Boolean approved;
+}
@@ -1,125 +1,217 @@
 package ru.practicum.shareit.client;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
-import org.springframework.web.client.HttpStatusCodeException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 public class BaseClient {
-    protected final RestTemplate rest;
+    //hop-by-hop headers of the upstream connection, the length is set again for the written body
+    private static final Set<String> NOT_FORWARDED_HEADERS = Set.of("connection", "keep-alive",
+            "proxy-authenticate", "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade",
+            "content-length");
 
-    public BaseClient(RestTemplate rest) {
+    //a streamed body is written and flushed in groups of lines rather than a network write per line,
+    //a group is written early when the server sends the next lines slowly
+    private static final int STREAMED_LINES_PER_WRITE = 256;
+    private static final Duration STREAMED_WRITE_MAX_DELAY = Duration.ofMillis(50);
+
+    protected final WebClient rest;
+    private final Bulkhead bulkhead;
+
+    public BaseClient(WebClient rest, Bulkhead bulkhead) {
         this.rest = rest;
+        this.bulkhead = bulkhead;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null, true);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    //for responses stored in the ResponseCache, which answers conditional requests itself
+    protected Mono<ResponseEntity<Object>> getUnconditional(String path, Long userId,
+            @Nullable Map<String, Object> parameters) {
+        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null, false);
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId,
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId,
             @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
+        return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body, false);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId,
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId,
             @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
+        return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body, false);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId,
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId,
             @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
+        return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body, false);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
-    }
-
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId,
-            @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
-
-        ResponseEntity<Object> shareitServerResponse;
-        try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
-        }
-        return prepareGatewayResponse(shareitServerResponse);
-    }
-
-    private HttpHeaders defaultHeaders(Long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null, false);
+    }
+
+    //the body is passed on line by line while it is read from the server, nothing is collected and no thread waits
+    //for it; the permit is held until the body completes, fails or is cancelled because the client went away,
+    //or until the request is completed without the body ever being subscribed, e.g. on an async timeout
+    protected Mono<ResponseEntity<Flux<String>>> stream(Bulkhead streamBulkhead, String path, long userId,
+            @Nullable Map<String, Object> parameters) {
+        HttpHeaders headers = defaultHeaders(userId, false);
+        Mono<Void> requestCompleted = currentRequestCompletion();
+        return streamBulkhead.acquire().flatMap(permit -> {
+            requestCompleted.subscribe(null, null, permit::release);
+            return rest.get()
+                    .uri(path, parameters != null ? parameters : Map.of())
+                    .headers(requestHeaders -> requestHeaders.addAll(headers))
+                    .retrieve()
+                    //error responses are passed on like any other
+                    .onStatus(status -> true, clientResponse -> Mono.empty())
+                    .toEntityFlux(String.class)
+                    .map(serverResponse -> ResponseEntity.status(serverResponse.getStatusCodeValue())
+                            .headers(forwarded -> copyForwardedHeaders(serverResponse.getHeaders(), forwarded))
+                            .body(serverResponse.getBody()
+                                    .bufferTimeout(STREAMED_LINES_PER_WRITE, STREAMED_WRITE_MAX_DELAY)
+                                    .map(lines -> String.join("\n", lines) + "\n")
+                                    .doFinally(signal -> permit.release())))
+                    .doOnError(e -> permit.release())
+                    .doOnCancel(permit::release);
+        });
+    }
+
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId,
+            @Nullable Map<String, Object> parameters, @Nullable T body, boolean conditional) {
+        //built on the calling thread, the incoming request is not available once the exchange runs
+        HttpHeaders headers = defaultHeaders(userId, conditional);
+        WebClient.RequestBodySpec request = rest.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(requestHeaders -> requestHeaders.addAll(headers));
+        WebClient.RequestHeadersSpec<?> shareitServerRequest = body != null ? request.bodyValue(body) : request;
+        return bulkhead.limit(shareitServerRequest.exchangeToMono(BaseClient::prepareGatewayResponse));
+    }
+
+    private HttpHeaders defaultHeaders(Long userId, boolean conditional) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setAccept(List.of(MediaType.APPLICATION_JSON));
         if (userId != null) {
             headers.set("X-Sharer-User-Id", String.valueOf(userId));
         }
+        //lets the server answer 304 when the client already has the current version
+        String ifNoneMatch = currentRequestHeader(HttpHeaders.IF_NONE_MATCH);
+        if (conditional && ifNoneMatch != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    //null outside of a request
+    @Nullable
+    static String currentRequestHeader(String name) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            return ((ServletRequestAttributes) attributes).getRequest().getHeader(name);
         }
+        return null;
+    }
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
-
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+    //completes when the async processing of the current request is over, never outside of a request
+    private static Mono<Void> currentRequestCompletion() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return Mono.never();
         }
+        Sinks.Empty<Void> completed = Sinks.empty();
+        WebAsyncUtils.getAsyncManager(((ServletRequestAttributes) attributes).getRequest())
+                .registerDeferredResultInterceptor(completed, new DeferredResultProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest request, DeferredResult<T> deferredResult) {
+                        completed.tryEmitEmpty();
+                    }
+                });
+        return completed.asMono();
+    }
+
+    //the body is passed on as the raw bytes of the server response, without parsing the json
+    private static Mono<ResponseEntity<Object>> prepareGatewayResponse(ClientResponse response) {
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.rawStatusCode())
+                .headers(headers -> copyForwardedHeaders(response.headers().asHttpHeaders(), headers));
+
+        if (response.rawStatusCode() == HttpStatus.NOT_MODIFIED.value()) {
+            return response.releaseBody().then(Mono.just(responseBuilder.build()));
+        }
+
+        return response.bodyToMono(byte[].class)
+                .<ResponseEntity<Object>>map(responseBuilder::body)
+                .defaultIfEmpty(responseBuilder.build());
+    }
 
-        return responseBuilder.build();
+    private static void copyForwardedHeaders(HttpHeaders from, HttpHeaders to) {
+        from.forEach((name, values) -> {
+            if (!NOT_FORWARDED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                to.addAll(name, values);
+            }
+        });
     }
 }
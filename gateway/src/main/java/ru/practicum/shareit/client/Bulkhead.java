@@ -0,0 +1,155 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import ru.practicum.shareit.exception.BulkheadFullException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+//bounds the requests of one route family in flight to the server, the rest wait in a bounded queue
+public class Bulkhead {
+    private final String family;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private int active;
+    private final Timer waitTimer;
+    private final LongAdder queueFull = new LongAdder();
+    private final LongAdder waitTimeouts = new LongAdder();
+
+    Bulkhead(String family, int maxConcurrent, int maxQueued, Duration maxWait, MeterRegistry meterRegistry) {
+        this.family = family;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+        Gauge.builder("gateway.bulkhead.active", this, Bulkhead::active)
+                .tag("family", family)
+                .register(meterRegistry);
+        Gauge.builder("gateway.bulkhead.queued", this, Bulkhead::queued)
+                .tag("family", family)
+                .register(meterRegistry);
+        waitTimer = Timer.builder("gateway.bulkhead.wait")
+                .tag("family", family)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        registerRejections("queue-full", queueFull, meterRegistry);
+        registerRejections("timeout", waitTimeouts, meterRegistry);
+    }
+
+    //the call is subscribed once it gets a permit, which is returned when the call completes, fails or is cancelled
+    public <T> Mono<T> limit(Mono<T> call) {
+        return Mono.usingWhen(acquire(), permit -> call, permit -> Mono.fromRunnable(permit::release));
+    }
+
+    //for calls outliving their Mono, such as a streamed body: the caller returns the permit itself
+    public Mono<Permit> acquire() {
+        return Mono.<Permit>create(sink -> {
+            long queuedAt = System.nanoTime();
+            Waiter waiter = null;
+            boolean rejected = false;
+            synchronized (this) {
+                if (active < maxConcurrent) {
+                    active++;
+                } else if (queue.size() < maxQueued) {
+                    waiter = new Waiter(sink, queuedAt);
+                    queue.add(waiter);
+                } else {
+                    rejected = true;
+                }
+            }
+            if (rejected) {
+                queueFull.increment();
+                sink.error(new BulkheadFullException(family));
+            } else if (waiter == null) {
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                Permit permit = new Permit();
+                sink.onCancel(permit::release);
+                sink.success(permit);
+            } else {
+                Waiter queued = waiter;
+                sink.onCancel(() -> cancel(queued));
+            }
+        }).timeout(maxWait, Mono.defer(() -> {
+            waitTimeouts.increment();
+            return Mono.error(new BulkheadFullException(family));
+        }));
+    }
+
+    //the permit goes straight to the longest waiting request, otherwise it is freed
+    private void release() {
+        Waiter next;
+        synchronized (this) {
+            next = queue.poll();
+            if (next == null) {
+                active--;
+                return;
+            }
+            next.permit = new Permit();
+        }
+        waitTimer.record(System.nanoTime() - next.queuedAt, TimeUnit.NANOSECONDS);
+        next.sink.success(next.permit);
+    }
+
+    private void cancel(Waiter waiter) {
+        Permit permit;
+        synchronized (this) {
+            if (queue.remove(waiter)) {
+                return;
+            }
+            permit = waiter.permit;
+        }
+        //handed over while the request was being cancelled, the call may never run to return it
+        if (permit != null) {
+            permit.release();
+        }
+    }
+
+    private synchronized int active() {
+        return active;
+    }
+
+    private synchronized int queued() {
+        return queue.size();
+    }
+
+    private void registerRejections(String reason, LongAdder counter, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("gateway.bulkhead.rejected", counter, LongAdder::doubleValue)
+                .tag("family", family)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static final class Waiter {
+        private final MonoSink<Permit> sink;
+        private final long queuedAt;
+        private Permit permit;
+
+        private Waiter(MonoSink<Permit> sink, long queuedAt) {
+            this.sink = sink;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    public final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                Bulkhead.this.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "shareit-gateway.bulkhead")
+public class BulkheadProperties {
+    //requests of one route family in flight to the server, all families together fit into the connection pool
+    private int defaultMaxConcurrent = 50;
+    //requests waiting for their family, further ones are rejected at once
+    private int defaultMaxQueued = 200;
+    private Duration maxWait = Duration.ofSeconds(5);
+    //limits per route family: items, bookings, users, requests and exports
+    private Map<String, Integer> maxConcurrent = new HashMap<>();
+    private Map<String, Integer> maxQueued = new HashMap<>();
+
+    public int getMaxConcurrent(String family) {
+        return maxConcurrent.getOrDefault(family, defaultMaxConcurrent);
+    }
+
+    public int getMaxQueued(String family) {
+        return maxQueued.getOrDefault(family, defaultMaxQueued);
+    }
+}
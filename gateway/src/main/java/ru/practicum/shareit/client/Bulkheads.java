@@ -0,0 +1,24 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class Bulkheads {
+    private final BulkheadProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    public Bulkheads(BulkheadProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Bulkhead get(String family) {
+        return bulkheads.computeIfAbsent(family, name -> new Bulkhead(name, properties.getMaxConcurrent(name),
+                properties.getMaxQueued(name), properties.getMaxWait(), meterRegistry));
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.util.AttributeKey;
+import reactor.netty.Connection;
+import reactor.netty.ConnectionObserver;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//how long requests hold a pooled connection and how often a kept-alive one is reused
+public class ConnectionLeaseMetrics implements ConnectionObserver {
+    private static final AttributeKey<Long> LEASED_AT = AttributeKey.valueOf("shareit.leasedAt");
+
+    private final Timer leaseTimer;
+    private final LongAdder newConnections = new LongAdder();
+    private final LongAdder reusedConnections = new LongAdder();
+
+    public ConnectionLeaseMetrics(MeterRegistry meterRegistry) {
+        leaseTimer = Timer.builder("gateway.http.client.connection.lease")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.http.client.connection.acquired", newConnections, LongAdder::doubleValue)
+                .tag("reused", "false")
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.http.client.connection.acquired", reusedConnections, LongAdder::doubleValue)
+                .tag("reused", "true")
+                .register(meterRegistry);
+        Gauge.builder("gateway.http.client.connection.reuse.ratio", this, ConnectionLeaseMetrics::reuseRatio)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onStateChange(Connection connection, State newState) {
+        if (newState == State.CONNECTED) {
+            newConnections.increment();
+            connection.channel().attr(LEASED_AT).set(System.nanoTime());
+        } else if (newState == State.ACQUIRED) {
+            reusedConnections.increment();
+            connection.channel().attr(LEASED_AT).set(System.nanoTime());
+        } else if (newState == State.RELEASED || newState == State.DISCONNECTING) {
+            Long leasedAt = connection.channel().attr(LEASED_AT).getAndSet(null);
+            if (leasedAt != null) {
+                leaseTimer.record(System.nanoTime() - leasedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private double reuseRatio() {
+        double reused = reusedConnections.sum();
+        double total = reused + newConnections.sum();
+        return total == 0 ? 0 : reused / total;
+    }
+}
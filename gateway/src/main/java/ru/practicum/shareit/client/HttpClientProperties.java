@@ -0,0 +1,26 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "shareit-gateway.http-client")
+public class HttpClientProperties {
+    //connections to the server, the pool is kept per remote address
+    private int maxConnections = 200;
+    //requests waiting for a free connection, further ones fail at once
+    private int maxPendingAcquires = 1000;
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+    //idle connections are closed after this time, before the server drops them
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+    private Duration evictionInterval = Duration.ofSeconds(15);
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration responseTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,253 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+//caches successful responses of endpoints that do not depend on the caller
+@Slf4j
+@Component
+public class ResponseCache {
+    private final ResponseCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, RouteStats> routeStats = new ConcurrentHashMap<>();
+    private long size;
+    //bumped by evictAll, responses loaded before it are not stored
+    private long generation;
+
+    public ResponseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("gateway.response.cache.size", this, ResponseCache::size)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    //key is the normalized path and query of the upstream request, the loader must not be conditional
+    public Mono<ResponseEntity<Object>> get(String route, String key, @Nullable String cacheControl,
+            Supplier<Mono<ResponseEntity<Object>>> loader) {
+        RouteStats stats = routeStats.computeIfAbsent(route, this::registerRoute);
+        String ifNoneMatch = BaseClient.currentRequestHeader(HttpHeaders.IF_NONE_MATCH);
+        long ttlNanos = properties.getTtl(route).toNanos();
+        if (ttlNanos <= 0) {
+            return loader.get().map(response -> notModifiedIfMatches(response, ifNoneMatch));
+        }
+        boolean noStore = hasDirective(cacheControl, "no-store");
+        if (noStore || hasDirective(cacheControl, "no-cache") || hasDirective(cacheControl, "max-age=0")) {
+            stats.bypasses.increment();
+            long loadGeneration = generation();
+            return loader.get()
+                    .doOnNext(response -> {
+                        if (!noStore) {
+                            put(key, response, loadGeneration);
+                        }
+                    })
+                    .map(response -> notModifiedIfMatches(response, ifNoneMatch));
+        }
+        long loadGeneration = generation();
+        Entry entry = getEntry(key);
+        long now = System.nanoTime();
+        if (entry != null) {
+            long age = now - entry.loadedAt;
+            if (age < ttlNanos) {
+                stats.hits.increment();
+                return Mono.just(entry.toResponse(now, ifNoneMatch));
+            }
+            if (age < ttlNanos + properties.getStaleWhileRevalidate().toNanos()) {
+                stats.staleHits.increment();
+                refresh(key, entry, loader, loadGeneration);
+                return Mono.just(entry.toResponse(now, ifNoneMatch));
+            }
+        }
+        stats.misses.increment();
+        return loader.get()
+                .doOnNext(response -> put(key, response, loadGeneration))
+                .map(response -> notModifiedIfMatches(response, ifNoneMatch));
+    }
+
+    public void evictAll() {
+        synchronized (entries) {
+            entries.clear();
+            size = 0;
+            generation++;
+        }
+    }
+
+    //the reload runs detached from the request that triggered it
+    private void refresh(String key, Entry entry, Supplier<Mono<ResponseEntity<Object>>> loader,
+            long loadGeneration) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        loader.get()
+                .doFinally(signal -> entry.refreshing.set(false))
+                .subscribe(response -> put(key, response, loadGeneration),
+                        e -> log.warn("Не удалось обновить ответ в кэше для {}: {}", key, e.getMessage()));
+    }
+
+    private Entry getEntry(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private void put(String key, ResponseEntity<Object> response, long loadGeneration) {
+        if (!response.getStatusCode().is2xxSuccessful() || isNotStorable(response.getHeaders())
+                || !(response.getBody() instanceof byte[])) {
+            return;
+        }
+        byte[] body = (byte[]) response.getBody();
+        if (body.length > properties.getMaxEntrySize().toBytes()) {
+            return;
+        }
+        long maxSize = properties.getMaxSize().toBytes();
+        synchronized (entries) {
+            if (generation != loadGeneration) {
+                return;
+            }
+            Entry previous = entries.put(key, new Entry(body, response.getHeaders(), System.nanoTime()));
+            size += body.length - (previous == null ? 0 : previous.body.length);
+            //least recently used first
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (size > maxSize && iterator.hasNext()) {
+                size -= iterator.next().body.length;
+                iterator.remove();
+            }
+        }
+    }
+
+    private long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    private long size() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    private RouteStats registerRoute(String route) {
+        RouteStats stats = new RouteStats();
+        registerCounter(route, "hit", stats.hits);
+        registerCounter(route, "stale", stats.staleHits);
+        registerCounter(route, "miss", stats.misses);
+        registerCounter(route, "bypass", stats.bypasses);
+        Gauge.builder("gateway.response.cache.hit.ratio", stats, RouteStats::hitRatio)
+                .tag("route", route)
+                .register(meterRegistry);
+        return stats;
+    }
+
+    private void registerCounter(String route, String result, LongAdder counter) {
+        FunctionCounter.builder("gateway.response.cache.requests", counter, LongAdder::doubleValue)
+                .tag("route", route)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static boolean isNotStorable(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return hasDirective(cacheControl, "no-store") || hasDirective(cacheControl, "private");
+    }
+
+    private static boolean hasDirective(@Nullable String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return false;
+        }
+        for (String value : cacheControl.split(",")) {
+            if (value.trim().toLowerCase(Locale.ROOT).equals(directive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ResponseEntity<Object> notModifiedIfMatches(ResponseEntity<Object> response,
+            @Nullable String ifNoneMatch) {
+        String etag = response.getHeaders().getETag();
+        if (!response.getStatusCode().is2xxSuccessful() || etag == null || !matches(ifNoneMatch, etag)) {
+            return response;
+        }
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    //weak comparison, If-None-Match may list several tags
+    private static boolean matches(@Nullable String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String value : ifNoneMatch.split(",")) {
+            String tag = value.trim();
+            if (tag.equals("*") || stripWeakPrefix(tag).equals(stripWeakPrefix(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static class Entry {
+        private final byte[] body;
+        //forwarded headers of the server response, e.g. the ETag and the next page cursor
+        private final HttpHeaders headers;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(byte[] body, HttpHeaders headers, long loadedAt) {
+            this.body = body;
+            this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+            this.loadedAt = loadedAt;
+        }
+
+        ResponseEntity<Object> toResponse(long now, @Nullable String ifNoneMatch) {
+            String age = String.valueOf(TimeUnit.NANOSECONDS.toSeconds(now - loadedAt));
+            String etag = headers.getETag();
+            if (etag != null && matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .header(HttpHeaders.AGE, age)
+                        .build();
+            }
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .header(HttpHeaders.AGE, age)
+                    .body(body);
+        }
+    }
+
+    private static class RouteStats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder staleHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder bypasses = new LongAdder();
+
+        double hitRatio() {
+            double served = hits.sum() + staleHits.sum();
+            double total = served + misses.sum() + bypasses.sum();
+            return total == 0 ? 0 : served / total;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "shareit-gateway.response-cache")
+public class ResponseCacheProperties {
+    //total size of cached bodies
+    private DataSize maxSize = DataSize.ofMegabytes(16);
+    //larger bodies are passed through without caching
+    private DataSize maxEntrySize = DataSize.ofKilobytes(512);
+    private Duration defaultTtl = Duration.ofSeconds(10);
+    //how long past its ttl an entry is still served while it is reloaded in the background
+    private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+    //ttl per route, a zero ttl turns caching off for the route
+    private Map<String, Duration> ttl = new HashMap<>();
+
+    public Duration getTtl(String route) {
+        return ttl.getOrDefault(route, defaultTtl);
+    }
+}
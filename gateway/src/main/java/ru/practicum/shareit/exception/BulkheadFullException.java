@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class BulkheadFullException extends RuntimeException {
+    public BulkheadFullException(String family) {
+        super("Превышено число ожидающих запросов к " + family + ".");
+    }
+}
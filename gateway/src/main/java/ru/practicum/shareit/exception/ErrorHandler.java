@@ -7,8 +7,11 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.ConstraintViolationException;
+import java.io.IOException;
 
 @Slf4j
 @RestControllerAdvice
@@ -44,6 +47,34 @@ public class ErrorHandler {
         );
     }
 
+    //no connection to the server, no free connection in the pool or no response in time
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleWebClientRequestException(final WebClientRequestException e) {
+        log.error("Сервер не ответил на запрос {} {}: {}", e.getMethod(), e.getUri(), e.getMessage());
+        return new ErrorResponse(
+                "Сервер временно недоступен.",
+                HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
+    //too many requests of one route family are already waiting for the server
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleBulkheadFullException(final BulkheadFullException e) {
+        log.warn(e.getMessage());
+        return new ErrorResponse(
+                "Сервер перегружен, повторите попытку позже.",
+                HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
+    //the client went away while an export was streamed to it, there is nobody left to answer
+    @ExceptionHandler
+    public void handleIOException(final IOException e, final HttpServletRequest request) {
+        log.info("Клиент прервал получение {}: {}", request.getRequestURI(), e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleThrowable(final Throwable e) {
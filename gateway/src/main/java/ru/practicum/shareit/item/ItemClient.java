@@ -1,71 +1,112 @@
 package ru.practicum.shareit.item;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.Bulkhead;
+import ru.practicum.shareit.client.Bulkheads;
+import ru.practicum.shareit.client.ResponseCache;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    private final ResponseCache responseCache;
+    private final Bulkhead exports;
+
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, WebClient.Builder builder,
+            Bulkheads bulkheads, ResponseCache responseCache) {
+        super(builder.baseUrl(serverUrl + API_PREFIX).build(), bulkheads.get("items"));
+        this.responseCache = responseCache;
+        this.exports = bulkheads.get("exports");
     }
 
-    public ResponseEntity<Object> getAll(Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getAll(Integer from, Integer size, String cursor, String cacheControl) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("/all?from={from}&size={size}", null, parameters);
+        ));
+        String path = "/all?from={from}&size={size}";
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            path += "&cursor={cursor}";
+        }
+        String finalPath = path;
+        return responseCache.get("items-all", cacheKey(path, parameters), cacheControl,
+                () -> getUnconditional(finalPath, null, parameters));
     }
 
-    public ResponseEntity<Object> getItemById(Long userId, Long itemId) {
+    public Mono<ResponseEntity<Object>> getItemById(Long userId, Long itemId) {
         return get("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> getItemsByUserId(Long userId, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getItemsByUserId(Long userId, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("?from={from}&size={size}", userId, parameters);
+        ));
+        String path = "?from={from}&size={size}";
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            path += "&cursor={cursor}";
+        }
+        return get(path, userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Flux<String>>> exportItemsByUserId(Long userId) {
+        return stream(exports, "/export", userId, null);
     }
 
-    public ResponseEntity<Object> search(String text, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> search(String text, Integer from, Integer size, String cacheControl) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
                 "size", size
         );
-        return get("/search?text={text}&from={from}&size={size}", null, parameters);
+        String path = "/search?text={text}&from={from}&size={size}";
+        return responseCache.get("items-search", cacheKey(path, parameters), cacheControl,
+                () -> getUnconditional(path, null, parameters));
+    }
+
+    public Mono<ResponseEntity<Object>> create(Long userId, ItemDto itemDto) {
+        return post("", userId, itemDto).doOnNext(this::evictCatalog);
     }
 
-    public ResponseEntity<Object> create(Long userId, ItemDto itemDto) {
-        return post("", userId, itemDto);
+    public Mono<ResponseEntity<Object>> createAll(Long userId, List<ItemDto> itemDtos) {
+        return post("/batch", userId, itemDtos).doOnNext(this::evictCatalog);
     }
 
-    public ResponseEntity<Object> update(Long itemId, Long userId, ItemDto itemDto) {
-        return patch("/" + itemId, userId, itemDto);
+    public Mono<ResponseEntity<Object>> update(Long itemId, Long userId, ItemDto itemDto) {
+        return patch("/" + itemId, userId, itemDto).doOnNext(this::evictCatalog);
     }
 
-    public void delete(Long itemId, Long userId) {
-        delete("/" + itemId, userId);
+    public Mono<Void> delete(Long itemId, Long userId) {
+        return delete("/" + itemId, userId).doOnNext(this::evictCatalog).then();
     }
 
-    public ResponseEntity<Object> createComment(Long userId, Long itemId, CommentDto commentDto) {
+    public Mono<ResponseEntity<Object>> createComment(Long userId, Long itemId, CommentDto commentDto) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
+
+    //defaults are already applied and the parameter order is fixed, so equal requests expand to equal keys
+    private static String cacheKey(String path, Map<String, Object> parameters) {
+        return new UriTemplate(API_PREFIX + path).expand(parameters).toString();
+    }
+
+    private void evictCatalog(ResponseEntity<Object> response) {
+        if (response.getStatusCode().is2xxSuccessful()) {
+            responseCache.evictAll();
+        }
+    }
 }
@@ -1,9 +1,13 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.validator.ItemDtoValidator;
@@ -11,6 +15,8 @@ import ru.practicum.shareit.validator.ItemDtoValidator;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.util.List;
 
 @RestController
 @RequestMapping("/items")
@@ -20,39 +26,58 @@ public class ItemController {
     private final ItemClient client;
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAll(@RequestParam(value = "from", defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(value = "size", defaultValue = "20") @Min(1) Integer size) {
-        return client.getAll(from, size);
+    public Mono<ResponseEntity<Object>> getAll(@RequestParam(value = "from", defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.CACHE_CONTROL, required = false) String cacheControl) {
+        return client.getAll(from, size, cursor, cacheControl);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItemById(@RequestHeader(value = "X-Sharer-User-Id", required = false) Long userId,
+    public Mono<ResponseEntity<Object>> getItemById(@RequestHeader(value = "X-Sharer-User-Id", required = false) Long userId,
             @PathVariable("itemId") Long itemId) {
         return client.getItemById(userId, itemId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemsByUserId(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+    public Mono<ResponseEntity<Object>> getItemsByUserId(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
             @RequestParam(value = "from", defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(value = "size", defaultValue = "20") @Min(1) Integer size) {
-        return client.getItemsByUserId(userId, from, size);
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        return client.getItemsByUserId(userId, from, size, cursor);
+    }
+
+    //labelled ndjson like the server body; */* still accepts other Accept headers, which then get it as text/plain
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.ALL_VALUE})
+    public Mono<ResponseEntity<Flux<String>>> exportItemsByUserId(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId) {
+        return client.exportItemsByUserId(userId);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> search(@RequestParam("text") String text,
+    public Mono<ResponseEntity<Object>> search(@RequestParam("text") String text,
             @RequestParam(value = "from", defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(value = "size", defaultValue = "20") @Min(1) Integer size) {
-        return client.search(text, from, size);
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) Integer size,
+            @RequestHeader(value = HttpHeaders.CACHE_CONTROL, required = false) String cacheControl) {
+        return client.search(text, from, size, cacheControl);
     }
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public Mono<ResponseEntity<Object>> create(@RequestHeader("X-Sharer-User-Id") Long userId,
                           @Valid @RequestBody ItemDto itemDto) {
         return client.create(userId, itemDto);
     }
 
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Object>> createAll(@RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestBody @Size(min = 1, max = 5000,
+                    message = "Произошло исключение! В пакете должно быть от 1 до 5000 элементов.")
+            List<@Valid ItemDto> itemDtos) {
+        return client.createAll(userId, itemDtos);
+    }
+
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> update(@PathVariable("itemId") Long itemId,
+    public Mono<ResponseEntity<Object>> update(@PathVariable("itemId") Long itemId,
                           @RequestHeader("X-Sharer-User-Id") Long userId,
                           @RequestBody ItemDto itemDto) {
         ItemDtoValidator.validateAllFieldNotNull(itemDto);
@@ -66,13 +91,13 @@ public class ItemController {
     }
 
     @DeleteMapping("/{itemId}")
-    public void delete(@PathVariable("itemId") Long itemId,
+    public Mono<Void> delete(@PathVariable("itemId") Long itemId,
                        @RequestHeader("X-Sharer-User-Id") Long userId) {
-        client.delete(itemId, userId);
+        return client.delete(itemId, userId);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> createComment(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public Mono<ResponseEntity<Object>> createComment(@RequestHeader("X-Sharer-User-Id") Long userId,
             @PathVariable("itemId") Long itemId, @Valid @RequestBody CommentDto commentDto) {
         return client.createComment(userId, itemId, commentDto);
     }
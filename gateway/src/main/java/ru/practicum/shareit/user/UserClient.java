@@ -1,43 +1,57 @@
 package ru.practicum.shareit.user;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.Bulkheads;
+import ru.practicum.shareit.client.ResponseCache;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.util.List;
+
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    private final ResponseCache responseCache;
+
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, WebClient.Builder builder,
+            Bulkheads bulkheads, ResponseCache responseCache) {
+        super(builder.baseUrl(serverUrl + API_PREFIX).build(), bulkheads.get("users"));
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<Object> getAll() {
+    public Mono<ResponseEntity<Object>> getAll() {
         return get("");
     }
 
-    public ResponseEntity<Object> getById(Long id) {
+    public Mono<ResponseEntity<Object>> getById(Long id) {
         return get("/" + id);
     }
 
-    public ResponseEntity<Object> create(UserDto userDto) {
+    public Mono<ResponseEntity<Object>> create(UserDto userDto) {
         return post("", userDto);
     }
 
-    public ResponseEntity<Object> update(Long id, UserDto userDto) {
+    public Mono<ResponseEntity<Object>> createAll(List<UserDto> userDtos) {
+        return post("/batch", userDtos);
+    }
+
+    public Mono<ResponseEntity<Object>> update(Long id, UserDto userDto) {
         return patch("/" + id, userDto);
     }
 
-    public void deleteById(Long id) {
-        delete("/" + id);
+    public Mono<Void> deleteById(Long id) {
+        return delete("/" + id)
+                .doOnNext(response -> {
+                    //the user's items are deleted with the user
+                    if (response.getStatusCode().is2xxSuccessful()) {
+                        responseCache.evictAll();
+                    }
+                })
+                .then();
     }
 }
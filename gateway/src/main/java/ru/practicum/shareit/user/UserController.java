@@ -2,36 +2,56 @@ package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.validator.UserDtoValidator;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Size;
+import java.util.List;
 
 @RestController
 @RequestMapping(path = "/users")
 @RequiredArgsConstructor
+@Validated
 public class UserController {
     private final UserClient client;
 
     @GetMapping
-    public ResponseEntity<Object> getAll() {
+    public Mono<ResponseEntity<Object>> getAll() {
         return client.getAll();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Object> getById(@PathVariable("id") Long id) {
+    public Mono<ResponseEntity<Object>> getById(@PathVariable("id") Long id) {
         return client.getById(id);
     }
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestBody UserDto userDto) {
+    public Mono<ResponseEntity<Object>> create(@RequestBody UserDto userDto) {
         UserDtoValidator.validateUserDto(userDto);
         return client.create(userDto);
     }
 
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Object>> createAll(@RequestBody @Size(min = 1, max = 5000,
+                    message = "Произошло исключение! В пакете должно быть от 1 до 5000 элементов.")
+            List<UserDto> userDtos) {
+        for (int i = 0; i < userDtos.size(); i++) {
+            try {
+                UserDtoValidator.validateUserDto(userDtos.get(i));
+            } catch (ValidationException e) {
+                throw new ValidationException(String.format("Элемент %d: %s", i, e.getMessage()));
+            }
+        }
+        return client.createAll(userDtos);
+    }
+
     @PatchMapping("/{id}")
-    public ResponseEntity<Object> update(@PathVariable("id") Long id, @Valid @RequestBody UserDto userDto) {
+    public Mono<ResponseEntity<Object>> update(@PathVariable("id") Long id, @Valid @RequestBody UserDto userDto) {
         if (userDto.getName() != null) {
             UserDtoValidator.validateName(userDto);
         }
@@ -39,7 +59,7 @@ public class UserController {
     }
 
     @DeleteMapping("/{id}")
-    public void deleteById(@PathVariable("id") Long id) {
-        client.deleteById(id);
+    public Mono<Void> deleteById(@PathVariable("id") Long id) {
+        return client.deleteById(id);
     }
 }
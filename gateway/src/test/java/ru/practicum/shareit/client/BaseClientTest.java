@@ -0,0 +1,211 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaseClientTest {
+    //spacing and key order the gateway must not normalize
+    private static final byte[] BODY = "{ \"id\" : 1,\"name\":\"дрель\",  \"available\":true }"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final List<ClientRequest> requests = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Supplier<ClientResponse> serverResponse;
+    private TestClient client;
+    private Bulkhead exports;
+
+    @BeforeEach
+    void beforeEach() {
+        WebClient rest = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.add(request);
+                    return Mono.fromSupplier(serverResponse);
+                })
+                .build();
+        client = new TestClient(rest, new Bulkhead("items", 10, 10, Duration.ofSeconds(5), meterRegistry));
+        exports = new Bulkhead("exports", 1, 1, Duration.ofSeconds(5), meterRegistry);
+    }
+
+    @AfterEach
+    void afterEach() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void getTest_whenServerAnswers_thenBodyPassedOnByteForByte() {
+        for (HttpStatus status : List.of(HttpStatus.OK, HttpStatus.NOT_FOUND, HttpStatus.CONFLICT)) {
+            serverResponse = () -> response(status);
+
+            ResponseEntity<Object> response = client.get("/items/1", 1L, null).block(Duration.ofSeconds(5));
+
+            assertNotNull(response);
+            assertEquals(status, response.getStatusCode());
+            assertArrayEquals(BODY, (byte[]) response.getBody(), status.toString());
+        }
+    }
+
+    @Test
+    void getTest_whenServerAnswers_thenOnlyEndToEndHeadersForwarded() {
+        serverResponse = () -> response(HttpStatus.OK);
+
+        ResponseEntity<Object> response = client.get("/items", 1L, null).block(Duration.ofSeconds(5));
+
+        assertNotNull(response);
+        HttpHeaders headers = response.getHeaders();
+        assertEquals("\"0abc\"", headers.getETag());
+        assertEquals("next", headers.getFirst("X-Next-Cursor"));
+        assertEquals(MediaType.APPLICATION_JSON, headers.getContentType());
+        assertFalse(headers.containsKey(HttpHeaders.TRANSFER_ENCODING));
+        assertFalse(headers.containsKey(HttpHeaders.CONNECTION));
+        assertFalse(headers.containsKey(HttpHeaders.CONTENT_LENGTH));
+    }
+
+    @Test
+    void getTest_whenServerAnswersNotModified_thenEmptyNotModifiedWithEtag() {
+        serverResponse = () -> ClientResponse.create(HttpStatus.NOT_MODIFIED)
+                .header(HttpHeaders.ETAG, "\"0abc\"")
+                .build();
+
+        ResponseEntity<Object> response = client.get("/items/1", 1L, null).block(Duration.ofSeconds(5));
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"0abc\"", response.getHeaders().getETag());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void requestTest_whenClientSentIfNoneMatch_thenForwardedOnlyOnConditionalGet() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"0abc\"");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        serverResponse = () -> response(HttpStatus.OK);
+
+        client.get("/items/1", 1L, null).block(Duration.ofSeconds(5));
+        client.getUnconditional("/items/1", 1L, null).block(Duration.ofSeconds(5));
+        client.patch("/items/1", 1L, "{}").block(Duration.ofSeconds(5));
+
+        assertEquals(3, requests.size());
+        assertEquals("\"0abc\"", requests.get(0).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals("1", requests.get(0).headers().getFirst("X-Sharer-User-Id"));
+        assertNull(requests.get(1).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertNull(requests.get(2).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+    }
+
+    @Test
+    void streamTest_whenServerSendsFewLinesAndWaits_thenLinesWrittenWithoutWaitingForFullGroup() {
+        serverResponse = () -> ndjsonResponse(Flux.concat(Flux.just(buffer("{\"id\":1}\n{\"id\":2}\n")),
+                Flux.never()));
+        ResponseEntity<Flux<String>> response = client.stream(exports, "/export", 1L, null)
+                .block(Duration.ofSeconds(5));
+        assertNotNull(response);
+
+        StepVerifier.create(response.getBody())
+                .expectNext("{\"id\":1}\n{\"id\":2}\n")
+                .thenCancel()
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(0, activeExports());
+    }
+
+    @Test
+    void streamTest_whenBodyRead_thenPermitReleased() {
+        serverResponse = () -> ndjsonResponse(Flux.just(buffer("{\"id\":1}\n")));
+        ResponseEntity<Flux<String>> response = client.stream(exports, "/export", 1L, null)
+                .block(Duration.ofSeconds(5));
+        assertNotNull(response);
+        assertEquals(1, activeExports());
+
+        StepVerifier.create(response.getBody())
+                .expectNext("{\"id\":1}\n")
+                .verifyComplete();
+
+        assertEquals(0, activeExports());
+    }
+
+    @Test
+    void streamTest_whenRequestCompletedWithoutReadingBody_thenPermitReleased() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, servletResponse));
+        serverResponse = () -> ndjsonResponse(Flux.just(buffer("{\"id\":1}\n")));
+
+        ResponseEntity<Flux<String>> response = client.stream(exports, "/export", 1L, null)
+                .block(Duration.ofSeconds(5));
+        assertNotNull(response);
+        assertEquals(1, activeExports());
+
+        //the async request ends, e.g. on a timeout, before the body is ever subscribed
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, servletResponse));
+        asyncManager.startDeferredResultProcessing(new DeferredResult<>());
+        request.getAsyncContext().complete();
+
+        assertEquals(0, activeExports());
+    }
+
+    private double activeExports() {
+        return meterRegistry.get("gateway.bulkhead.active").tag("family", "exports").gauge().value();
+    }
+
+    private static ClientResponse ndjsonResponse(Flux<DataBuffer> body) {
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_NDJSON_VALUE)
+                .body(body)
+                .build();
+    }
+
+    private static DataBuffer buffer(String content) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ClientResponse response(HttpStatus status) {
+        DataBuffer body = DefaultDataBufferFactory.sharedInstance.wrap(BODY);
+        return ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.ETAG, "\"0abc\"")
+                .header("X-Next-Cursor", "next")
+                .header(HttpHeaders.TRANSFER_ENCODING, "chunked")
+                .header(HttpHeaders.CONNECTION, "keep-alive")
+                .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(BODY.length))
+                .body(Flux.just(body))
+                .build();
+    }
+
+    private static class TestClient extends BaseClient {
+        TestClient(WebClient rest, Bulkhead bulkhead) {
+            super(rest, bulkhead);
+        }
+    }
+}
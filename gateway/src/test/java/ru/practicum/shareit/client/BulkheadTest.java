@@ -0,0 +1,169 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.practicum.shareit.exception.BulkheadFullException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+    private static final String FAMILY = "items";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void acquireTest_whenLimitReached_thenRequestWaitsForRelease() {
+        Bulkhead bulkhead = bulkhead(2, 1, Duration.ofSeconds(5));
+        Bulkhead.Permit first = bulkhead.acquire().block();
+        Bulkhead.Permit second = bulkhead.acquire().block();
+
+        StepVerifier.create(bulkhead.acquire())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .then(() -> assertEquals(1, gauge("gateway.bulkhead.queued")))
+                .then(first::release)
+                .consumeNextWith(Bulkhead.Permit::release)
+                .verifyComplete();
+        second.release();
+
+        assertEquals(0, gauge("gateway.bulkhead.active"));
+        assertEquals(0, gauge("gateway.bulkhead.queued"));
+    }
+
+    @Test
+    void acquireTest_whenQueueFull_thenRejectedAndCounted() {
+        Bulkhead bulkhead = bulkhead(1, 1, Duration.ofSeconds(5));
+        Bulkhead.Permit permit = bulkhead.acquire().block();
+        Disposable queued = bulkhead.acquire().subscribe();
+
+        StepVerifier.create(bulkhead.acquire())
+                .expectError(BulkheadFullException.class)
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(1, rejected("queue-full"));
+        assertEquals(0, rejected("timeout"));
+        queued.dispose();
+        permit.release();
+        assertEquals(0, gauge("gateway.bulkhead.active"));
+    }
+
+    @Test
+    void releaseTest_whenRequestsWait_thenPermitHandedOverInArrivalOrder() {
+        Bulkhead bulkhead = bulkhead(1, 2, Duration.ofSeconds(5));
+        Bulkhead.Permit permit = bulkhead.acquire().block();
+        List<String> granted = new ArrayList<>();
+        List<Bulkhead.Permit> permits = new ArrayList<>();
+        bulkhead.acquire().subscribe(next -> {
+            granted.add("first");
+            permits.add(next);
+        });
+        bulkhead.acquire().subscribe(next -> {
+            granted.add("second");
+            permits.add(next);
+        });
+
+        permit.release();
+        assertEquals(List.of("first"), granted);
+        assertEquals(1, gauge("gateway.bulkhead.active"));
+        permits.get(0).release();
+        assertEquals(List.of("first", "second"), granted);
+        permits.get(1).release();
+
+        assertEquals(0, gauge("gateway.bulkhead.active"));
+    }
+
+    @Test
+    void acquireTest_whenWaitTimedOut_thenNoPermitLeaked() {
+        Bulkhead bulkhead = bulkhead(1, 1, Duration.ofMillis(100));
+        Bulkhead.Permit permit = bulkhead.acquire().block();
+
+        StepVerifier.create(bulkhead.acquire())
+                .expectError(BulkheadFullException.class)
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(1, rejected("timeout"));
+        assertEquals(0, gauge("gateway.bulkhead.queued"));
+        permit.release();
+        assertEquals(0, gauge("gateway.bulkhead.active"));
+    }
+
+    @Test
+    void acquireTest_whenWaiterCancelled_thenNoPermitLeaked() {
+        Bulkhead bulkhead = bulkhead(1, 1, Duration.ofSeconds(5));
+        Bulkhead.Permit permit = bulkhead.acquire().block();
+        Disposable queued = bulkhead.acquire().subscribe();
+
+        queued.dispose();
+        assertEquals(0, gauge("gateway.bulkhead.queued"));
+        permit.release();
+
+        assertEquals(0, gauge("gateway.bulkhead.active"));
+    }
+
+    @Test
+    void releaseTest_whenReleasedTwice_thenReturnedOnce() {
+        Bulkhead bulkhead = bulkhead(2, 1, Duration.ofSeconds(5));
+        Bulkhead.Permit first = bulkhead.acquire().block();
+        bulkhead.acquire().block();
+
+        first.release();
+        first.release();
+
+        assertEquals(1, gauge("gateway.bulkhead.active"));
+    }
+
+    @Test
+    void limitTest_whenCallCompletes_thenPermitReleased() {
+        Bulkhead bulkhead = bulkhead(1, 1, Duration.ofSeconds(5));
+
+        StepVerifier.create(bulkhead.limit(Mono.just("body")))
+                .expectNext("body")
+                .verifyComplete();
+
+        assertEquals(0, gauge("gateway.bulkhead.active"));
+    }
+
+    @Test
+    void limitTest_whenCallFails_thenPermitReleased() {
+        Bulkhead bulkhead = bulkhead(1, 1, Duration.ofSeconds(5));
+
+        StepVerifier.create(bulkhead.limit(Mono.error(new IllegalStateException("server down"))))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(0, gauge("gateway.bulkhead.active"));
+    }
+
+    @Test
+    void limitTest_whenCallCancelled_thenPermitReleased() {
+        Bulkhead bulkhead = bulkhead(1, 1, Duration.ofSeconds(5));
+
+        StepVerifier.create(bulkhead.limit(Mono.never()))
+                .expectSubscription()
+                .then(() -> assertEquals(1, gauge("gateway.bulkhead.active")))
+                .thenCancel()
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(0, gauge("gateway.bulkhead.active"));
+    }
+
+    private Bulkhead bulkhead(int maxConcurrent, int maxQueued, Duration maxWait) {
+        return new Bulkhead(FAMILY, maxConcurrent, maxQueued, maxWait, meterRegistry);
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).tag("family", FAMILY).gauge().value();
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("gateway.bulkhead.rejected").tag("family", FAMILY).tag("reason", reason)
+                .functionCounter().count();
+    }
+}
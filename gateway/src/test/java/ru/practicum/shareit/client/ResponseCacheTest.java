@@ -0,0 +1,229 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+    private static final String ROUTE = "items";
+
+    private final ResponseCacheProperties properties = new ResponseCacheProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    void beforeEach() {
+        properties.setTtl(Map.of(ROUTE, Duration.ofSeconds(10)));
+        responseCache = new ResponseCache(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void afterEach() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void getTest_whenHitWithinTtl_thenLoaderNotCalled() {
+        CountingLoader loader = new CountingLoader(loaded("v1"));
+
+        assertEquals("v1", body(get("/items", null, loader)));
+        assertEquals("v1", body(get("/items", null, loader)));
+
+        assertEquals(1, loader.loads);
+        assertEquals(1, requests("hit"));
+        assertEquals(1, requests("miss"));
+    }
+
+    @Test
+    void getTest_whenStale_thenOldBodyServedAndRefreshedOnce() throws InterruptedException {
+        properties.setTtl(Map.of(ROUTE, Duration.ofMillis(200)));
+        Sinks.One<ResponseEntity<Object>> refreshed = Sinks.one();
+        CountingLoader loader = new CountingLoader(loaded("v1"), refreshed.asMono());
+        get("/items", null, loader).block();
+        Thread.sleep(300);
+
+        assertEquals("v1", body(get("/items", null, loader)));
+        assertEquals("v1", body(get("/items", null, loader)));
+        assertEquals(2, loader.loads);
+        refreshed.tryEmitValue(ok("v2"));
+
+        assertEquals("v2", body(get("/items", null, loader)));
+        assertEquals(2, loader.loads);
+        assertEquals(2, requests("stale"));
+    }
+
+    @Test
+    void getTest_whenEvictedWhileLoading_thenLoadedResponseNotStored() {
+        Sinks.One<ResponseEntity<Object>> loading = Sinks.one();
+        CountingLoader loader = new CountingLoader(loading.asMono(), loaded("v2"));
+        Mono<ResponseEntity<Object>> inFlight = get("/items", null, loader);
+        AtomicReference<ResponseEntity<Object>> loadedResponse = new AtomicReference<>();
+        inFlight.subscribe(loadedResponse::set);
+
+        responseCache.evictAll();
+        loading.tryEmitValue(ok("v1"));
+
+        assertEquals("v1", body(loadedResponse.get()));
+        assertEquals("v2", body(get("/items", null, loader)));
+        assertEquals(2, loader.loads);
+    }
+
+    @Test
+    void getTest_whenMaxSizeExceeded_thenLeastRecentlyUsedEvicted() {
+        properties.setMaxSize(DataSize.ofBytes(10));
+        CountingLoader first = new CountingLoader(loaded("aaaa"));
+        CountingLoader second = new CountingLoader(loaded("bbbb"), loaded("bbbb"));
+        CountingLoader third = new CountingLoader(loaded("cccc"));
+        get("/items/1", null, first).block();
+        get("/items/2", null, second).block();
+        get("/items/1", null, first).block();
+
+        get("/items/3", null, third).block();
+
+        assertEquals("aaaa", body(get("/items/1", null, first)));
+        assertEquals(1, first.loads);
+        assertEquals("bbbb", body(get("/items/2", null, second)));
+        assertEquals(2, second.loads);
+    }
+
+    @Test
+    void getTest_whenNoStore_thenCacheNeitherReadNorWritten() {
+        CountingLoader loader = new CountingLoader(loaded("v1"), loaded("v2"));
+        get("/items", null, loader).block();
+
+        assertEquals("v2", body(get("/items", "no-store", loader)));
+
+        assertEquals("v1", body(get("/items", null, loader)));
+        assertEquals(2, loader.loads);
+        assertEquals(1, requests("bypass"));
+    }
+
+    @Test
+    void getTest_whenNoCacheOrMaxAge0_thenLoadedAndStored() {
+        CountingLoader loader = new CountingLoader(loaded("v1"), loaded("v2"), loaded("v3"));
+        get("/items", null, loader).block();
+
+        assertEquals("v2", body(get("/items", "no-cache", loader)));
+        assertEquals("v2", body(get("/items", null, loader)));
+        assertEquals("v3", body(get("/items", "max-age=0", loader)));
+        assertEquals("v3", body(get("/items", null, loader)));
+
+        assertEquals(3, loader.loads);
+        assertEquals(2, requests("bypass"));
+    }
+
+    @Test
+    void getTest_whenResponsePrivate_thenNotStored() {
+        ResponseEntity<Object> privateResponse = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body((Object) bytes("v1"));
+        CountingLoader loader = new CountingLoader(Mono.just(privateResponse), loaded("v2"));
+        get("/items", null, loader).block();
+
+        assertEquals("v2", body(get("/items", null, loader)));
+
+        assertEquals(2, loader.loads);
+    }
+
+    @Test
+    void getTest_whenIfNoneMatchesCachedEtag_thenNotModified() {
+        CountingLoader loader = new CountingLoader(loaded("v1"));
+        get("/items", null, loader).block();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", W/\"v1\"");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        ResponseEntity<Object> response = get("/items", null, loader).block();
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"v1\"", response.getHeaders().getETag());
+        assertNull(response.getBody());
+        assertEquals(1, loader.loads);
+    }
+
+    @Test
+    void getTest_whenTtlZero_thenEveryRequestLoaded() {
+        properties.setTtl(Map.of(ROUTE, Duration.ZERO));
+        CountingLoader loader = new CountingLoader(loaded("v1"), loaded("v2"));
+
+        assertEquals("v1", body(get("/items", null, loader)));
+        assertEquals("v2", body(get("/items", null, loader)));
+
+        assertEquals(2, loader.loads);
+    }
+
+    private Mono<ResponseEntity<Object>> get(String key, String cacheControl, CountingLoader loader) {
+        return responseCache.get(ROUTE, key, cacheControl, loader);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("gateway.response.cache.requests").tag("route", ROUTE).tag("result", result)
+                .functionCounter().count();
+    }
+
+    private static ResponseEntity<Object> ok(String body) {
+        return ResponseEntity.ok()
+                .eTag(body)
+                .body(bytes(body));
+    }
+
+    private static Mono<ResponseEntity<Object>> loaded(String body) {
+        return Mono.just(ok(body));
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String body(Mono<ResponseEntity<Object>> response) {
+        return body(response.block(Duration.ofSeconds(5)));
+    }
+
+    private static String body(ResponseEntity<Object> response) {
+        assertNotNull(response);
+        return new String((byte[]) response.getBody(), StandardCharsets.UTF_8);
+    }
+
+    //hands out the given responses in order and counts the loads
+    private static class CountingLoader implements Supplier<Mono<ResponseEntity<Object>>> {
+        private final Deque<Mono<ResponseEntity<Object>>> responses = new ArrayDeque<>();
+        private int loads;
+
+        @SafeVarargs
+        CountingLoader(Mono<ResponseEntity<Object>>... responses) {
+            for (Mono<ResponseEntity<Object>> response : responses) {
+                this.responses.add(response);
+            }
+        }
+
+        @Override
+        public Mono<ResponseEntity<Object>> get() {
+            loads++;
+            Mono<ResponseEntity<Object>> response = responses.poll();
+            assertNotNull(response, "Лишняя загрузка ответа");
+            return response;
+        }
+    }
+}
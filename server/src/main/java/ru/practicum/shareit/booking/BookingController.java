@@ -1,11 +1,21 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.EntityTag;
+import ru.practicum.shareit.utils.KeysetCursor;
+import ru.practicum.shareit.utils.NdjsonResponse;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -13,27 +23,70 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BookingController {
     private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public List<BookingDto> getBookingsByUserId(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+    public ResponseEntity<List<BookingDto>> getBookingsByUserId(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
             @RequestParam(value = "state", required = false) BookingState state,
-            @RequestParam(value = "from") Integer from,
-            @RequestParam(value = "size") Integer size) {
-        return bookingService.getBookingsByUserId(userId, state, from, size);
+            @RequestParam(value = "from", defaultValue = "0") Integer from,
+            @RequestParam(value = "size") Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor, WebRequest request) {
+        List<BookingDto> bookingDtos;
+        if (cursor != null) {
+            bookingDtos = bookingService.getBookingsByUserId(userId, state, KeysetCursor.decode(cursor), size);
+        } else {
+            bookingDtos = bookingService.getBookingsByUserId(userId, state, from, size);
+        }
+        if (tag(bookingDtos).isNotModified(request)) {
+            return null;
+        }
+        return KeysetCursor.toResponse(bookingDtos, size,
+                bookingDto -> new KeysetCursor(bookingDto.getStart(), bookingDto.getId()));
+    }
+
+    @GetMapping("/export")
+    public void exportBookingsByUserId(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestParam(value = "state", required = false) BookingState state,
+            HttpServletResponse response) throws IOException {
+        NdjsonResponse.write(objectMapper, response,
+                consumer -> bookingService.exportBookingsByUserId(userId, state, consumer));
     }
 
     @GetMapping("/{bookingId}")
     public BookingDto getBookingById(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
-            @PathVariable("bookingId") Long bookingId) {
-        return bookingService.getBookingById(userId, bookingId);
+            @PathVariable("bookingId") Long bookingId, WebRequest request) {
+        BookingDto bookingDto = bookingService.getBookingById(userId, bookingId);
+        if (addBooking(new EntityTag(), bookingDto).isNotModified(request)) {
+            return null;
+        }
+        return bookingDto;
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getBookingsByOwnerId(@RequestHeader(value = "X-Sharer-User-Id") Long ownerId,
+    public ResponseEntity<List<BookingDto>> getBookingsByOwnerId(@RequestHeader(value = "X-Sharer-User-Id") Long ownerId,
+            @RequestParam(value = "state", required = false) BookingState state,
+            @RequestParam(value = "from", defaultValue = "0") Integer from,
+            @RequestParam(value = "size") Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor, WebRequest request) {
+        List<BookingDto> bookingDtos;
+        if (cursor != null) {
+            bookingDtos = bookingService.getBookingsByOwnerId(ownerId, state, KeysetCursor.decode(cursor), size);
+        } else {
+            bookingDtos = bookingService.getBookingsByOwnerId(ownerId, state, from, size);
+        }
+        if (tag(bookingDtos).isNotModified(request)) {
+            return null;
+        }
+        return KeysetCursor.toResponse(bookingDtos, size,
+                bookingDto -> new KeysetCursor(bookingDto.getStart(), bookingDto.getId()));
+    }
+
+    @GetMapping("/owner/export")
+    public void exportBookingsByOwnerId(@RequestHeader(value = "X-Sharer-User-Id") Long ownerId,
             @RequestParam(value = "state", required = false) BookingState state,
-            @RequestParam(value = "from") Integer from,
-            @RequestParam(value = "size") Integer size) {
-        return bookingService.getBookingsByOwnerId(ownerId, state, from, size);
+            HttpServletResponse response) throws IOException {
+        NdjsonResponse.write(objectMapper, response,
+                consumer -> bookingService.exportBookingsByOwnerId(ownerId, state, consumer));
     }
 
     @PostMapping
@@ -42,10 +95,33 @@ public class BookingController {
         return bookingService.create(userId, bookingDto);
     }
 
+    @PatchMapping("/batch")
+    public List<BatchResult<BookingDto>> updateAll(@RequestHeader(value = "X-Sharer-User-Id") Long ownerId,
+            @RequestBody List<BookingDecisionDto> decisions) {
+        return bookingService.updateAll(ownerId, decisions);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDto update(@PathVariable("bookingId") Long bookingId,
             @RequestHeader(value = "X-Sharer-User-Id") Long ownerId,
             @RequestParam(value = "approved", required = false) Boolean approved) {
         return bookingService.update(bookingId, ownerId, approved);
     }
+
+    private static EntityTag tag(List<BookingDto> bookingDtos) {
+        EntityTag tag = new EntityTag();
+        bookingDtos.forEach(bookingDto -> addBooking(tag, bookingDto));
+        return tag;
+    }
+
+    private static EntityTag addBooking(EntityTag tag, BookingDto bookingDto) {
+        tag.add(bookingDto.getId()).add(bookingDto.getVersion());
+        if (bookingDto.getItem() != null) {
+            tag.add(bookingDto.getItem().getId()).add(bookingDto.getItem().getVersion());
+        }
+        if (bookingDto.getBooker() != null) {
+            tag.add(bookingDto.getBooker().getId()).add(bookingDto.getBooker().getVersion());
+        }
+        return tag;
+    }
 }
@@ -1,8 +1,10 @@
 package ru.practicum.shareit.booking.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -22,4 +24,7 @@ public class BookingDto {
     private Long bookerId;
     private UserDto booker;
     private BookingStatus status;
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long version;
 }
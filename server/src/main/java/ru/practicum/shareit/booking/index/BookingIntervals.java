@@ -0,0 +1,168 @@
+package ru.practicum.shareit.booking.index;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+//[start, end) intervals of one item sorted by (start, id) with a running max of end
+class BookingIntervals {
+    private LocalDateTime[] starts = new LocalDateTime[4];
+    private LocalDateTime[] ends = new LocalDateTime[4];
+    private long[] ids = new long[4];
+    private long[] bookerIds = new long[4];
+    //index of the interval with the latest end (then the greatest id) among the first i + 1 intervals
+    private int[] maxEndIndexes = new int[4];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void put(long id, long bookerId, LocalDateTime start, LocalDateTime end) {
+        remove(id);
+        int position = upperBound(start, id);
+        if (size == ids.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            bookerIds = Arrays.copyOf(bookerIds, capacity);
+            maxEndIndexes = Arrays.copyOf(maxEndIndexes, capacity);
+        }
+        int tail = size - position;
+        System.arraycopy(starts, position, starts, position + 1, tail);
+        System.arraycopy(ends, position, ends, position + 1, tail);
+        System.arraycopy(ids, position, ids, position + 1, tail);
+        System.arraycopy(bookerIds, position, bookerIds, position + 1, tail);
+        starts[position] = start;
+        ends[position] = end;
+        ids[position] = id;
+        bookerIds[position] = bookerId;
+        size++;
+        updateMaxEnds(position);
+    }
+
+    boolean remove(long id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                int tail = size - i - 1;
+                System.arraycopy(starts, i + 1, starts, i, tail);
+                System.arraycopy(ends, i + 1, ends, i, tail);
+                System.arraycopy(ids, i + 1, ids, i, tail);
+                System.arraycopy(bookerIds, i + 1, bookerIds, i, tail);
+                size--;
+                starts[size] = null;
+                ends[size] = null;
+                updateMaxEnds(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //drops the intervals ended by the time except the one last(time) returns, so the last booking stays known
+    void removeEnded(LocalDateTime time) {
+        int count = countStartingBefore(time);
+        int lastIndex = count == 0 ? -1 : maxEndIndexes[count - 1];
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == lastIndex || ends[i].isAfter(time)) {
+                starts[kept] = starts[i];
+                ends[kept] = ends[i];
+                ids[kept] = ids[i];
+                bookerIds[kept] = bookerIds[i];
+                kept++;
+            }
+        }
+        Arrays.fill(starts, kept, size, null);
+        Arrays.fill(ends, kept, size, null);
+        size = kept;
+        if (size < ids.length / 4) {
+            int capacity = Math.max(4, size * 2);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            bookerIds = Arrays.copyOf(bookerIds, capacity);
+            maxEndIndexes = Arrays.copyOf(maxEndIndexes, capacity);
+        }
+        updateMaxEnds(0);
+    }
+
+    boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        int count = countStartingBefore(end);
+        return count > 0 && ends[maxEndIndexes[count - 1]].isAfter(start);
+    }
+
+    //the booking started before now with the latest end, as the lastBooking query orders it
+    Booking last(LocalDateTime now) {
+        int count = countStartingBefore(now);
+        return count == 0 ? null : toBooking(maxEndIndexes[count - 1]);
+    }
+
+    //the booking with the earliest start after now
+    Booking next(LocalDateTime now) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle].isAfter(now)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low == size ? null : toBooking(low);
+    }
+
+    private int countStartingBefore(LocalDateTime time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle].isBefore(time)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(LocalDateTime start, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int compared = starts[middle].compareTo(start);
+            if (compared < 0 || (compared == 0 && ids[middle] < id)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void updateMaxEnds(int from) {
+        for (int i = from; i < size; i++) {
+            if (i == 0) {
+                maxEndIndexes[i] = 0;
+                continue;
+            }
+            int previous = maxEndIndexes[i - 1];
+            int compared = ends[i].compareTo(ends[previous]);
+            maxEndIndexes[i] = compared > 0 || (compared == 0 && ids[i] > ids[previous]) ? i : previous;
+        }
+    }
+
+    private Booking toBooking(int index) {
+        return Booking.builder()
+                .id(ids[index])
+                .start(starts[index])
+                .end(ends[index])
+                .booker(User.builder().id(bookerIds[index]).build())
+                .build();
+    }
+}
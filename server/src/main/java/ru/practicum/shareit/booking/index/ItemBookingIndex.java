@@ -0,0 +1,191 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingView;
+import ru.practicum.shareit.utils.TransactionCallbacks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+@Component
+@RequiredArgsConstructor
+public class ItemBookingIndex {
+    private static final List<BookingStatus> INDEXED_STATUSES = List.of(BookingStatus.APPROVED,
+            BookingStatus.WAITING);
+    private static final List<BookingStatus> APPROVED_STATUSES = List.of(BookingStatus.APPROVED);
+    //items kept at once, the whole index is dropped when it is full
+    private static final int MAX_ITEMS = 10_000;
+    //an item is read again after this time, so bookings written by other instances are picked up
+    private static final Duration RELOAD_AFTER = Duration.ofMinutes(5);
+    //ended bookings are dropped this long after their end, at most once per this time per item
+    private static final Duration KEEP_ENDED = Duration.ofMinutes(1);
+
+    private final BookingRepository bookingRepository;
+    private final Map<Long, ItemBookings> itemBookings = new ConcurrentHashMap<>();
+
+    //overlap with an APPROVED or WAITING booking of the item
+    public boolean hasOverlap(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return read(List.of(itemId), bookings -> start.isBefore(bookings.completeFrom)
+                ? bookingRepository.existsByItemIdAndStatusInAndStartIsBeforeAndEndIsAfter(itemId, INDEXED_STATUSES,
+                        end, start)
+                : bookings.active.overlaps(start, end)).get(itemId);
+    }
+
+    //overlap with an APPROVED booking of the item
+    public boolean hasApprovedOverlap(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return read(List.of(itemId), bookings -> start.isBefore(bookings.completeFrom)
+                ? bookingRepository.existsByItemIdAndStatusInAndStartIsBeforeAndEndIsAfter(itemId, APPROVED_STATUSES,
+                        end, start)
+                : bookings.approved.overlaps(start, end)).get(itemId);
+    }
+
+    public Map<Long, Booking> findLastBookings(Collection<Long> itemIds, LocalDateTime now) {
+        return read(itemIds, bookings -> bookings.approved.last(now));
+    }
+
+    public Map<Long, Booking> findNextBookings(Collection<Long> itemIds, LocalDateTime now) {
+        return read(itemIds, bookings -> bookings.approved.next(now));
+    }
+
+    public void update(Booking booking) {
+        update(booking.getItem().getId(), booking.getId(), booking.getBooker().getId(), booking.getStart(),
+                booking.getEnd(), booking.getStatus());
+    }
+
+    //for bookings changed by a bulk update, status is the one written
+    public void update(BookingView booking, BookingStatus status) {
+        update(booking.getItemId(), booking.getId(), booking.getBookerId(), booking.getStart(), booking.getEnd(),
+                status);
+    }
+
+    private void update(long itemId, long bookingId, long bookerId, LocalDateTime start, LocalDateTime end,
+            BookingStatus status) {
+        TransactionCallbacks.afterCommit(() -> {
+            ItemBookings bookings = itemBookings.get(itemId);
+            //not kept: the lazy load will read the committed row
+            if (bookings == null) {
+                return;
+            }
+            bookings.lock.lock();
+            try {
+                if (bookings.loaded) {
+                    bookings.put(bookingId, bookerId, start, end, status);
+                }
+            } finally {
+                bookings.lock.unlock();
+            }
+        });
+    }
+
+    public void evict(Long itemId) {
+        TransactionCallbacks.afterCommit(() -> itemBookings.remove(itemId));
+    }
+
+    public void evictAll() {
+        TransactionCallbacks.afterCommit(itemBookings::clear);
+    }
+
+    private <T> Map<Long, T> read(Collection<Long> itemIds, Function<ItemBookings, T> reader) {
+        //locks are taken in id order so concurrent batches cannot deadlock
+        Map<Long, ItemBookings> locked = new HashMap<>();
+        Map<Long, ItemBookings> toLoad = new HashMap<>();
+        Map<Long, T> result = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.minus(KEEP_ENDED);
+        try {
+            for (Long itemId : new TreeSet<>(itemIds)) {
+                ItemBookings bookings = entry(itemId);
+                bookings.lock.lock();
+                locked.put(itemId, bookings);
+                if (!bookings.loaded || bookings.loadedAt.isBefore(now.minus(RELOAD_AFTER))) {
+                    toLoad.put(itemId, bookings);
+                } else if (bookings.completeFrom.isBefore(horizon.minus(KEEP_ENDED))) {
+                    bookings.removeEnded(horizon);
+                }
+            }
+            if (!toLoad.isEmpty()) {
+                toLoad.values().forEach(bookings -> bookings.clear(now, horizon));
+                //bookings still running after the horizon and, for the last booking, the latest one ended by it
+                List<Booking> loaded = new ArrayList<>(bookingRepository.findByItemIdInAndStatusInAndEndIsAfter(
+                        toLoad.keySet(), INDEXED_STATUSES, horizon));
+                loaded.addAll(bookingRepository.findLastEndedByItemIdIn(toLoad.keySet(), horizon));
+                for (Booking booking : loaded) {
+                    toLoad.get(booking.getItem().getId()).put(booking.getId(), booking.getBooker().getId(),
+                            booking.getStart(), booking.getEnd(), booking.getStatus());
+                }
+                toLoad.values().forEach(bookings -> bookings.loaded = true);
+                //the load may have seen rows written by this transaction
+                TransactionCallbacks.afterRollback(() -> toLoad.forEach(itemBookings::remove));
+            }
+            for (Long itemId : itemIds) {
+                T value = reader.apply(locked.get(itemId));
+                if (value != null) {
+                    result.put(itemId, value);
+                }
+            }
+        } finally {
+            locked.values().forEach(bookings -> bookings.lock.unlock());
+        }
+        return result;
+    }
+
+    private ItemBookings entry(Long itemId) {
+        ItemBookings bookings = itemBookings.get(itemId);
+        if (bookings != null) {
+            return bookings;
+        }
+        //a reader still holding a dropped entry finishes with it, the next one loads the item again
+        if (itemBookings.size() >= MAX_ITEMS) {
+            itemBookings.clear();
+        }
+        return itemBookings.computeIfAbsent(itemId, id -> new ItemBookings());
+    }
+
+    private static class ItemBookings {
+        private final ReentrantLock lock = new ReentrantLock();
+        private BookingIntervals active = new BookingIntervals();
+        private BookingIntervals approved = new BookingIntervals();
+        private boolean loaded;
+        private LocalDateTime loadedAt;
+        //bookings ended before this time may be gone, overlaps reaching before it are checked in the database
+        private LocalDateTime completeFrom;
+
+        void clear(LocalDateTime now, LocalDateTime horizon) {
+            active = new BookingIntervals();
+            approved = new BookingIntervals();
+            loaded = false;
+            loadedAt = now;
+            completeFrom = horizon;
+        }
+
+        void removeEnded(LocalDateTime horizon) {
+            active.removeEnded(horizon);
+            approved.removeEnded(horizon);
+            completeFrom = horizon;
+        }
+
+        void put(long bookingId, long bookerId, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+            active.remove(bookingId);
+            approved.remove(bookingId);
+            if (status == BookingStatus.APPROVED || status == BookingStatus.WAITING) {
+                active.put(bookingId, bookerId, start, end);
+            }
+            if (status == BookingStatus.APPROVED) {
+                approved.put(bookingId, bookerId, start, end);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.booking.index;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.utils.TransactionCallbacks;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+//striped per-item locks held until the current transaction completes, they only order requests within this process
+@Component
+public class ItemBookingLocks {
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public ItemBookingLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public void lock(Long itemId) {
+        lock(stripe(itemId));
+    }
+
+    //stripes are taken in index order, so transactions locking several items cannot deadlock
+    public void lockAll(Collection<Long> itemIds) {
+        itemIds.stream()
+                .mapToInt(ItemBookingLocks::stripe)
+                .distinct()
+                .sorted()
+                .forEach(this::lock);
+    }
+
+    private void lock(int stripe) {
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        TransactionCallbacks.afterCompletion(lock::unlock);
+    }
+
+    private static int stripe(Long itemId) {
+        return Math.floorMod(Long.hashCode(itemId), STRIPES);
+    }
+}
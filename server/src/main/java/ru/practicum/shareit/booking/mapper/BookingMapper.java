@@ -2,10 +2,13 @@ package ru.practicum.shareit.booking.mapper;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingView;
 
 public interface BookingMapper {
     BookingDto toBookingDto(Booking booking);
 
+    BookingDto toBookingDto(BookingView bookingView);
+
     Booking toBooking(BookingDto bookingDto);
 
     BookingDto toBookingForItemDto(Booking booking);
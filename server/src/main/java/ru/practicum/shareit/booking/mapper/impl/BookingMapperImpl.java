@@ -5,7 +5,10 @@ import org.springframework.stereotype.Component;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingView;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
 @Component
@@ -23,6 +26,32 @@ public class BookingMapperImpl implements BookingMapper {
                 .item(itemMapper.toItemDto(booking.getItem()))
                 .booker(userMapper.toUserDto(booking.getBooker()))
                 .status(booking.getStatus())
+                .version(booking.getVersion())
+                .build();
+    }
+
+    @Override
+    public BookingDto toBookingDto(BookingView bookingView) {
+        return BookingDto.builder()
+                .id(bookingView.getId())
+                .start(bookingView.getStart())
+                .end(bookingView.getEnd())
+                .item(ItemDto.builder()
+                        .id(bookingView.getItemId())
+                        .name(bookingView.getItemName())
+                        .description(bookingView.getItemDescription())
+                        .available(bookingView.getItemAvailable())
+                        .requestId(bookingView.getItemRequestId())
+                        .version(bookingView.getItemVersion())
+                        .build())
+                .booker(UserDto.builder()
+                        .id(bookingView.getBookerId())
+                        .name(bookingView.getBookerName())
+                        .email(bookingView.getBookerEmail())
+                        .version(bookingView.getBookerVersion())
+                        .build())
+                .status(bookingView.getStatus())
+                .version(bookingView.getVersion())
                 .build();
     }
 
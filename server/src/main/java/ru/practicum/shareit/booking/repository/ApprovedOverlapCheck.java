@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+//reports the approved bookings that kept schema-postgresql.sql from creating the overlap constraint
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "spring.sql.init.platform", havingValue = "postgresql")
+public class ApprovedOverlapCheck {
+    private static final int MAX_REPORTED_OVERLAPS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void check() {
+        Boolean constraintExists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_constraint "
+                + "WHERE conname = 'ex_bookings_approved_overlap')", Boolean.class);
+        if (Boolean.TRUE.equals(constraintExists)) {
+            return;
+        }
+        List<String> overlaps = jdbcTemplate.queryForList("SELECT b1.booking_id || '/' || b2.booking_id "
+                + "FROM bookings b1 JOIN bookings b2 ON b2.item_id = b1.item_id AND b2.booking_id > b1.booking_id "
+                + "AND b2.status = 'APPROVED' "
+                + "AND tsrange(b2.booking_start, b2.booking_end) && tsrange(b1.booking_start, b1.booking_end) "
+                + "WHERE b1.status = 'APPROVED' ORDER BY b1.booking_id, b2.booking_id LIMIT ?",
+                String.class, MAX_REPORTED_OVERLAPS);
+        log.warn("Ограничение ex_bookings_approved_overlap не создано, пересечения подтвержденных бронирований "
+                + "проверяются только приложением. Пересекаются бронирования (первые {}): {}",
+                MAX_REPORTED_OVERLAPS, overlaps);
+    }
+}
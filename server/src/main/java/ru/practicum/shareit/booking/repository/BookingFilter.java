@@ -0,0 +1,36 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+
+import java.time.LocalDateTime;
+
+//bookings of a booker or of an owner's items, ordered by (start, id) desc
+@Getter
+@Builder
+public class BookingFilter {
+    @NonNull
+    private final BookingRole role;
+    @NonNull
+    private final Long userId;
+    @NonNull
+    @Builder.Default
+    private final BookingState state = BookingState.ALL;
+    //reference time for CURRENT, PAST and FUTURE
+    @NonNull
+    private final LocalDateTime now;
+    private final Long itemId;
+    //bookings intersecting [rangeStart, rangeEnd), either bound may be open
+    private final LocalDateTime rangeStart;
+    private final LocalDateTime rangeEnd;
+    //keyset position: only bookings strictly before (beforeStart, beforeId)
+    private final LocalDateTime beforeStart;
+    private final Long beforeId;
+
+    public boolean isKeyset() {
+        return beforeStart != null && beforeId != null;
+    }
+}
@@ -1,54 +1,55 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    //ALL for booker
-    List<Booking> findByBookerIdOrderByStartDesc(Long bookerId, Pageable pageable);
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
+    String SELECT_VIEW = "select new ru.practicum.shareit.booking.repository.BookingView("
+            + "b.id, b.start, b.end, b.status, b.version, i.id, i.name, i.description, i.available, "
+            + "i.request.id, i.owner.id, i.version, u.id, u.name, u.email, u.version) "
+            + "from Booking as b join b.item as i join b.booker as u ";
 
-    //ALL for owner
-    List<Booking> findByItemOwnerIdOrderByStartDesc(Long ownerId, Pageable pageable);
+    @Override
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findById(Long id);
 
-    //CURRENT for booker
-    List<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(Long bookerId,
-            LocalDateTime start, LocalDateTime end, Pageable pageable);
+    @Query(SELECT_VIEW + "where b.id = ?1")
+    Optional<BookingView> findViewById(Long id);
 
-    //CURRENT for owner
-    List<Booking> findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(Long ownerId,
-            LocalDateTime start, LocalDateTime end, Pageable pageable);
+    @Query(SELECT_VIEW + "where b.id in ?1")
+    List<BookingView> findViewsByIdIn(Collection<Long> ids);
 
-    //PAST for booker
-    List<Booking> findByBookerIdAndEndIsBeforeOrderByStartDesc(Long bookerId, LocalDateTime end, Pageable pageable);
+    //bumps the version like a managed update, an approved booking is never changed again
+    @Modifying
+    @Query("update Booking as b set b.status = ?2, b.version = b.version + 1 "
+            + "where b.id in ?1 and b.status <> ru.practicum.shareit.booking.model.BookingStatus.APPROVED")
+    int updateStatusByIdIn(Collection<Long> ids, BookingStatus status);
 
-    //PAST for owner
-    List<Booking> findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(Long ownerId, LocalDateTime end, Pageable pageable);
-
-    //FUTURE for booker
-    List<Booking> findByBookerIdAndStartIsAfterOrderByStartDesc(Long bookerId, LocalDateTime start, Pageable pageable);
-
-    //FUTURE for owner
-    List<Booking> findByItemOwnerIdAndStartIsAfterOrderByStartDesc(Long ownerId, LocalDateTime start,
-            Pageable pageable);
-
-    //WAITING or REJECTED for booker
-    List<Booking> findByBookerIdAndStatusOrderByStartDesc(Long bookerId, BookingStatus status, Pageable pageable);
-
-    //WAITING or REJECTED for owner
-    List<Booking> findByItemOwnerIdAndStatusOrderByStartDesc(Long ownerId, BookingStatus status, Pageable pageable);
-
-    //for lastBooking
-    Booking findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(Long itemId, BookingStatus status,
-            LocalDateTime start);
+    //APPROVED and WAITING bookings for the item booking index, those ended before end are left out
+    List<Booking> findByItemIdInAndStatusInAndEndIsAfter(Collection<Long> itemIds, Collection<BookingStatus> statuses,
+            LocalDateTime end);
 
-    // for nextBooking
-    Booking findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(Long itemId, BookingStatus status,
-            LocalDateTime start);
+    //per item the approved booking ended by the time with the latest end (then the greatest id), its last booking
+    //once nothing is running
+    @Query("select b from Booking as b where b.item.id in ?1 "
+            + "and b.status = ru.practicum.shareit.booking.model.BookingStatus.APPROVED and b.end <= ?2 "
+            + "and not exists (select later.id from Booking as later where later.item.id = b.item.id "
+            + "and later.status = ru.practicum.shareit.booking.model.BookingStatus.APPROVED and later.end <= ?2 "
+            + "and (later.end > b.end or later.end = b.end and later.id > b.id))")
+    List<Booking> findLastEndedByItemIdIn(Collection<Long> itemIds, LocalDateTime time);
+
+    //overlap checks reaching back before the ended bookings the index keeps
+    boolean existsByItemIdAndStatusInAndStartIsBeforeAndEndIsAfter(Long itemId, Collection<BookingStatus> statuses,
+            LocalDateTime end, LocalDateTime start);
 
     //for comments
     List<Booking> findByBookerIdAndItemIdAndStatusAndEndIsBefore(Long bookerId, Long itemId, BookingStatus status,
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BookingRepositoryCustom {
+    //sort of the pageable is ignored, bookings are always ordered by (start, id) desc
+    List<BookingView> findByFilter(BookingFilter filter, Pageable pageable);
+
+    //all matching bookings in the same order, read forward-only; the stream is closed within the transaction
+    Stream<BookingView> streamByFilter(BookingFilter filter);
+}
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+//read-only booking with the item and booker columns of BookingDto, selected without managed entities
+@Value
+public class BookingView {
+    Long id;
+    LocalDateTime start;
+    LocalDateTime end;
+    BookingStatus status;
+    Long version;
+    Long itemId;
+    String itemName;
+    String itemDescription;
+    Boolean itemAvailable;
+    Long itemRequestId;
+    Long itemOwnerId;
+    Long itemVersion;
+    Long bookerId;
+    String bookerName;
+    String bookerEmail;
+    Long bookerVersion;
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.booking.repository.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingFilter;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepositoryCustom;
+import ru.practicum.shareit.booking.repository.BookingView;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+@RequiredArgsConstructor
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+    //one JPQL string per (role, state, optional filters) so hibernate and the driver reuse their plans
+    private static final Map<String, String> TEMPLATES = new ConcurrentHashMap<>();
+    //rows the driver reads ahead, postgres keeps the rest behind a cursor of the read-only transaction
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<BookingView> findByFilter(BookingFilter filter, Pageable pageable) {
+        return createQuery(filter)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    @Override
+    public Stream<BookingView> streamByFilter(BookingFilter filter) {
+        return createQuery(filter)
+                .setHint(HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .getResultStream();
+    }
+
+    private TypedQuery<BookingView> createQuery(BookingFilter filter) {
+        TypedQuery<BookingView> query = entityManager.createQuery(TEMPLATES.computeIfAbsent(templateKey(filter),
+                        key -> buildTemplate(filter)), BookingView.class)
+                .setParameter("userId", filter.getUserId());
+        switch (filter.getState()) {
+            case CURRENT:
+            case PAST:
+            case FUTURE:
+                query.setParameter("now", filter.getNow());
+                break;
+            case WAITING:
+            case REJECTED:
+                query.setParameter("status", BookingStatus.valueOf(filter.getState().name()));
+                break;
+            default:
+                break;
+        }
+        if (filter.getItemId() != null) {
+            query.setParameter("itemId", filter.getItemId());
+        }
+        if (filter.getRangeStart() != null) {
+            query.setParameter("rangeStart", filter.getRangeStart());
+        }
+        if (filter.getRangeEnd() != null) {
+            query.setParameter("rangeEnd", filter.getRangeEnd());
+        }
+        if (filter.isKeyset()) {
+            query.setParameter("beforeStart", filter.getBeforeStart())
+                    .setParameter("beforeId", filter.getBeforeId());
+        }
+        return query;
+    }
+
+    private static String templateKey(BookingFilter filter) {
+        return filter.getRole() + ":" + filter.getState()
+                + ":" + (filter.getItemId() != null)
+                + ":" + (filter.getRangeStart() != null)
+                + ":" + (filter.getRangeEnd() != null)
+                + ":" + filter.isKeyset();
+    }
+
+    private static String buildTemplate(BookingFilter filter) {
+        //item and booker columns of every BookingDto come with the page, no entities are hydrated
+        StringBuilder jpql = new StringBuilder(BookingRepository.SELECT_VIEW + "where ")
+                .append(filter.getRole() == BookingRole.BOOKER ? "u.id" : "i.owner.id")
+                .append(" = :userId");
+        appendState(jpql, filter.getState());
+        if (filter.getItemId() != null) {
+            jpql.append(" and i.id = :itemId");
+        }
+        if (filter.getRangeStart() != null) {
+            jpql.append(" and b.end > :rangeStart");
+        }
+        if (filter.getRangeEnd() != null) {
+            jpql.append(" and b.start < :rangeEnd");
+        }
+        if (filter.isKeyset()) {
+            jpql.append(" and (b.start < :beforeStart or (b.start = :beforeStart and b.id < :beforeId))");
+        }
+        return jpql.append(" order by b.start desc, b.id desc").toString();
+    }
+
+    private static void appendState(StringBuilder jpql, BookingState state) {
+        switch (state) {
+            case CURRENT:
+                jpql.append(" and b.start < :now and b.end > :now");
+                break;
+            case PAST:
+                jpql.append(" and b.end < :now");
+                break;
+            case FUTURE:
+                jpql.append(" and b.start > :now");
+                break;
+            case WAITING:
+            case REJECTED:
+                jpql.append(" and b.status = :status");
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -1,18 +1,33 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.KeysetCursor;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     List<BookingDto> getBookingsByUserId(Long userId, BookingState state, Integer from, Integer size);
 
+    List<BookingDto> getBookingsByUserId(Long userId, BookingState state, KeysetCursor cursor, Integer size);
+
+    //every booking of the user, handed to the consumer as it is read
+    void exportBookingsByUserId(Long userId, BookingState state, Consumer<? super BookingDto> consumer);
+
     BookingDto getBookingById(Long userId, Long bookingId);
 
     List<BookingDto> getBookingsByOwnerId(Long ownerId, BookingState state, Integer from, Integer size);
 
+    List<BookingDto> getBookingsByOwnerId(Long ownerId, BookingState state, KeysetCursor cursor, Integer size);
+
+    void exportBookingsByOwnerId(Long ownerId, BookingState state, Consumer<? super BookingDto> consumer);
+
     BookingDto create(Long userId, BookingDto bookingDto);
 
     BookingDto update(Long bookingId, Long ownerId, Boolean approved);
+
+    List<BatchResult<BookingDto>> updateAll(Long ownerId, List<BookingDecisionDto> decisions);
 }
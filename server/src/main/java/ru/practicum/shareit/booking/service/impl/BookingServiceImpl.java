@@ -1,26 +1,51 @@
 package ru.practicum.shareit.booking.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.index.ItemBookingIndex;
+import ru.practicum.shareit.booking.index.ItemBookingLocks;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingFilter;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingView;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.model.AlreadyExistException;
 import ru.practicum.shareit.exception.model.NotAvailableException;
 import ru.practicum.shareit.exception.model.NotFoundException;
+import ru.practicum.shareit.exception.model.ValidationException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.KeysetCursor;
 import ru.practicum.shareit.utils.OffsetPageRequest;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -28,59 +53,49 @@ public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final ItemBookingIndex itemBookingIndex;
+    private final ItemBookingLocks itemBookingLocks;
+    private final ItemViewCache itemViewCache;
     private final BookingMapper bookingMapper;
 
     @Override
     @Transactional(readOnly = true)
     public List<BookingDto> getBookingsByUserId(Long userId, BookingState state, Integer from, Integer size) {
-        if (state == null) {
-            state = BookingState.ALL;
-        }
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
                         + "не существует.", userId)));
-        switch (state) {
-            case CURRENT:
-                return bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(user.getId(),
-                                LocalDateTime.now(), LocalDateTime.now(), new OffsetPageRequest(from, size)).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
-            case PAST:
-                return bookingRepository.findByBookerIdAndEndIsBeforeOrderByStartDesc(user.getId(),
-                                LocalDateTime.now(), new OffsetPageRequest(from, size)).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
-            case FUTURE:
-                return bookingRepository.findByBookerIdAndStartIsAfterOrderByStartDesc(user.getId(),
-                                LocalDateTime.now(), new OffsetPageRequest(from, size)).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
-            case WAITING:
-                return bookingRepository.findByBookerIdAndStatusOrderByStartDesc(user.getId(),
-                                BookingStatus.WAITING, new OffsetPageRequest(from, size)).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
-            case REJECTED:
-                return bookingRepository.findByBookerIdAndStatusOrderByStartDesc(user.getId(),
-                                BookingStatus.REJECTED, new OffsetPageRequest(from, size)).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
-            default:
-                return bookingRepository.findByBookerIdOrderByStartDesc(user.getId(),
-                                new OffsetPageRequest(from, size)).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
-        }
+        return findBookings(filterBuilder(BookingRole.BOOKER, user.getId(), state).build(),
+                new OffsetPageRequest(from, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingDto> getBookingsByUserId(Long userId, BookingState state, KeysetCursor cursor, Integer size) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
+                        + "не существует.", userId)));
+        return findBookings(filterBuilder(BookingRole.BOOKER, user.getId(), state)
+                .beforeStart(cursor.getRequiredKey())
+                .beforeId(cursor.getId())
+                .build(), new OffsetPageRequest(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBookingsByUserId(Long userId, BookingState state, Consumer<? super BookingDto> consumer) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
+                        + "не существует.", userId)));
+        exportBookings(filterBuilder(BookingRole.BOOKER, user.getId(), state).build(), consumer);
     }
 
     @Override
     @Transactional(readOnly = true)
     public BookingDto getBookingById(Long userId, Long bookingId) {
-        Booking booking = bookingRepository.findById(bookingId)
+        BookingView booking = bookingRepository.findViewById(bookingId)
                 .orElseThrow(() -> new NotFoundException(String.format("Бронирование с ID = %d "
                         + "не существует.", bookingId)));
-        if (!booking.getBooker().getId().equals(userId)
-                && !booking.getItem().getOwner().getId().equals(userId)) {
+        if (!booking.getBookerId().equals(userId) && !booking.getItemOwnerId().equals(userId)) {
             throw new NotFoundException(String.format(String.format("Бронирование с ID = %d "
                     + "не существует.", bookingId)));
         }
@@ -90,44 +105,33 @@ public class BookingServiceImpl implements BookingService {
     @Override
     @Transactional(readOnly = true)
     public List<BookingDto> getBookingsByOwnerId(Long ownerId, BookingState state, Integer from, Integer size) {
-        if (state == null) {
-            state = BookingState.ALL;
-        }
         User user = userRepository.findById(ownerId)
                 .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
                         + "не существует.", ownerId)));
-        switch (state) {
-            case CURRENT:
-                return bookingRepository.findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(user.getId(),
-                                LocalDateTime.now(), LocalDateTime.now(), new OffsetPageRequest(from, size)).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
-            case PAST:
-                return bookingRepository.findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(user.getId(),
-                                LocalDateTime.now(), new OffsetPageRequest(from, size)).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
-            case FUTURE:
-                return bookingRepository.findByItemOwnerIdAndStartIsAfterOrderByStartDesc(user.getId(),
-                                LocalDateTime.now(), new OffsetPageRequest(from, size)).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
-            case WAITING:
-                return bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(user.getId(),
-                                BookingStatus.WAITING, new OffsetPageRequest(from, size)).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
-            case REJECTED:
-                return bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(user.getId(),
-                                BookingStatus.REJECTED, new OffsetPageRequest(from, size)).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
-            default:
-                return bookingRepository.findByItemOwnerIdOrderByStartDesc(user.getId(),
-                                new OffsetPageRequest(from, size)).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
-        }
+        return findBookings(filterBuilder(BookingRole.OWNER, user.getId(), state).build(),
+                new OffsetPageRequest(from, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingDto> getBookingsByOwnerId(Long ownerId, BookingState state, KeysetCursor cursor,
+            Integer size) {
+        User user = userRepository.findById(ownerId)
+                .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
+                        + "не существует.", ownerId)));
+        return findBookings(filterBuilder(BookingRole.OWNER, user.getId(), state)
+                .beforeStart(cursor.getRequiredKey())
+                .beforeId(cursor.getId())
+                .build(), new OffsetPageRequest(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBookingsByOwnerId(Long ownerId, BookingState state, Consumer<? super BookingDto> consumer) {
+        User user = userRepository.findById(ownerId)
+                .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
+                        + "не существует.", ownerId)));
+        exportBookings(filterBuilder(BookingRole.OWNER, user.getId(), state).build(), consumer);
     }
 
     @Override
@@ -147,10 +151,18 @@ public class BookingServiceImpl implements BookingService {
             throw new NotFoundException(String.format("Вещь с ID = %d не существует.",
                     bookingDto.getItemId()));
         }
+        itemBookingLocks.lock(item.getId());
+        if (itemBookingIndex.hasOverlap(item.getId(), booking.getStart(), booking.getEnd())) {
+            throw new NotAvailableException(String.format("Вещь с ID = %d уже забронирована на это время.",
+                    item.getId()));
+        }
         booking.setItem(item);
         booking.setBooker(user);
         booking.setStatus(BookingStatus.WAITING);
-        return bookingMapper.toBookingDto(bookingRepository.save(booking));
+        Booking savedBooking = bookingRepository.save(booking);
+        itemBookingIndex.update(savedBooking);
+        itemViewCache.evict(savedBooking.getItem().getId());
+        return bookingMapper.toBookingDto(savedBooking);
     }
 
     @Override
@@ -171,10 +183,140 @@ public class BookingServiceImpl implements BookingService {
             throw new NotAvailableException(String.format("Бронирование с ID = %d уже подтверждено!", bookingId));
         }
         if (approved) {
+            Long itemId = booking.getItem().getId();
+            itemBookingLocks.lock(itemId);
+            if (itemBookingIndex.hasApprovedOverlap(itemId, booking.getStart(), booking.getEnd())) {
+                throw new NotAvailableException(String.format("Вещь с ID = %d уже забронирована на это время.",
+                        itemId));
+            }
             booking.setStatus(BookingStatus.APPROVED);
         } else {
             booking.setStatus(BookingStatus.REJECTED);
         }
-        return bookingMapper.toBookingDto(bookingRepository.save(booking));
+        Booking savedBooking;
+        try {
+            savedBooking = bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            throw new NotAvailableException(String.format("Вещь с ID = %d уже забронирована на это время.",
+                    booking.getItem().getId()));
+        }
+        itemBookingIndex.update(savedBooking);
+        itemViewCache.evict(savedBooking.getItem().getId());
+        return bookingMapper.toBookingDto(savedBooking);
+    }
+
+    @Override
+    @Transactional
+    public List<BatchResult<BookingDto>> updateAll(Long ownerId, List<BookingDecisionDto> decisions) {
+        //ownership and status of the whole batch are read with one query
+        Set<Long> bookingIds = decisions.stream()
+                .map(BookingDecisionDto::getBookingId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, BookingView> bookings = bookingRepository.findViewsByIdIn(bookingIds).stream()
+                .collect(Collectors.toMap(BookingView::getId, Function.identity()));
+        //only items of the owner are locked, bookings of other users fail their checks below
+        itemBookingLocks.lockAll(bookings.values().stream()
+                .filter(booking -> booking.getItemOwnerId().equals(ownerId))
+                .map(BookingView::getItemId)
+                .collect(Collectors.toSet()));
+        List<BatchResult<BookingDto>> results = new ArrayList<>(decisions.size());
+        Map<BookingStatus, List<BookingView>> decided = new EnumMap<>(BookingStatus.class);
+        Set<Long> decidedIds = new HashSet<>();
+        Map<Long, List<BookingView>> approvedByItemId = new HashMap<>();
+        for (int i = 0; i < decisions.size(); i++) {
+            BookingDecisionDto decision = decisions.get(i);
+            try {
+                BookingView booking = checkDecision(ownerId, decision, bookings.get(decision.getBookingId()),
+                        decidedIds, approvedByItemId);
+                BookingStatus status = decision.getApproved() ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+                decided.computeIfAbsent(status, key -> new ArrayList<>()).add(booking);
+                BookingDto bookingDto = bookingMapper.toBookingDto(booking);
+                bookingDto.setStatus(status);
+                bookingDto.setVersion(booking.getVersion() + 1);
+                results.add(BatchResult.ok(i, bookingDto));
+            } catch (NotFoundException e) {
+                results.add(BatchResult.failed(i, HttpStatus.NOT_FOUND, e.getMessage()));
+            } catch (NotAvailableException | ValidationException e) {
+                results.add(BatchResult.failed(i, HttpStatus.BAD_REQUEST, e.getMessage()));
+            }
+        }
+        decided.forEach((status, statusBookings) -> {
+            List<Long> ids = statusBookings.stream()
+                    .map(BookingView::getId)
+                    .collect(Collectors.toList());
+            int updated;
+            try {
+                updated = bookingRepository.updateStatusByIdIn(ids, status);
+            } catch (DataIntegrityViolationException e) {
+                //an approval written by another instance since the batch was checked, rolled back like below
+                throw new AlreadyExistException("Вещь уже забронирована на это время.");
+            }
+            //a booking approved by another request since it was read, the whole batch is rolled back
+            if (updated != ids.size()) {
+                throw new ObjectOptimisticLockingFailureException(Booking.class, ids);
+            }
+            for (BookingView booking : statusBookings) {
+                itemBookingIndex.update(booking, status);
+                itemViewCache.evict(booking.getItemId());
+            }
+        });
+        return results;
+    }
+
+    //the same checks as update, together with the decisions taken earlier in the batch
+    private BookingView checkDecision(Long ownerId, BookingDecisionDto decision, BookingView booking,
+            Set<Long> decidedIds, Map<Long, List<BookingView>> approvedByItemId) {
+        Long bookingId = decision.getBookingId();
+        if (booking == null || !booking.getItemOwnerId().equals(ownerId) && booking.getBookerId().equals(ownerId)) {
+            throw new NotFoundException(String.format("Бронирование с ID = %d не существует.", bookingId));
+        }
+        if (!booking.getItemOwnerId().equals(ownerId)) {
+            throw new NotAvailableException(String.format("Бронирование с ID = %d не доступно.", bookingId));
+        }
+        if (booking.getStatus().equals(BookingStatus.APPROVED)) {
+            throw new NotAvailableException(String.format("Бронирование с ID = %d уже подтверждено!", bookingId));
+        }
+        if (decision.getApproved() == null) {
+            throw new ValidationException(String.format("Не указано решение по бронированию с ID = %d.", bookingId));
+        }
+        if (!decidedIds.add(bookingId)) {
+            throw new ValidationException(String.format("Бронирование с ID = %d уже есть в пакете.", bookingId));
+        }
+        if (decision.getApproved()) {
+            List<BookingView> approved = approvedByItemId.computeIfAbsent(booking.getItemId(),
+                    itemId -> new ArrayList<>());
+            boolean overlapsBatch = approved.stream()
+                    .anyMatch(other -> booking.getStart().isBefore(other.getEnd())
+                            && other.getStart().isBefore(booking.getEnd()));
+            if (overlapsBatch || itemBookingIndex.hasApprovedOverlap(booking.getItemId(), booking.getStart(),
+                    booking.getEnd())) {
+                throw new NotAvailableException(String.format("Вещь с ID = %d уже забронирована на это время.",
+                        booking.getItemId()));
+            }
+            approved.add(booking);
+        }
+        return booking;
+    }
+
+    private BookingFilter.BookingFilterBuilder filterBuilder(BookingRole role, Long userId, BookingState state) {
+        return BookingFilter.builder()
+                .role(role)
+                .userId(userId)
+                .state(state == null ? BookingState.ALL : state)
+                .now(LocalDateTime.now());
+    }
+
+    private List<BookingDto> findBookings(BookingFilter filter, Pageable pageable) {
+        return bookingRepository.findByFilter(filter, pageable).stream()
+                .map(bookingMapper::toBookingDto)
+                .collect(Collectors.toList());
+    }
+
+    private void exportBookings(BookingFilter filter, Consumer<? super BookingDto> consumer) {
+        try (Stream<BookingView> bookings = bookingRepository.streamByFilter(filter)) {
+            bookings.map(bookingMapper::toBookingDto)
+                    .forEach(consumer);
+        }
     }
 }
@@ -1,10 +1,16 @@
 package ru.practicum.shareit.comment.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.model.Comment;
 
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findByItemId(Long itemId);
+    @Query("select new ru.practicum.shareit.comment.dto.CommentDto(c.id, c.text, a.name, c.created) "
+            + "from Comment as c join c.author as a "
+            + "where c.item.id = ?1 "
+            + "order by c.id asc")
+    List<CommentDto> findDtoByItemId(Long itemId);
 }
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception.model;
+
+public class ValidationException extends RuntimeException {
+    public ValidationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.importer;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.importer.dto.ImportReport;
+import ru.practicum.shareit.importer.service.ImportService;
+import ru.practicum.shareit.utils.NdjsonResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+//not routed through the gateway, meant for moving data from another system; there is no authorization,
+//so the endpoint only exists while shareit.import.enabled is set for the migration
+@RestController
+@RequestMapping("/admin/import")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.import.enabled", havingValue = "true")
+public class ImportController {
+    private final ImportService importService;
+
+    //one record per line, a row comes after the rows it references
+    @PostMapping(consumes = NdjsonResponse.CONTENT_TYPE)
+    public ImportReport importAll(InputStream body) throws IOException {
+        return importService.importAll(body);
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.importer.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class BookingImportDto extends ImportDto {
+    private Long itemId;
+    private Long bookerId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private BookingStatus status;
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.importer.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class CommentImportDto extends ImportDto {
+    private Long itemId;
+    private Long authorId;
+    private String text;
+    private LocalDateTime created;
+}
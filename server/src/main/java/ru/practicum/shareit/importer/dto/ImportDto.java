@@ -0,0 +1,18 @@
+package ru.practicum.shareit.importer.dto;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import lombok.Data;
+
+//one line of an import, id is the row's id in the source system and is only used to resolve references
+@Data
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = UserImportDto.class, name = "user"),
+        @JsonSubTypes.Type(value = ItemImportDto.class, name = "item"),
+        @JsonSubTypes.Type(value = BookingImportDto.class, name = "booking"),
+        @JsonSubTypes.Type(value = CommentImportDto.class, name = "comment")
+})
+public abstract class ImportDto {
+    private Long id;
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.importer.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class ImportReport {
+    private long lines;
+    private long malformed;
+    //rows per table
+    private Map<String, Long> imported;
+    private Map<String, Long> rejected;
+    private long durationMillis;
+    private long rowsPerSecond;
+    //the first of the rejected and malformed lines, the rest are only counted
+    private List<String> errors;
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.importer.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ItemImportDto extends ImportDto {
+    private Long ownerId;
+    private String name;
+    private String description;
+    private Boolean available;
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.importer.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class UserImportDto extends ImportDto {
+    private String name;
+    private String email;
+}
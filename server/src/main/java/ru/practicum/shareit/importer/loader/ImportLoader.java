@@ -0,0 +1,8 @@
+package ru.practicum.shareit.importer.loader;
+
+import java.util.List;
+
+public interface ImportLoader {
+    //a row holds the values of the table columns in their order, they are written in the current transaction
+    void load(ImportTable table, List<Object[]> rows);
+}
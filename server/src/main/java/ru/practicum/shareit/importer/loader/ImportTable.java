@@ -0,0 +1,26 @@
+package ru.practicum.shareit.importer.loader;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+//in load order, a row only references rows of the tables before it
+@Getter
+@RequiredArgsConstructor
+public enum ImportTable {
+    USERS("users", "users_seq", List.of("user_id", "user_name", "email")),
+    ITEMS("items", "items_seq", List.of("item_id", "item_name", "description", "available", "owner_id")),
+    BOOKINGS("bookings", "bookings_seq",
+            List.of("booking_id", "booking_start", "booking_end", "item_id", "booker_id", "status", "owner_id")),
+    COMMENTS("comments", "comments_seq", List.of("comment_id", "comment_text", "item_id", "author_id", "created"));
+
+    private final String tableName;
+    private final String sequence;
+    //the id comes first
+    private final List<String> columns;
+
+    public int column(String column) {
+        return columns.indexOf(column);
+    }
+}
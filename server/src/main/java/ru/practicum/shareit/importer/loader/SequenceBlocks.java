@@ -0,0 +1,27 @@
+package ru.practicum.shareit.importer.loader;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+//ids for rows written past Hibernate, taken in the same pooled-lo blocks as the entities take them
+@Component
+public class SequenceBlocks {
+    public static final int BLOCK_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+
+    public SequenceBlocks(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    //the first id of a block of BLOCK_SIZE ids nobody else gets
+    public long next(ImportTable table) {
+        return jdbcTemplate.queryForObject(dialect.getSequenceNextValString(table.getSequence()), Long.class);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.importer.loader.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.importer.loader.ImportLoader;
+import ru.practicum.shareit.importer.loader.ImportTable;
+
+import java.util.Collections;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.import.loader", havingValue = "insert", matchIfMissing = true)
+public class InsertImportLoader implements ImportLoader {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void load(ImportTable table, List<Object[]> rows) {
+        String sql = "INSERT INTO " + table.getTableName() + " (" + String.join(", ", table.getColumns())
+                + ") VALUES (" + String.join(", ", Collections.nCopies(table.getColumns().size(), "?")) + ")";
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.importer.service;
+
+import ru.practicum.shareit.importer.dto.ImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ImportService {
+    ImportReport importAll(InputStream input) throws IOException;
+}
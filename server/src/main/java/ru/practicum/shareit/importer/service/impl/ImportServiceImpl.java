@@ -0,0 +1,403 @@
+package ru.practicum.shareit.importer.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.index.ItemBookingIndex;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exception.model.ValidationException;
+import ru.practicum.shareit.importer.dto.BookingImportDto;
+import ru.practicum.shareit.importer.dto.CommentImportDto;
+import ru.practicum.shareit.importer.dto.ImportDto;
+import ru.practicum.shareit.importer.dto.ImportReport;
+import ru.practicum.shareit.importer.dto.ItemImportDto;
+import ru.practicum.shareit.importer.dto.UserImportDto;
+import ru.practicum.shareit.importer.loader.ImportLoader;
+import ru.practicum.shareit.importer.loader.ImportTable;
+import ru.practicum.shareit.importer.loader.SequenceBlocks;
+import ru.practicum.shareit.importer.service.ImportService;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class ImportServiceImpl implements ImportService {
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final Map<Class<? extends ImportDto>, ImportTable> TABLES = Map.of(
+            UserImportDto.class, ImportTable.USERS,
+            ItemImportDto.class, ImportTable.ITEMS,
+            BookingImportDto.class, ImportTable.BOOKINGS,
+            CommentImportDto.class, ImportTable.COMMENTS);
+
+    private final ObjectReader importReader;
+    private final TransactionTemplate transactionTemplate;
+    private final ImportLoader importLoader;
+    private final SequenceBlocks sequenceBlocks;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemBookingIndex itemBookingIndex;
+    private final ItemViewCache itemViewCache;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+
+    public ImportServiceImpl(ObjectMapper objectMapper, TransactionTemplate transactionTemplate,
+            ImportLoader importLoader, SequenceBlocks sequenceBlocks, ItemSearchEngine itemSearchEngine,
+            ItemBookingIndex itemBookingIndex, ItemViewCache itemViewCache, MeterRegistry meterRegistry,
+            @Value("${shareit.import.chunk-size:5000}") int chunkSize) {
+        this.importReader = objectMapper.readerFor(ImportDto.class);
+        this.transactionTemplate = transactionTemplate;
+        this.importLoader = importLoader;
+        this.sequenceBlocks = sequenceBlocks;
+        this.itemSearchEngine = itemSearchEngine;
+        this.itemBookingIndex = itemBookingIndex;
+        this.itemViewCache = itemViewCache;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+    }
+
+    //the input is read line by line, only the rows of the current chunk and the id maps are held in memory
+    @Override
+    public ImportReport importAll(InputStream input) throws IOException {
+        ImportRun run = new ImportRun();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            run.read(line);
+        }
+        run.flush();
+        ImportReport report = run.report();
+        log.info("Импорт завершен за {} мс: прочитано строк {}, загружено {}, отклонено {}, {} строк/с.",
+                report.getDurationMillis(), report.getLines(), sum(report.getImported().values()),
+                sum(report.getRejected().values()) + report.getMalformed(), report.getRowsPerSecond());
+        return report;
+    }
+
+    private static long sum(Collection<Long> counts) {
+        return counts.stream().mapToLong(Long::longValue).sum();
+    }
+
+    private final class ImportRun {
+        private final Map<ImportTable, List<PendingRow>> pending = new EnumMap<>(ImportTable.class);
+        private final Map<ImportTable, long[]> idBlocks = new EnumMap<>(ImportTable.class);
+        //source id to the id given to the row here, only users and items are referenced
+        private final Map<Long, Long> userIds = new HashMap<>();
+        private final Map<Long, Long> itemIds = new HashMap<>();
+        //owner of every item loaded here, by the id given to the item, copied into its bookings
+        private final Map<Long, Long> itemOwnerIds = new HashMap<>();
+        private final Map<ImportTable, Long> imported = new EnumMap<>(ImportTable.class);
+        private final Map<ImportTable, Long> rejected = new EnumMap<>(ImportTable.class);
+        private final List<String> errors = new ArrayList<>();
+        private final long startedAt = System.nanoTime();
+        private long lastProgressAt = startedAt;
+        private long lines;
+        private long malformed;
+        private int pendingCount;
+
+        private ImportRun() {
+            for (ImportTable table : ImportTable.values()) {
+                pending.put(table, new ArrayList<>());
+                imported.put(table, 0L);
+                rejected.put(table, 0L);
+            }
+        }
+
+        private void read(String line) {
+            lines++;
+            if (line.isBlank()) {
+                return;
+            }
+            ImportDto importDto;
+            try {
+                importDto = importReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                importDto = null;
+            }
+            if (importDto == null) {
+                malformed++;
+                meterRegistry.counter("shareit.import.malformed").increment();
+                error(lines, "запись не разобрана.");
+                return;
+            }
+            pending.get(TABLES.get(importDto.getClass())).add(new PendingRow(lines, importDto));
+            if (++pendingCount >= chunkSize) {
+                flush();
+            }
+        }
+
+        //parents first, so the rows of the chunk can reference the ones read just before them
+        private void flush() {
+            for (ImportTable table : ImportTable.values()) {
+                List<PendingRow> rows = pending.get(table);
+                if (!rows.isEmpty()) {
+                    load(table, rows);
+                    rows.clear();
+                }
+            }
+            pendingCount = 0;
+            long now = System.nanoTime();
+            if (now - lastProgressAt >= PROGRESS_INTERVAL_NANOS) {
+                lastProgressAt = now;
+                long importedRows = sum(imported.values());
+                log.info("Импорт: прочитано строк {}, загружено {}, {} строк/с.", lines, importedRows,
+                        rowsPerSecond(importedRows, now));
+            }
+        }
+
+        private void load(ImportTable table, List<PendingRow> rows) {
+            List<PendingRow> accepted = new ArrayList<>(rows.size());
+            for (PendingRow row : rows) {
+                try {
+                    row.values = toValues(table, row.importDto);
+                    accepted.add(row);
+                } catch (ValidationException e) {
+                    reject(table, row.line, e.getMessage());
+                }
+            }
+            if (accepted.isEmpty()) {
+                return;
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(table, accepted));
+                count(imported, table, "imported", accepted.size());
+            } catch (DataAccessException e) {
+                //the chunk is rolled back as a whole, each row is loaded again on its own to find the failing ones
+                log.debug("Пакет из {} строк таблицы {} не загружен, строки загружаются по одной: {}",
+                        accepted.size(), table.getTableName(), e.getMessage());
+                for (PendingRow row : accepted) {
+                    loadOne(table, row);
+                }
+            }
+            sample.stop(meterRegistry.timer("shareit.import.load", "table", table.getTableName()));
+        }
+
+        private void loadOne(ImportTable table, PendingRow row) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(table, List.of(row)));
+                count(imported, table, "imported", 1);
+            } catch (DataAccessException e) {
+                log.debug("Строка {} не загружена: {}", row.line, e.getMessage());
+                forget(table, row);
+                reject(table, row.line, "запись противоречит уже сохраненным данным.");
+            }
+        }
+
+        private void write(ImportTable table, List<PendingRow> rows) {
+            List<Object[]> values = rows.stream()
+                    .map(row -> row.values)
+                    .collect(Collectors.toList());
+            importLoader.load(table, values);
+            //the caches only see the rows once the transaction commits
+            switch (table) {
+                case ITEMS:
+                    for (Object[] item : values) {
+                        itemSearchEngine.index(Item.builder()
+                                .id((Long) item[0])
+                                .name((String) item[table.column("item_name")])
+                                .description((String) item[table.column("description")])
+                                .available((Boolean) item[table.column("available")])
+                                .build());
+                    }
+                    break;
+                case BOOKINGS:
+                    for (Long itemId : itemIds(table, values)) {
+                        itemBookingIndex.evict(itemId);
+                        itemViewCache.evict(itemId);
+                    }
+                    break;
+                case COMMENTS:
+                    itemIds(table, values).forEach(itemViewCache::evict);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private Set<Long> itemIds(ImportTable table, List<Object[]> values) {
+            int itemColumn = table.column("item_id");
+            return values.stream()
+                    .map(row -> (Long) row[itemColumn])
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+
+        private Object[] toValues(ImportTable table, ImportDto importDto) {
+            switch (table) {
+                case USERS:
+                    return userValues((UserImportDto) importDto);
+                case ITEMS:
+                    return itemValues((ItemImportDto) importDto);
+                case BOOKINGS:
+                    return bookingValues((BookingImportDto) importDto);
+                case COMMENTS:
+                    return commentValues((CommentImportDto) importDto);
+                default:
+                    throw new IllegalStateException("Неизвестная таблица " + table);
+            }
+        }
+
+        private Object[] userValues(UserImportDto user) {
+            require(!isBlank(user.getName()), "не указано имя пользователя.");
+            require(!isBlank(user.getEmail()), "не указан email пользователя.");
+            Long id = register(userIds, user.getId(), ImportTable.USERS, "пользователь с ID = %d уже есть в импорте.");
+            return new Object[]{id, user.getName(), user.getEmail()};
+        }
+
+        private Object[] itemValues(ItemImportDto item) {
+            require(!isBlank(item.getName()), "не указано название вещи.");
+            require(item.getAvailable() != null, "не указана доступность вещи.");
+            Long ownerId = resolve(userIds, item.getOwnerId(), "владелец с ID = %d отсутствует в импорте.");
+            Long id = register(itemIds, item.getId(), ImportTable.ITEMS, "вещь с ID = %d уже есть в импорте.");
+            itemOwnerIds.put(id, ownerId);
+            return new Object[]{id, item.getName(), item.getDescription(), item.getAvailable(), ownerId};
+        }
+
+        private Object[] bookingValues(BookingImportDto booking) {
+            require(booking.getStart() != null && booking.getEnd() != null
+                    && booking.getStart().isBefore(booking.getEnd()), "некорректные даты бронирования.");
+            Long itemId = resolve(itemIds, booking.getItemId(), "вещь с ID = %d отсутствует в импорте.");
+            Long bookerId = resolve(userIds, booking.getBookerId(), "пользователь с ID = %d отсутствует в импорте.");
+            BookingStatus status = booking.getStatus() != null ? booking.getStatus() : BookingStatus.WAITING;
+            return new Object[]{nextId(ImportTable.BOOKINGS), booking.getStart(), booking.getEnd(), itemId, bookerId,
+                    status.name(), itemOwnerIds.get(itemId)};
+        }
+
+        private Object[] commentValues(CommentImportDto comment) {
+            require(!isBlank(comment.getText()), "не указан текст отзыва.");
+            Long itemId = resolve(itemIds, comment.getItemId(), "вещь с ID = %d отсутствует в импорте.");
+            Long authorId = resolve(userIds, comment.getAuthorId(), "пользователь с ID = %d отсутствует в импорте.");
+            LocalDateTime created = comment.getCreated() != null ? comment.getCreated() : LocalDateTime.now();
+            return new Object[]{nextId(ImportTable.COMMENTS), comment.getText(), itemId, authorId, created};
+        }
+
+        //the source id is taken at once, so a later row with the same id is rejected even within the chunk
+        private Long register(Map<Long, Long> ids, Long sourceId, ImportTable table, String duplicateMessage) {
+            if (sourceId != null && ids.containsKey(sourceId)) {
+                throw new ValidationException(String.format(duplicateMessage, sourceId));
+            }
+            Long id = nextId(table);
+            if (sourceId != null) {
+                ids.put(sourceId, id);
+            }
+            return id;
+        }
+
+        //a row the database rejected cannot be referenced, its source id is free for a corrected copy
+        private void forget(ImportTable table, PendingRow row) {
+            Long sourceId = row.importDto.getId();
+            if (sourceId == null) {
+                return;
+            }
+            if (table == ImportTable.USERS) {
+                userIds.remove(sourceId, row.values[0]);
+            } else if (table == ImportTable.ITEMS) {
+                itemIds.remove(sourceId, row.values[0]);
+                itemOwnerIds.remove((Long) row.values[0]);
+            }
+        }
+
+        private Long resolve(Map<Long, Long> ids, Long sourceId, String message) {
+            Long id = sourceId != null ? ids.get(sourceId) : null;
+            if (id == null) {
+                throw new ValidationException(String.format(message, sourceId));
+            }
+            return id;
+        }
+
+        private long nextId(ImportTable table) {
+            long[] block = idBlocks.computeIfAbsent(table, key -> new long[2]);
+            if (block[0] == block[1]) {
+                block[0] = sequenceBlocks.next(table);
+                block[1] = block[0] + SequenceBlocks.BLOCK_SIZE;
+            }
+            return block[0]++;
+        }
+
+        private void require(boolean condition, String message) {
+            if (!condition) {
+                throw new ValidationException(message);
+            }
+        }
+
+        private boolean isBlank(String value) {
+            return value == null || value.isBlank();
+        }
+
+        private void reject(ImportTable table, long line, String message) {
+            count(rejected, table, "rejected", 1);
+            error(line, message);
+        }
+
+        private void count(Map<ImportTable, Long> counts, ImportTable table, String result, long rows) {
+            counts.merge(table, rows, Long::sum);
+            meterRegistry.counter("shareit.import.rows", "table", table.getTableName(), "result", result)
+                    .increment(rows);
+        }
+
+        private void error(long line, String message) {
+            log.debug("Строка {} импорта отклонена: {}", line, message);
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(String.format("Строка %d: %s", line, message));
+            }
+        }
+
+        private long rowsPerSecond(long rows, long now) {
+            long millis = Math.max(TimeUnit.NANOSECONDS.toMillis(now - startedAt), 1);
+            return rows * 1000 / millis;
+        }
+
+        private ImportReport report() {
+            long now = System.nanoTime();
+            return ImportReport.builder()
+                    .lines(lines)
+                    .malformed(malformed)
+                    .imported(byTableName(imported))
+                    .rejected(byTableName(rejected))
+                    .durationMillis(TimeUnit.NANOSECONDS.toMillis(now - startedAt))
+                    .rowsPerSecond(rowsPerSecond(sum(imported.values()), now))
+                    .errors(errors)
+                    .build();
+        }
+
+        private Map<String, Long> byTableName(Map<ImportTable, Long> counts) {
+            Map<String, Long> result = new LinkedHashMap<>();
+            counts.forEach((table, rows) -> result.put(table.getTableName(), rows));
+            return result;
+        }
+    }
+
+    private static final class PendingRow {
+        private final long line;
+        private final ImportDto importDto;
+        private Object[] values;
+
+        private PendingRow(long line, ImportDto importDto) {
+            this.line = line;
+            this.importDto = importDto;
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.EntityTag;
+import ru.practicum.shareit.utils.KeysetCursor;
+import ru.practicum.shareit.utils.KeysetPage;
+import ru.practicum.shareit.utils.NdjsonResponse;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -13,31 +23,66 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemController {
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/all")
-    public List<ItemDto> getAll(@RequestParam(value = "from") Integer from,
-            @RequestParam(value = "size") Integer size) {
-        return itemService.getAll(from, size);
+    public ResponseEntity<List<ItemDto>> getAll(@RequestParam(value = "from", defaultValue = "0") Integer from,
+            @RequestParam(value = "size") Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor, WebRequest request) {
+        List<ItemDto> itemDtos;
+        if (cursor != null) {
+            itemDtos = itemService.getAll(KeysetCursor.decode(cursor), size);
+        } else {
+            itemDtos = itemService.getAll(from, size);
+        }
+        if (tag(itemDtos).isNotModified(request)) {
+            return null;
+        }
+        return KeysetCursor.toResponse(itemDtos, size, itemDto -> new KeysetCursor(null, itemDto.getId()));
     }
 
     @GetMapping("/{itemId}")
     public ItemDto getItemById(@RequestHeader(value = "X-Sharer-User-Id", required = false) Long userId,
-            @PathVariable("itemId") Long itemId) {
-        return itemService.getItemById(userId, itemId);
+            @PathVariable("itemId") Long itemId, WebRequest request) {
+        ItemDto itemDto = itemService.getItemById(userId, itemId);
+        if (addItem(new EntityTag(), itemDto).isNotModified(request)) {
+            return null;
+        }
+        return itemDto;
     }
 
     @GetMapping
-    public List<ItemDto> getItemsByUserId(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
-            @RequestParam(value = "from") Integer from,
-            @RequestParam(value = "size") Integer size) {
-        return itemService.getItemsByUserId(userId, from, size);
+    public ResponseEntity<List<ItemDto>> getItemsByUserId(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestParam(value = "from", defaultValue = "0") Integer from,
+            @RequestParam(value = "size") Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor, WebRequest request) {
+        KeysetPage<ItemDto> itemDtos;
+        if (cursor != null) {
+            itemDtos = itemService.getItemsByUserId(userId, KeysetCursor.decode(cursor), size);
+        } else {
+            itemDtos = itemService.getItemsByUserId(userId, from, size);
+        }
+        if (tag(itemDtos.getContent()).isNotModified(request)) {
+            return null;
+        }
+        return KeysetCursor.toResponse(itemDtos);
+    }
+
+    @GetMapping("/export")
+    public void exportItemsByUserId(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            HttpServletResponse response) throws IOException {
+        NdjsonResponse.write(objectMapper, response, consumer -> itemService.exportItemsByUserId(userId, consumer));
     }
 
     @GetMapping("/search")
     public List<ItemDto> search(@RequestParam("text") String text,
             @RequestParam(value = "from") Integer from,
-            @RequestParam(value = "size") Integer size) {
-        return itemService.search(text, from, size);
+            @RequestParam(value = "size") Integer size, WebRequest request) {
+        List<ItemDto> itemDtos = itemService.search(text, from, size);
+        if (tag(itemDtos).isNotModified(request)) {
+            return null;
+        }
+        return itemDtos;
     }
 
     @PostMapping
@@ -46,6 +91,12 @@ public class ItemController {
         return itemService.create(userId, itemDto);
     }
 
+    @PostMapping("/batch")
+    public List<BatchResult<ItemDto>> createAll(@RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestBody List<ItemDto> itemDtos) {
+        return itemService.createAll(userId, itemDtos);
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto update(@PathVariable("itemId") Long itemId,
                           @RequestHeader("X-Sharer-User-Id") Long userId,
@@ -64,4 +115,24 @@ public class ItemController {
             @PathVariable("itemId") Long itemId, @RequestBody CommentDto commentDto) {
         return itemService.createComment(userId, itemId, commentDto);
     }
+
+    private static EntityTag tag(List<ItemDto> itemDtos) {
+        EntityTag tag = new EntityTag();
+        itemDtos.forEach(itemDto -> addItem(tag, itemDto));
+        return tag;
+    }
+
+    //the fields shown for bookings and comments never change, apart from the comment author name
+    private static EntityTag addItem(EntityTag tag, ItemDto itemDto) {
+        tag.add(itemDto.getId())
+                .add(itemDto.getVersion())
+                .add(itemDto.getLastBooking() == null ? null : itemDto.getLastBooking().getId())
+                .add(itemDto.getNextBooking() == null ? null : itemDto.getNextBooking().getId());
+        if (itemDto.getComments() == null) {
+            return tag.add(null);
+        }
+        tag.add(itemDto.getComments().size());
+        itemDto.getComments().forEach(commentDto -> tag.add(commentDto.getId()).add(commentDto.getAuthorName()));
+        return tag;
+    }
 }
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.item.cache;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.utils.TransactionCallbacks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class ItemViewCache {
+    private static final int MAX_SIZE = 10_000;
+
+    private final Map<Long, CachedView> ownerViews = new ConcurrentHashMap<>();
+    private final Map<Long, CachedView> publicViews = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public ItemDto get(Long itemId, Long userId, LocalDateTime now) {
+        CachedView ownerView = ownerViews.get(itemId);
+        if (ownerView != null && ownerView.ownerId.equals(userId)) {
+            if (ownerView.isExpired(now)) {
+                ownerViews.remove(itemId, ownerView);
+                return null;
+            }
+            return copy(ownerView.itemDto);
+        }
+        CachedView publicView = publicViews.get(itemId);
+        if (publicView != null && !publicView.ownerId.equals(userId)) {
+            return copy(publicView.itemDto);
+        }
+        return null;
+    }
+
+    //taken before the view is read, a put is dropped if anything was evicted in between
+    public long version() {
+        return version.get();
+    }
+
+    //last and next booking only change when the next booking starts and becomes the last one
+    public void putOwnerView(Long ownerId, ItemDto itemDto, long readVersion) {
+        LocalDateTime expiresAt = itemDto.getNextBooking() == null ? null : itemDto.getNextBooking().getStart();
+        put(ownerViews, itemDto.getId(), new CachedView(ownerId, copy(itemDto), expiresAt), readVersion);
+    }
+
+    public void putPublicView(Long ownerId, ItemDto itemDto, long readVersion) {
+        put(publicViews, itemDto.getId(), new CachedView(ownerId, copy(itemDto), null), readVersion);
+    }
+
+    public void evict(Long itemId) {
+        TransactionCallbacks.afterCommit(() -> {
+            version.incrementAndGet();
+            ownerViews.remove(itemId);
+            publicViews.remove(itemId);
+        });
+    }
+
+    public void evictAll() {
+        TransactionCallbacks.afterCommit(() -> {
+            version.incrementAndGet();
+            ownerViews.clear();
+            publicViews.clear();
+        });
+    }
+
+    private void put(Map<Long, CachedView> views, Long itemId, CachedView view, long readVersion) {
+        if (version.get() != readVersion) {
+            return;
+        }
+        if (views.size() >= MAX_SIZE) {
+            LocalDateTime now = LocalDateTime.now();
+            views.values().removeIf(cached -> cached.isExpired(now));
+            if (views.size() >= MAX_SIZE) {
+                views.clear();
+            }
+        }
+        views.put(itemId, view);
+        //an eviction may have run between the check and the put
+        if (version.get() != readVersion) {
+            views.remove(itemId, view);
+        }
+    }
+
+    private static ItemDto copy(ItemDto itemDto) {
+        return ItemDto.builder()
+                .id(itemDto.getId())
+                .name(itemDto.getName())
+                .description(itemDto.getDescription())
+                .available(itemDto.getAvailable())
+                .requestId(itemDto.getRequestId())
+                .lastBooking(itemDto.getLastBooking())
+                .nextBooking(itemDto.getNextBooking())
+                .comments(itemDto.getComments() == null ? null : List.copyOf(itemDto.getComments()))
+                .version(itemDto.getVersion())
+                .build();
+    }
+
+    private static class CachedView {
+        private final Long ownerId;
+        private final ItemDto itemDto;
+        private final LocalDateTime expiresAt;
+
+        CachedView(Long ownerId, ItemDto itemDto, LocalDateTime expiresAt) {
+            this.ownerId = ownerId;
+            this.itemDto = itemDto;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(LocalDateTime now) {
+            return expiresAt != null && !now.isBefore(expiresAt);
+        }
+    }
+}
@@ -2,10 +2,13 @@ package ru.practicum.shareit.item.mapper;
 
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemView;
 import ru.practicum.shareit.user.model.User;
 
 public interface ItemMapper {
     ItemDto toItemDto(Item item);
 
+    ItemDto toItemDto(ItemView itemView);
+
     Item toItem(ItemDto itemDto, User owner);
 }
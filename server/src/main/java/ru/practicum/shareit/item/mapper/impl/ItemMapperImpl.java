@@ -4,6 +4,7 @@ import org.springframework.stereotype.Component;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemView;
 import ru.practicum.shareit.user.model.User;
 
 @Component
@@ -16,6 +17,19 @@ public class ItemMapperImpl implements ItemMapper {
                 .description(item.getDescription())
                 .available(item.getAvailable())
                 .requestId(getRequestIdOrNull(item))
+                .version(item.getVersion())
+                .build();
+    }
+
+    @Override
+    public ItemDto toItemDto(ItemView itemView) {
+        return ItemDto.builder()
+                .id(itemView.getId())
+                .name(itemView.getName())
+                .description(itemView.getDescription())
+                .available(itemView.getAvailable())
+                .requestId(itemView.getRequestId())
+                .version(itemView.getVersion())
                 .build();
     }
 
@@ -27,6 +41,7 @@ public class ItemMapperImpl implements ItemMapper {
                 .description(itemDto.getDescription())
                 .available(itemDto.getAvailable())
                 .owner(owner)
+                .version(itemDto.getVersion())
                 .build();
     }
 
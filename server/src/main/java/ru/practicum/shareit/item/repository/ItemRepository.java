@@ -3,18 +3,90 @@ package ru.practicum.shareit.item.repository;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
-    List<Item> findByOwnerId(Long ownerId, Pageable pageable);
+    String SELECT_VIEW = "select new ru.practicum.shareit.item.repository.ItemView("
+            + "it.id, it.name, it.description, it.available, it.request.id, it.owner.id, it.version) ";
+
+    //items with upcoming bookings, by their first upcoming approved booking: the owner's approved bookings are read
+    //from idx_bookings_owner_status_start after (nextStart, itemId), a booking is kept only when no earlier upcoming
+    //one of its item exists (idx_bookings_item_status_start), the seek stops at the page size
+    @Query("select new ru.practicum.shareit.item.repository.ItemView("
+            + "it.id, it.name, it.description, it.available, it.request.id, it.owner.id, it.version, bk.start) "
+            + "from Booking as bk join bk.item as it "
+            + "where bk.ownerId = ?1 and bk.status = ru.practicum.shareit.booking.model.BookingStatus.APPROVED "
+            + "and bk.start > ?2 and bk.start >= ?3 and (bk.start > ?3 or bk.item.id > ?4) "
+            + "and not exists (select e.id from Booking as e where e.item = bk.item "
+            + "and e.status = ru.practicum.shareit.booking.model.BookingStatus.APPROVED and e.start > ?2 "
+            + "and (e.start < bk.start or (e.start = bk.start and e.id < bk.id))) "
+            + "order by bk.start asc, bk.item.id asc")
+    List<ItemView> findByOwnerIdWithNextBookingAfter(Long ownerId, LocalDateTime now, LocalDateTime nextStart,
+            Long itemId, Pageable pageable);
+
+    @Query("select count(bk) from Booking as bk "
+            + "where bk.ownerId = ?1 and bk.status = ru.practicum.shareit.booking.model.BookingStatus.APPROVED "
+            + "and bk.start > ?2 "
+            + "and not exists (select e.id from Booking as e where e.item = bk.item "
+            + "and e.status = ru.practicum.shareit.booking.model.BookingStatus.APPROVED and e.start > ?2 "
+            + "and (e.start < bk.start or (e.start = bk.start and e.id < bk.id)))")
+    long countByOwnerIdWithNextBooking(Long ownerId, LocalDateTime now);
 
-    @Query("select it "
+    //the tail without upcoming bookings, usually most of the list, seeks idx_items_owner and stops at the page size
+    @Query(SELECT_VIEW
+            + "from Item as it "
+            + "where it.owner.id = ?1 and it.id > ?3 and not exists (select bk.id from Booking as bk "
+            + "where bk.item = it and bk.status = ru.practicum.shareit.booking.model.BookingStatus.APPROVED "
+            + "and bk.start > ?2) "
+            + "order by it.id asc")
+    List<ItemView> findByOwnerIdWithoutNextBookingAfter(Long ownerId, LocalDateTime now, Long itemId,
+            Pageable pageable);
+
+    @Query(SELECT_VIEW
             + "from Item as it "
             + "where (lower(it.name) like concat('%', lower(?1), '%') "
             + "or lower(it.description) like concat('%', lower(?1), '%')) and it.available = true")
-    List<Item> search(String text, Pageable pageable);
+    List<ItemView> search(String text, Pageable pageable);
+
+    //ranked ids only, the page itself is read with findViewsByIdIn; native bigint comes back as BigInteger
+    @Query(value = "select i.item_id "
+            + "from items as i "
+            + "where i.available = true "
+            + "and (i.search_vector @@ plainto_tsquery('simple', ?1) "
+            + "or lower(i.item_name) like concat('%', lower(?1), '%') "
+            + "or lower(i.description) like concat('%', lower(?1), '%')) "
+            + "order by ts_rank(i.search_vector, plainto_tsquery('simple', ?1)) desc, "
+            + "greatest(similarity(lower(i.item_name), lower(?1)), "
+            + "similarity(lower(coalesce(i.description, '')), lower(?1))) desc, "
+            + "i.item_id asc", nativeQuery = true)
+    List<Number> searchFullTextIds(String text, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select it from Item as it where it.available = true")
+    Stream<Item> streamAvailable();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_VIEW + "from Item as it where it.owner.id = ?1 order by it.id asc")
+    Stream<ItemView> streamByOwnerId(Long ownerId);
+
+    List<Item> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query(SELECT_VIEW + "from Item as it where it.id = ?1")
+    Optional<ItemView> findViewById(Long id);
+
+    @Query(SELECT_VIEW + "from Item as it where it.id in ?1")
+    List<ItemView> findViewsByIdIn(Collection<Long> ids);
 
-    List<Item> findByRequestId(Long requestId);
+    @Query(SELECT_VIEW + "from Item as it where it.request.id in ?1 order by it.id asc")
+    List<ItemView> findByRequestIdIn(Collection<Long> requestIds);
 }
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+//read-only item columns for GET endpoints, selected by constructor expression without a managed entity
+@Value
+@AllArgsConstructor
+public class ItemView {
+    Long id;
+    String name;
+    String description;
+    Boolean available;
+    Long requestId;
+    Long ownerId;
+    Long version;
+    //start of the next approved booking as read by the owner's list query, the key of its cursor
+    LocalDateTime nextStart;
+
+    public ItemView(Long id, String name, String description, Boolean available, Long requestId, Long ownerId,
+            Long version) {
+        this(id, name, description, available, requestId, ownerId, version, null);
+    }
+}
@@ -0,0 +1,209 @@
+package ru.practicum.shareit.item.search.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class ItemInvertedIndex {
+    static final int GRAM_LENGTH = 3;
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, String[]> documents = new HashMap<>();
+    private final Postings allIds = new Postings();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(long itemId, String name, String description) {
+        String[] document = new String[]{normalize(name), normalize(description)};
+        lock.writeLock().lock();
+        try {
+            removeDocument(itemId);
+            documents.put(itemId, document);
+            allIds.add(itemId);
+            for (String gram : grams(document)) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(itemId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long itemId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            allIds.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return allIds.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //ids of matching items in ascending order
+    public long[] search(String text) {
+        String query = normalize(text);
+        if (query.isEmpty()) {
+            return EMPTY;
+        }
+        lock.readLock().lock();
+        try {
+            long[] candidates = candidates(query);
+            long[] result = new long[candidates.length];
+            int size = 0;
+            for (long itemId : candidates) {
+                String[] document = documents.get(itemId);
+                if (document[0].contains(query) || document[1].contains(query)) {
+                    result[size++] = itemId;
+                }
+            }
+            return Arrays.copyOf(result, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] candidates(String query) {
+        if (query.length() < GRAM_LENGTH) {
+            return allIds.toArray();
+        }
+        Set<String> queryGrams = new HashSet<>();
+        addGrams(query, queryGrams);
+        Postings[] lists = new Postings[queryGrams.size()];
+        int i = 0;
+        for (String gram : queryGrams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return EMPTY;
+            }
+            lists[i++] = list;
+        }
+        Arrays.sort(lists, (first, second) -> Integer.compare(first.size, second.size));
+        long[] result = lists[0].toArray();
+        for (int j = 1; j < lists.length && result.length > 0; j++) {
+            result = lists[j].intersect(result);
+        }
+        return result;
+    }
+
+    private void removeDocument(long itemId) {
+        String[] document = documents.remove(itemId);
+        if (document == null) {
+            return;
+        }
+        allIds.remove(itemId);
+        for (String gram : grams(document)) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(itemId) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> grams(String[] document) {
+        Set<String> grams = new HashSet<>();
+        for (String field : document) {
+            addGrams(field, grams);
+        }
+        return grams;
+    }
+
+    private static void addGrams(String value, Set<String> grams) {
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_LENGTH));
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    //sorted set of item ids backed by a primitive array
+    private static class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long itemId) {
+            if (size > 0 && ids[size - 1] < itemId) {
+                ensureCapacity();
+                ids[size++] = itemId;
+                return;
+            }
+            int index = Arrays.binarySearch(ids, 0, size, itemId);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            ensureCapacity();
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = itemId;
+            size++;
+        }
+
+        boolean remove(long itemId) {
+            int index = Arrays.binarySearch(ids, 0, size, itemId);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        void clear() {
+            ids = new long[4];
+            size = 0;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        long[] intersect(long[] sorted) {
+            long[] result = new long[Math.min(sorted.length, size)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < sorted.length && j < size) {
+                if (sorted[i] < ids[j]) {
+                    i++;
+                } else if (sorted[i] > ids[j]) {
+                    j++;
+                } else {
+                    result[count++] = sorted[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+        }
+    }
+}
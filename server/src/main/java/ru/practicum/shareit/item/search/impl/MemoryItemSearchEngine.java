@@ -0,0 +1,101 @@
+package ru.practicum.shareit.item.search.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemView;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.utils.TransactionCallbacks;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.item.search.engine", havingValue = "memory")
+public class MemoryItemSearchEngine implements ItemSearchEngine {
+    private final ItemRepository itemRepository;
+    private final EntityManager entityManager;
+    private final ItemInvertedIndex index = new ItemInvertedIndex();
+    private volatile boolean ready;
+
+    @Override
+    public List<ItemView> search(String text, Pageable pageable) {
+        if (!ready) {
+            return itemRepository.search(text, pageable);
+        }
+        while (true) {
+            long[] matches = index.search(text);
+            int from = (int) Math.min(pageable.getOffset(), matches.length);
+            int to = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), matches.length);
+            if (from == to) {
+                return Collections.emptyList();
+            }
+            List<Long> itemIds = Arrays.stream(matches, from, to)
+                    .boxed()
+                    .collect(Collectors.toList());
+            Map<Long, ItemView> items = itemRepository.findViewsByIdIn(itemIds).stream()
+                    .collect(Collectors.toMap(ItemView::getId, Function.identity()));
+            if (items.size() == itemIds.size()) {
+                List<ItemView> result = new ArrayList<>(itemIds.size());
+                for (Long itemId : itemIds) {
+                    result.add(items.get(itemId));
+                }
+                return result;
+            }
+            //items removed by a cascade delete of their owner or request
+            for (Long itemId : itemIds) {
+                if (!items.containsKey(itemId)) {
+                    index.remove(itemId);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void index(Item item) {
+        long itemId = item.getId();
+        if (Boolean.TRUE.equals(item.getAvailable())) {
+            String name = item.getName();
+            String description = item.getDescription();
+            TransactionCallbacks.afterCommit(() -> index.put(itemId, name, description));
+        } else {
+            TransactionCallbacks.afterCommit(() -> index.remove(itemId));
+        }
+    }
+
+    @Override
+    public void remove(Long itemId) {
+        TransactionCallbacks.afterCommit(() -> index.remove(itemId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        ready = false;
+        index.clear();
+        try (Stream<Item> items = itemRepository.streamAvailable()) {
+            items.forEach(item -> {
+                index.put(item.getId(), item.getName(), item.getDescription());
+                entityManager.detach(item);
+            });
+        }
+        ready = true;
+        log.info("Поисковый индекс вещей построен, проиндексировано {} вещей.", index.size());
+    }
+}
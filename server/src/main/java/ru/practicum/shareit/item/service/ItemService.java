@@ -2,20 +2,33 @@ package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.KeysetCursor;
+import ru.practicum.shareit.utils.KeysetPage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ItemService {
     List<ItemDto> getAll(Integer from, Integer size);
 
+    List<ItemDto> getAll(KeysetCursor cursor, Integer size);
+
     ItemDto getItemById(Long userId, Long itemId);
 
-    List<ItemDto> getItemsByUserId(Long userId, Integer from, Integer size);
+    KeysetPage<ItemDto> getItemsByUserId(Long userId, Integer from, Integer size);
+
+    KeysetPage<ItemDto> getItemsByUserId(Long userId, KeysetCursor cursor, Integer size);
+
+    //plain item columns of the owner, without bookings and comments, in id order
+    void exportItemsByUserId(Long userId, Consumer<? super ItemDto> consumer);
 
     List<ItemDto> search(String text, Integer from, Integer size);
 
     ItemDto create(Long userId, ItemDto itemDto);
 
+    List<BatchResult<ItemDto>> createAll(Long userId, List<ItemDto> itemDtos);
+
     ItemDto update(Long itemId, Long userId, ItemDto itemDto);
 
     void delete(Long itemId, Long userId);
@@ -2,9 +2,11 @@ package ru.practicum.shareit.item.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.index.ItemBookingIndex;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
@@ -16,21 +18,36 @@ import ru.practicum.shareit.comment.repository.CommentRepository;
 import ru.practicum.shareit.exception.model.AccessException;
 import ru.practicum.shareit.exception.model.NotAvailableException;
 import ru.practicum.shareit.exception.model.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemView;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.BatchWriter;
+import ru.practicum.shareit.utils.KeysetCursor;
+import ru.practicum.shareit.utils.KeysetPage;
 import ru.practicum.shareit.utils.OffsetPageRequest;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -41,6 +58,10 @@ public class ItemServiceImpl implements ItemService {
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemBookingIndex itemBookingIndex;
+    private final ItemViewCache itemViewCache;
+    private final BatchWriter batchWriter;
     private final ItemMapper itemMapper;
     private final BookingMapper bookingMapper;
     private final CommentMapper commentMapper;
@@ -48,48 +69,92 @@ public class ItemServiceImpl implements ItemService {
     @Override
     @Transactional(readOnly = true)
     public List<ItemDto> getAll(Integer from, Integer size) {
-        return itemRepository.findAll(new OffsetPageRequest(from, size))
+        return itemRepository.findAll(new OffsetPageRequest(from, size, Sort.by("id")))
                 .map(itemMapper::toItemDto)
                 .getContent();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemDto> getAll(KeysetCursor cursor, Integer size) {
+        return itemRepository.findByIdGreaterThanOrderByIdAsc(cursor.getId(), new OffsetPageRequest(0, size)).stream()
+                .map(itemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public ItemDto getItemById(Long userId, Long itemId) {
-        Item item = itemRepository.findById(itemId)
+        LocalDateTime now = LocalDateTime.now();
+        ItemDto cachedItemDto = itemViewCache.get(itemId, userId, now);
+        if (cachedItemDto != null) {
+            return cachedItemDto;
+        }
+        long cacheVersion = itemViewCache.version();
+        ItemView item = itemRepository.findViewById(itemId)
                 .orElseThrow(() -> new NotFoundException(String.format("Вещь с ID = %d не существует.", itemId)));
         ItemDto itemDto = itemMapper.toItemDto(item);
-        itemDto.setComments(commentRepository.findByItemId(item.getId()).stream()
-                .map(commentMapper::toCommentDto)
-                .collect(Collectors.toList()));
-        if (item.getOwner().getId().equals(userId)) {
-            setLastAndNextBooking(itemDto);
+        itemDto.setComments(commentRepository.findDtoByItemId(item.getId()));
+        if (item.getOwnerId().equals(userId)) {
+            setLastAndNextBookings(List.of(itemDto), now);
+            itemViewCache.putOwnerView(item.getOwnerId(), itemDto, cacheVersion);
+        } else {
+            itemViewCache.putPublicView(item.getOwnerId(), itemDto, cacheVersion);
         }
         return itemDto;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ItemDto> getItemsByUserId(Long userId, Integer from, Integer size) {
+    public KeysetPage<ItemDto> getItemsByUserId(Long userId, Integer from, Integer size) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
                         + "не существует.", userId)));
-        List<ItemDto> itemDtos = itemRepository.findByOwnerId(user.getId(), new OffsetPageRequest(from, size)).stream()
-                .map(itemMapper::toItemDto)
-                .collect(Collectors.toList());
-        for (ItemDto itemDto : itemDtos) {
-            setLastAndNextBooking(itemDto);
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemView> items = new ArrayList<>(itemRepository.findByOwnerIdWithNextBookingAfter(user.getId(), now,
+                now, 0L, new OffsetPageRequest(from, size)));
+        if (items.size() < size) {
+            //the offset is past the items with upcoming bookings, the rest of it is taken from the tail
+            long tailFrom = items.isEmpty() && from > 0
+                    ? from - itemRepository.countByOwnerIdWithNextBooking(user.getId(), now) : 0;
+            items.addAll(itemRepository.findByOwnerIdWithoutNextBookingAfter(user.getId(), now, 0L,
+                    new OffsetPageRequest((int) tailFrom, size - items.size())));
+        }
+        return toItemPage(items, size, now);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<ItemDto> getItemsByUserId(Long userId, KeysetCursor cursor, Integer size) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
+                        + "не существует.", userId)));
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemView> items = new ArrayList<>();
+        Long tailAfter = cursor.getId();
+        if (cursor.getKey() != null) {
+            items.addAll(itemRepository.findByOwnerIdWithNextBookingAfter(user.getId(), now, cursor.getKey(),
+                    cursor.getId(), new OffsetPageRequest(0, size)));
+            tailAfter = 0L;
+        }
+        //a short page means the items with upcoming bookings ran out, it is filled from the start of the tail
+        if (items.size() < size) {
+            items.addAll(itemRepository.findByOwnerIdWithoutNextBookingAfter(user.getId(), now, tailAfter,
+                    new OffsetPageRequest(0, size - items.size())));
+        }
+        return toItemPage(items, size, now);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportItemsByUserId(Long userId, Consumer<? super ItemDto> consumer) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
+                        + "не существует.", userId)));
+        try (Stream<ItemView> items = itemRepository.streamByOwnerId(user.getId())) {
+            items.map(itemMapper::toItemDto)
+                    .forEach(consumer);
         }
-        itemDtos = itemDtos.stream().sorted((it1, it2) -> {
-            if (it1.getNextBooking() == null) {
-                return 1;
-            }
-            if (it2.getNextBooking() == null) {
-                return -1;
-            }
-            return it1.getNextBooking().getStart().compareTo(it2.getNextBooking().getStart());
-        }).collect(Collectors.toList());
-        return itemDtos;
     }
 
     @Override
@@ -98,7 +163,7 @@ public class ItemServiceImpl implements ItemService {
         if (text.isEmpty() || text.isBlank()) {
             return Collections.emptyList();
         }
-        return itemRepository.search(text, new OffsetPageRequest(from, size)).stream()
+        return itemSearchEngine.search(text, new OffsetPageRequest(from, size)).stream()
                 .map(itemMapper::toItemDto)
                 .collect(Collectors.toList());
     }
@@ -116,7 +181,39 @@ public class ItemServiceImpl implements ItemService {
                             + "не существует.", itemDto.getRequestId())));
             item.setRequest(itemRequest);
         }
-        return itemMapper.toItemDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        itemSearchEngine.index(savedItem);
+        return itemMapper.toItemDto(savedItem);
+    }
+
+    @Override
+    public List<BatchResult<ItemDto>> createAll(Long userId, List<ItemDto> itemDtos) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
+                        + "не существует.", userId)));
+        //requests of the whole batch are read with one query
+        Set<Long> requestIds = itemDtos.stream()
+                .map(ItemDto::getRequestId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, ItemRequest> itemRequests = itemRequestRepository.findAllById(requestIds).stream()
+                .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+        List<BatchResult<ItemDto>> results = batchWriter.write(itemDtos, itemDto -> {
+            if (itemDto.getRequestId() != null && !itemRequests.containsKey(itemDto.getRequestId())) {
+                throw new NotFoundException(String.format("Запроса с ID = %d не существует.",
+                        itemDto.getRequestId()));
+            }
+        }, itemDto -> {
+            Item item = itemMapper.toItem(itemDto, user);
+            if (itemDto.getRequestId() != null) {
+                item.setRequest(itemRequests.get(itemDto.getRequestId()));
+            }
+            Item savedItem = itemRepository.save(item);
+            itemSearchEngine.index(savedItem);
+            return itemMapper.toItemDto(savedItem);
+        });
+        log.debug("Пользователь с id={} добавил пакет из {} вещей.", userId, itemDtos.size());
+        return results;
     }
 
     @Override
@@ -140,8 +237,11 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getAvailable() != null) {
             item.setAvailable(itemDto.getAvailable());
         }
+        Item savedItem = itemRepository.save(item);
+        itemSearchEngine.index(savedItem);
+        itemViewCache.evict(savedItem.getId());
         log.debug("Вещь с id={} обновлена.", item.getId());
-        return itemMapper.toItemDto(itemRepository.save(item));
+        return itemMapper.toItemDto(savedItem);
     }
 
     @Override
@@ -154,6 +254,9 @@ public class ItemServiceImpl implements ItemService {
                     + "к вещи с ID = %d.", userId, itemId));
         }
         itemRepository.deleteById(itemId);
+        itemSearchEngine.remove(itemId);
+        itemBookingIndex.evict(itemId);
+        itemViewCache.evict(itemId);
     }
 
     @Override
@@ -170,26 +273,43 @@ public class ItemServiceImpl implements ItemService {
             throw new NotAvailableException(String.format("Невозможно создать комментарий к вещи с ID = %d",
                     item.getId()));
         }
-        Comment comment = commentMapper.toComment(commentDto, item, user, LocalDateTime.now());
-        return commentMapper.toCommentDto(commentRepository.save(comment));
+        Comment comment = commentMapper.toComment(commentDto, item, user,
+                LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        CommentDto savedCommentDto = commentMapper.toCommentDto(commentRepository.save(comment));
+        itemViewCache.evict(item.getId());
+        return savedCommentDto;
+    }
+
+    //the cursor takes next_start from the query that ordered the page, not from the booking index
+    private KeysetPage<ItemDto> toItemPage(List<ItemView> items, Integer size, LocalDateTime now) {
+        List<ItemDto> itemDtos = items.stream()
+                .map(itemMapper::toItemDto)
+                .collect(Collectors.toList());
+        setLastAndNextBookings(itemDtos, now);
+        KeysetCursor next = null;
+        if (!items.isEmpty() && items.size() == size) {
+            ItemView last = items.get(items.size() - 1);
+            next = new KeysetCursor(last.getNextStart(), last.getId());
+        }
+        return new KeysetPage<>(itemDtos, next);
+    }
+
+    private void setLastAndNextBookings(List<ItemDto> itemDtos, LocalDateTime now) {
+        if (itemDtos.isEmpty()) {
+            return;
+        }
+        Set<Long> itemIds = itemDtos.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toSet());
+        Map<Long, Booking> lastBookings = itemBookingIndex.findLastBookings(itemIds, now);
+        Map<Long, Booking> nextBookings = itemBookingIndex.findNextBookings(itemIds, now);
+        for (ItemDto itemDto : itemDtos) {
+            itemDto.setLastBooking(toBookingForItemDto(lastBookings.get(itemDto.getId())));
+            itemDto.setNextBooking(toBookingForItemDto(nextBookings.get(itemDto.getId())));
+        }
     }
 
-    private void setLastAndNextBooking(ItemDto itemDto) {
-        BookingDto lastBooking = null;
-        Booking pastBookings = bookingRepository
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(itemDto.getId(), BookingStatus.APPROVED,
-                        LocalDateTime.now());
-        if (pastBookings != null) {
-            lastBooking = bookingMapper.toBookingForItemDto(pastBookings);
-        }
-        itemDto.setLastBooking(lastBooking);
-        BookingDto nextBooking = null;
-        Booking futureBooking = bookingRepository
-                .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(itemDto.getId(), BookingStatus.APPROVED,
-                        LocalDateTime.now());
-        if (futureBooking != null) {
-            nextBooking = bookingMapper.toBookingForItemDto(futureBooking);
-        }
-        itemDto.setNextBooking(nextBooking);
+    private BookingDto toBookingForItemDto(Booking booking) {
+        return booking == null ? null : bookingMapper.toBookingForItemDto(booking);
     }
 }
@@ -1,9 +1,14 @@
 package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.EntityTag;
+import ru.practicum.shareit.utils.KeysetCursor;
 
 import java.util.List;
 
@@ -19,21 +24,64 @@ public class ItemRequestController {
         return itemRequestService.create(userId, itemRequestDto);
     }
 
+    @PostMapping("/batch")
+    public List<BatchResult<ItemRequestDto>> createAll(@RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestBody List<ItemRequestDto> itemRequestDtos) {
+        return itemRequestService.createAll(userId, itemRequestDtos);
+    }
+
     @GetMapping
-    public List<ItemRequestDto> getRequestsByUserId(@RequestHeader("X-Sharer-User-Id") Long userId) {
-        return itemRequestService.getRequestsByUserId(userId);
+    public List<ItemRequestDto> getRequestsByUserId(@RequestHeader("X-Sharer-User-Id") Long userId,
+            WebRequest request) {
+        List<ItemRequestDto> itemRequestDtos = itemRequestService.getRequestsByUserId(userId);
+        if (tag(itemRequestDtos).isNotModified(request)) {
+            return null;
+        }
+        return itemRequestDtos;
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDto> getAllRequests(@RequestHeader("X-Sharer-User-Id") Long userId,
-            @RequestParam(value = "from") Integer from,
-            @RequestParam(value = "size") Integer size) {
-        return itemRequestService.getAllRequests(userId, from, size);
+    public ResponseEntity<List<ItemRequestDto>> getAllRequests(@RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(value = "from", defaultValue = "0") Integer from,
+            @RequestParam(value = "size") Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor, WebRequest request) {
+        List<ItemRequestDto> itemRequestDtos;
+        if (cursor != null) {
+            itemRequestDtos = itemRequestService.getAllRequests(userId, KeysetCursor.decode(cursor), size);
+        } else {
+            itemRequestDtos = itemRequestService.getAllRequests(userId, from, size);
+        }
+        if (tag(itemRequestDtos).isNotModified(request)) {
+            return null;
+        }
+        return KeysetCursor.toResponse(itemRequestDtos, size,
+                itemRequestDto -> new KeysetCursor(itemRequestDto.getCreated(), itemRequestDto.getId()));
     }
 
     @GetMapping("/{requestId}")
     public ItemRequestDto getRequestById(@RequestHeader("X-Sharer-User-Id") Long userId,
-            @PathVariable("requestId") Long requestId) {
-        return itemRequestService.getRequestById(userId, requestId);
+            @PathVariable("requestId") Long requestId, WebRequest request) {
+        ItemRequestDto itemRequestDto = itemRequestService.getRequestById(userId, requestId);
+        if (addRequest(new EntityTag(), itemRequestDto).isNotModified(request)) {
+            return null;
+        }
+        return itemRequestDto;
+    }
+
+    private static EntityTag tag(List<ItemRequestDto> itemRequestDtos) {
+        EntityTag tag = new EntityTag();
+        itemRequestDtos.forEach(itemRequestDto -> addRequest(tag, itemRequestDto));
+        return tag;
+    }
+
+    //requests are never updated, only the items answering them are
+    private static EntityTag addRequest(EntityTag tag, ItemRequestDto itemRequestDto) {
+        tag.add(itemRequestDto.getId());
+        if (itemRequestDto.getItems() == null) {
+            return tag.add(null);
+        }
+        tag.add(itemRequestDto.getItems().size());
+        itemRequestDto.getItems().forEach(itemDto -> tag.add(itemDto.getId()).add(itemDto.getVersion()));
+        return tag;
     }
 }
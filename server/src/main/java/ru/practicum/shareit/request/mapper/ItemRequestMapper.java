@@ -2,9 +2,12 @@ package ru.practicum.shareit.request.mapper;
 
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestView;
 
 public interface ItemRequestMapper {
     ItemRequest toItemRequest(ItemRequestDto itemRequestDto);
 
     ItemRequestDto toItemRequestDto(ItemRequest itemRequest);
+
+    ItemRequestDto toItemRequestDto(ItemRequestView itemRequestView);
 }
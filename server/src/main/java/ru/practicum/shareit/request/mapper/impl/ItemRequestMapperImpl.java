@@ -4,6 +4,7 @@ import org.springframework.stereotype.Component;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestView;
 
 @Component
 public class ItemRequestMapperImpl implements ItemRequestMapper {
@@ -22,4 +23,13 @@ public class ItemRequestMapperImpl implements ItemRequestMapper {
                 .created(itemRequest.getCreated())
                 .build();
     }
+
+    @Override
+    public ItemRequestDto toItemRequestDto(ItemRequestView itemRequestView) {
+        return ItemRequestDto.builder()
+                .id(itemRequestView.getId())
+                .description(itemRequestView.getDescription())
+                .created(itemRequestView.getCreated())
+                .build();
+    }
 }
@@ -2,12 +2,36 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findByRequestorIdOrderByCreatedDesc(Long requestorId);
+    String SELECT_VIEW = "select new ru.practicum.shareit.request.repository.ItemRequestView("
+            + "r.id, r.description, r.created) ";
 
-    List<ItemRequest> findByRequestorIdNotOrderByCreatedDesc(Long requestorId, Pageable pageable);
+    @Query(SELECT_VIEW + "from ItemRequest as r where r.id = ?1")
+    Optional<ItemRequestView> findViewById(Long id);
+
+    @Query(SELECT_VIEW
+            + "from ItemRequest as r "
+            + "where r.requestor.id = ?1 "
+            + "order by r.created desc")
+    List<ItemRequestView> findByRequestorIdOrderByCreatedDesc(Long requestorId);
+
+    @Query(SELECT_VIEW
+            + "from ItemRequest as r "
+            + "where r.requestor.id <> ?1 "
+            + "order by r.created desc, r.id desc")
+    List<ItemRequestView> findByRequestorIdNotOrderByCreatedDesc(Long requestorId, Pageable pageable);
+
+    @Query(SELECT_VIEW
+            + "from ItemRequest as r "
+            + "where r.requestor.id <> ?1 and (r.created < ?2 or (r.created = ?2 and r.id < ?3)) "
+            + "order by r.created desc, r.id desc")
+    List<ItemRequestView> findByRequestorIdNotBefore(Long requestorId, LocalDateTime created, Long id,
+            Pageable pageable);
 }
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.request.repository;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+//read-only request columns for request feeds, selected without a managed entity
+@Value
+public class ItemRequestView {
+    Long id;
+    String description;
+    LocalDateTime created;
+}
@@ -1,15 +1,21 @@
 package ru.practicum.shareit.request.service;
 
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.KeysetCursor;
 
 import java.util.List;
 
 public interface ItemRequestService {
     ItemRequestDto create(Long userId, ItemRequestDto itemRequestDto);
 
+    List<BatchResult<ItemRequestDto>> createAll(Long userId, List<ItemRequestDto> itemRequestDtos);
+
     List<ItemRequestDto> getRequestsByUserId(Long userId);
 
     List<ItemRequestDto> getAllRequests(Long userId, Integer from, Integer size);
 
+    List<ItemRequestDto> getAllRequests(Long userId, KeysetCursor cursor, Integer size);
+
     ItemRequestDto getRequestById(Long userId, Long requestId);
 }
@@ -4,19 +4,28 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.model.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.repository.ItemRequestView;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.BatchWriter;
+import ru.practicum.shareit.utils.KeysetCursor;
 import ru.practicum.shareit.utils.OffsetPageRequest;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,6 +36,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRepository itemRepository;
     private final ItemRequestMapper itemRequestMapper;
     private final ItemMapper itemMapper;
+    private final BatchWriter batchWriter;
 
     @Override
     @Transactional
@@ -35,29 +45,46 @@ public class ItemRequestServiceImpl implements ItemRequestService {
                 .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
                         + "не существует.", userId)));
         ItemRequest itemRequest = itemRequestMapper.toItemRequest(itemRequestDto);
-        itemRequest.setCreated(LocalDateTime.now());
+        //column precision, so the created request equals the one read back later
+        itemRequest.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
         itemRequest.setRequestor(user);
         return itemRequestMapper.toItemRequestDto(itemRequestRepository.save(itemRequest));
     }
 
+    @Override
+    public List<BatchResult<ItemRequestDto>> createAll(Long userId, List<ItemRequestDto> itemRequestDtos) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
+                        + "не существует.", userId)));
+        return batchWriter.write(itemRequestDtos, itemRequestDto -> {
+            ItemRequest itemRequest = itemRequestMapper.toItemRequest(itemRequestDto);
+            itemRequest.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+            itemRequest.setRequestor(user);
+            return itemRequestMapper.toItemRequestDto(itemRequestRepository.save(itemRequest));
+        });
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<ItemRequestDto> getRequestsByUserId(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
                         + "не существует.", userId)));
-        return itemRequestRepository.findByRequestorIdOrderByCreatedDesc(user.getId()).stream()
-                .map(itemRequestMapper::toItemRequestDto).peek(this::setItemForRequestDto)
-                .collect(Collectors.toList());
+        return toItemRequestDtosWithItems(itemRequestRepository.findByRequestorIdOrderByCreatedDesc(user.getId()));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ItemRequestDto> getAllRequests(Long userId, Integer from, Integer size) {
-        return itemRequestRepository.findByRequestorIdNotOrderByCreatedDesc(userId,
-                        new OffsetPageRequest(from, size)).stream()
-                .map(itemRequestMapper::toItemRequestDto).peek(this::setItemForRequestDto)
-                .collect(Collectors.toList());
+        return toItemRequestDtosWithItems(itemRequestRepository.findByRequestorIdNotOrderByCreatedDesc(userId,
+                new OffsetPageRequest(from, size)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemRequestDto> getAllRequests(Long userId, KeysetCursor cursor, Integer size) {
+        return toItemRequestDtosWithItems(itemRequestRepository.findByRequestorIdNotBefore(userId,
+                cursor.getRequiredKey(), cursor.getId(), new OffsetPageRequest(0, size)));
     }
 
     @Override
@@ -66,17 +93,33 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException(String.format("Пользователя с ID = %d "
                         + "не существует.", userId)));
-        ItemRequest itemRequest = itemRequestRepository.findById(requestId)
+        ItemRequestView itemRequest = itemRequestRepository.findViewById(requestId)
                 .orElseThrow(() -> new NotFoundException(String.format("Запроса с ID = %d "
                         + "не существует.", requestId)));
-        ItemRequestDto itemRequestDto = itemRequestMapper.toItemRequestDto(itemRequest);
-        setItemForRequestDto(itemRequestDto);
-        return itemRequestDto;
+        return toItemRequestDtosWithItems(List.of(itemRequest)).get(0);
+    }
+
+    private List<ItemRequestDto> toItemRequestDtosWithItems(List<ItemRequestView> itemRequests) {
+        List<ItemRequestDto> itemRequestDtos = itemRequests.stream()
+                .map(itemRequestMapper::toItemRequestDto)
+                .collect(Collectors.toList());
+        setItemsForRequestDtos(itemRequestDtos);
+        return itemRequestDtos;
     }
 
-    private void setItemForRequestDto(ItemRequestDto requestDto) {
-        requestDto.setItems(itemRepository.findByRequestId(requestDto.getId()).stream()
+    //items of the whole page are read with one query and grouped by request id
+    private void setItemsForRequestDtos(List<ItemRequestDto> itemRequestDtos) {
+        if (itemRequestDtos.isEmpty()) {
+            return;
+        }
+        Set<Long> requestIds = itemRequestDtos.stream()
+                .map(ItemRequestDto::getId)
+                .collect(Collectors.toSet());
+        Map<Long, List<ItemDto>> itemsByRequestId = itemRepository.findByRequestIdIn(requestIds).stream()
                 .map(itemMapper::toItemDto)
-                .collect(Collectors.toList()));
+                .collect(Collectors.groupingBy(ItemDto::getRequestId));
+        for (ItemRequestDto itemRequestDto : itemRequestDtos) {
+            itemRequestDto.setItems(itemsByRequestId.getOrDefault(itemRequestDto.getId(), Collections.emptyList()));
+        }
     }
 }
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.BatchResult;
 
 import java.util.List;
 
@@ -28,6 +29,11 @@ public class UserController {
         return userService.create(userDto);
     }
 
+    @PostMapping("/batch")
+    public List<BatchResult<UserDto>> createAll(@RequestBody List<UserDto> userDtos) {
+        return userService.createAll(userDtos);
+    }
+
     @PatchMapping("/{id}")
     public UserDto update(@PathVariable("id") Long id, @RequestBody UserDto userDto) {
         return userService.update(id, userDto);
@@ -1,7 +1,9 @@
 package ru.practicum.shareit.user.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 
 @Data
 @Builder
@@ -9,4 +11,7 @@ public class UserDto {
     private Long id;
     private String name;
     private String email;
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long version;
 }
@@ -13,6 +13,7 @@ public class UserMapperImpl implements UserMapper {
                 .id(user.getId())
                 .name(user.getName())
                 .email(user.getEmail())
+                .version(user.getVersion())
                 .build();
     }
 
@@ -22,6 +23,7 @@ public class UserMapperImpl implements UserMapper {
                 .id(userDto.getId())
                 .name(userDto.getName())
                 .email(userDto.getEmail())
+                .version(userDto.getVersion())
                 .build();
     }
 }
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.user.service;
 
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.utils.BatchResult;
 
 import java.util.List;
 
@@ -11,6 +12,8 @@ public interface UserService {
 
     UserDto create(UserDto userDto);
 
+    List<BatchResult<UserDto>> createAll(List<UserDto> userDtos);
+
     UserDto update(Long userId, UserDto userDto);
 
     void deleteById(Long userId);
@@ -5,15 +5,25 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.index.ItemBookingIndex;
 import ru.practicum.shareit.exception.model.AlreadyExistException;
 import ru.practicum.shareit.exception.model.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.BatchWriter;
+import ru.practicum.shareit.utils.EntityCache;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -21,7 +31,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final ItemBookingIndex itemBookingIndex;
     private final UserMapper userMapper;
+    private final EntityCache entityCache;
+    private final ItemViewCache itemViewCache;
+    private final BatchWriter batchWriter;
 
     @Override
     @Transactional(readOnly = true)
@@ -44,7 +58,7 @@ public class UserServiceImpl implements UserService {
     public UserDto create(UserDto userDto) {
         User user = userMapper.toUser(userDto);
         try {
-            user = userRepository.save(user);
+            user = userRepository.saveAndFlush(user);
         } catch (DataIntegrityViolationException e) {
             throw new AlreadyExistException("Пользователь с таким email уже существует!");
         }
@@ -52,6 +66,22 @@ public class UserServiceImpl implements UserService {
         return userMapper.toUserDto(user);
     }
 
+    @Override
+    public List<BatchResult<UserDto>> createAll(List<UserDto> userDtos) {
+        //emails already taken in the database or earlier in the batch, so a duplicate does not roll back its chunk
+        Set<String> emails = new HashSet<>(userRepository.findEmailsByEmailIn(userDtos.stream()
+                .map(UserDto::getEmail)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet())));
+        List<BatchResult<UserDto>> results = batchWriter.write(userDtos, userDto -> {
+            if (!emails.add(userDto.getEmail())) {
+                throw new AlreadyExistException("Пользователь с таким email уже существует!");
+            }
+        }, userDto -> userMapper.toUserDto(userRepository.save(userMapper.toUser(userDto))));
+        log.debug("Создан пакет из {} пользователей.", userDtos.size());
+        return results;
+    }
+
     @Override
     @Transactional
     public UserDto update(Long id, UserDto userDto) {
@@ -62,9 +92,11 @@ public class UserServiceImpl implements UserService {
         }
         if (userDto.getName() != null) {
             user.setName(userDto.getName());
+            //the name is shown as the author of the user's comments
+            itemViewCache.evictAll();
         }
         try {
-            user = userRepository.save(user);
+            user = userRepository.saveAndFlush(user);
         } catch (DataIntegrityViolationException e) {
             throw new AlreadyExistException("Пользователь с таким email уже существует!");
         }
@@ -76,6 +108,11 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public void deleteById(Long id) {
         userRepository.deleteById(id);
+        //bookings, items and requests of the user are removed by the database cascade
+        itemBookingIndex.evictAll();
+        entityCache.evictAll(Item.class);
+        entityCache.evictAll(ItemRequest.class);
+        itemViewCache.evictAll();
         log.debug("Пользователь с id={} удален.", id);
     }
 }
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.utils;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.http.HttpStatus;
+
+//outcome of one element of a bulk request, index is its position in the request body
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult<T> {
+    private final int index;
+    private final int status;
+    private final T result;
+    private final String error;
+
+    public static <T> BatchResult<T> created(int index, T result) {
+        return new BatchResult<>(index, HttpStatus.CREATED.value(), result, null);
+    }
+
+    public static <T> BatchResult<T> ok(int index, T result) {
+        return new BatchResult<>(index, HttpStatus.OK.value(), result, null);
+    }
+
+    public static <T> BatchResult<T> failed(int index, HttpStatus status, String error) {
+        return new BatchResult<>(index, status.value(), null, error);
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.model.AccessException;
+import ru.practicum.shareit.exception.model.AlreadyExistException;
+import ru.practicum.shareit.exception.model.NotAvailableException;
+import ru.practicum.shareit.exception.model.NotFoundException;
+import ru.practicum.shareit.exception.model.ValidationException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+//saves the elements of a bulk request in chunks, one transaction per chunk, so the inserts go out as jdbc batches
+@Slf4j
+@Component
+public class BatchWriter {
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public BatchWriter(TransactionTemplate transactionTemplate, @Value("${shareit.batch.chunk-size:500}") int chunkSize) {
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    public <T, R> List<BatchResult<R>> write(List<T> elements, Function<T, R> save) {
+        return write(elements, element -> {
+        }, save);
+    }
+
+    //check rejects an element before anything is written, save runs inside the transaction of the chunk
+    public <T, R> List<BatchResult<R>> write(List<T> elements, Consumer<T> check, Function<T, R> save) {
+        List<BatchResult<R>> results = new ArrayList<>(elements.size());
+        List<Integer> accepted = new ArrayList<>(elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            try {
+                check.accept(elements.get(i));
+                accepted.add(i);
+            } catch (RuntimeException e) {
+                results.add(failed(i, e));
+            }
+        }
+        for (int from = 0; from < accepted.size(); from += chunkSize) {
+            List<Integer> chunk = accepted.subList(from, Math.min(from + chunkSize, accepted.size()));
+            try {
+                results.addAll(transactionTemplate.execute(status -> saveChunk(elements, chunk, save)));
+            } catch (RuntimeException e) {
+                //the chunk is rolled back as a whole, each element is saved again on its own to find the failing ones
+                log.debug("Пакет из {} элементов не сохранен, элементы сохраняются по одному: {}", chunk.size(),
+                        e.getMessage());
+                chunk.forEach(index -> results.add(saveOne(elements, index, save)));
+            }
+        }
+        results.sort(Comparator.comparingInt(BatchResult::getIndex));
+        return results;
+    }
+
+    private <T, R> List<BatchResult<R>> saveChunk(List<T> elements, List<Integer> chunk, Function<T, R> save) {
+        List<BatchResult<R>> results = new ArrayList<>(chunk.size());
+        for (Integer index : chunk) {
+            results.add(BatchResult.created(index, save.apply(elements.get(index))));
+        }
+        return results;
+    }
+
+    private <T, R> BatchResult<R> saveOne(List<T> elements, int index, Function<T, R> save) {
+        try {
+            return transactionTemplate.execute(status -> BatchResult.created(index, save.apply(elements.get(index))));
+        } catch (RuntimeException e) {
+            return failed(index, e);
+        }
+    }
+
+    //same statuses the ErrorHandler gives these exceptions for a single element
+    private static <R> BatchResult<R> failed(int index, RuntimeException e) {
+        if (e instanceof NotFoundException) {
+            return BatchResult.failed(index, HttpStatus.NOT_FOUND, e.getMessage());
+        }
+        if (e instanceof AlreadyExistException) {
+            return BatchResult.failed(index, HttpStatus.CONFLICT, e.getMessage());
+        }
+        if (e instanceof DataIntegrityViolationException) {
+            return BatchResult.failed(index, HttpStatus.CONFLICT, "Элемент противоречит уже сохраненным данным.");
+        }
+        if (e instanceof AccessException) {
+            return BatchResult.failed(index, HttpStatus.FORBIDDEN, e.getMessage());
+        }
+        if (e instanceof ValidationException || e instanceof NotAvailableException) {
+            return BatchResult.failed(index, HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        log.error("Элемент {} пакета не сохранен.", index, e);
+        return BatchResult.failed(index, HttpStatus.INTERNAL_SERVER_ERROR, "Произошла непредвиденная ошибка.");
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.utils;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+@Component
+@RequiredArgsConstructor
+public class EntityCache {
+    private final EntityManagerFactory entityManagerFactory;
+
+    //for rows removed behind Hibernate's back, e.g. by a database cascade
+    public void evictAll(Class<?> entityClass) {
+        TransactionCallbacks.afterCommit(() -> entityManagerFactory.getCache().evict(entityClass));
+    }
+}
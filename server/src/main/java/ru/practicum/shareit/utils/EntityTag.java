@@ -0,0 +1,39 @@
+package ru.practicum.shareit.utils;
+
+import org.springframework.web.context.request.WebRequest;
+
+//weak ETag hashed from ids and row versions, any new version of a row in the response changes the tag
+public class EntityTag {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long hash = FNV_OFFSET_BASIS;
+
+    public EntityTag add(Object value) {
+        if (value == null) {
+            mix(-1);
+            return this;
+        }
+        String string = String.valueOf(value);
+        //the length keeps "1", "23" apart from "12", "3"
+        mix(string.length());
+        for (int i = 0; i < string.length(); i++) {
+            mix(string.charAt(i));
+        }
+        return this;
+    }
+
+    public String toETag() {
+        return String.format("W/\"%016x\"", hash);
+    }
+
+    //sets the ETag header, true if the client already has this version and gets 304 without a body
+    public boolean isNotModified(WebRequest request) {
+        return request.checkNotModified(toETag());
+    }
+
+    private void mix(int value) {
+        hash ^= value;
+        hash *= FNV_PRIME;
+    }
+}
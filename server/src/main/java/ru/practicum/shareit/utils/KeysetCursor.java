@@ -0,0 +1,103 @@
+package ru.practicum.shareit.utils;
+
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exception.model.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+public class KeysetCursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime key;
+    private final Long id;
+
+    public KeysetCursor(LocalDateTime key, Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID курсора не должен быть null!");
+        }
+        this.key = key;
+        this.id = id;
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = value.indexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new IllegalArgumentException("Отсутствует разделитель.");
+            }
+            String key = value.substring(0, separatorIndex);
+            Long id = Long.valueOf(value.substring(separatorIndex + 1));
+            return new KeysetCursor(key.isEmpty() ? null : LocalDateTime.parse(key), id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException(String.format("Некорректный курсор: %s", cursor));
+        }
+    }
+
+    //a full page gets the cursor of its last element in the X-Next-Cursor header
+    public static <T> ResponseEntity<List<T>> toResponse(List<T> page, Integer size,
+            Function<T, KeysetCursor> cursorOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!page.isEmpty() && page.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, cursorOf.apply(page.get(page.size() - 1)).encode());
+        }
+        return response.body(page);
+    }
+
+    public static <T> ResponseEntity<List<T>> toResponse(KeysetPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNext() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNext().encode());
+        }
+        return response.body(page.getContent());
+    }
+
+    public String encode() {
+        String value = (key == null ? "" : key.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //for orderings whose key column is never null
+    public LocalDateTime getRequiredKey() {
+        if (key == null) {
+            throw new ValidationException(String.format("Некорректный курсор: %s", encode()));
+        }
+        return key;
+    }
+
+    public LocalDateTime getKey() {
+        return key;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KeysetCursor that = (KeysetCursor) o;
+        return Objects.equals(key, that.key) && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, id);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{" +
+                "key=" + key +
+                ", id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.utils;
+
+import lombok.Value;
+
+import java.util.List;
+
+//a page whose next cursor is read from the query, for orderings whose key is not a field of the returned elements
+@Value
+public class KeysetPage<T> {
+    List<T> content;
+    //null when the page is not full
+    KeysetCursor next;
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+//newline delimited json written into the response while the rows are read, one object per line
+@Slf4j
+public final class NdjsonResponse {
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    private NdjsonResponse() {
+    }
+
+    public static void write(ObjectMapper objectMapper, HttpServletResponse response,
+            Consumer<Consumer<Object>> export) throws IOException {
+        Rows rows = new Rows(objectMapper, response);
+        try {
+            export.accept(rows);
+        } catch (UncheckedIOException e) {
+            //only writing a row fails this way: the client is gone and the response can not be answered anymore
+            log.info("Клиент прервал выгрузку: {}", e.getCause().getMessage());
+            return;
+        }
+        rows.close();
+    }
+
+    //the response is started by the first row, so an export failing before it is still answered by the error handler
+    private static final class Rows implements Consumer<Object> {
+        private final ObjectWriter writer;
+        private final HttpServletResponse response;
+        private JsonGenerator generator;
+
+        private Rows(ObjectMapper objectMapper, HttpServletResponse response) {
+            //the servlet container sends a chunk whenever its buffer is full, not after every row
+            this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            this.response = response;
+        }
+
+        @Override
+        public void accept(Object row) {
+            try {
+                if (generator == null) {
+                    start();
+                }
+                writer.writeValue(generator, row);
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void start() throws IOException {
+            response.setContentType(CONTENT_TYPE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            generator = writer.getFactory().createGenerator(response.getOutputStream());
+            generator.setRootValueSeparator(null);
+        }
+
+        private void close() throws IOException {
+            if (generator == null) {
+                start();
+            }
+            generator.close();
+        }
+    }
+}
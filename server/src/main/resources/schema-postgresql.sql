@@ -0,0 +1,65 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_vector TSVECTOR
+    GENERATED ALWAYS AS (setweight(to_tsvector('simple', coalesce(item_name, '')), 'A')
+        || setweight(to_tsvector('simple', coalesce(description, '')), 'B')) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_items_search_vector ON items USING GIN (search_vector) WHERE available;
+
+CREATE INDEX IF NOT EXISTS idx_items_name_trgm ON items USING GIN (lower(item_name) gin_trgm_ops) WHERE available;
+
+CREATE INDEX IF NOT EXISTS idx_items_description_trgm ON items USING GIN (lower(description) gin_trgm_ops)
+    WHERE available;
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+--a database with overlapping approved bookings from before the constraint still starts, without it:
+--ApprovedOverlapCheck lists the rows, and the constraint is created on the first start after they are fixed
+DO 'BEGIN
+    ALTER TABLE bookings ADD CONSTRAINT ex_bookings_approved_overlap
+        EXCLUDE USING GIST (item_id WITH =, tsrange(booking_start, booking_end) WITH &&)
+        WHERE (status = ''APPROVED'');
+EXCEPTION
+    WHEN duplicate_table OR duplicate_object THEN NULL;
+    WHEN exclusion_violation THEN
+        RAISE WARNING ''ex_bookings_approved_overlap not created: approved bookings overlap'';
+END';
+
+--bookings from before owner_id get it from their item once, then the column is required
+DO 'BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = current_schema()
+            AND table_name = ''bookings'' AND column_name = ''owner_id'' AND is_nullable = ''YES'') THEN
+        UPDATE bookings AS bk SET owner_id = it.owner_id FROM items AS it
+            WHERE it.item_id = bk.item_id AND bk.owner_id IS NULL;
+        ALTER TABLE bookings ALTER COLUMN owner_id SET NOT NULL;
+    END IF;
+END';
+
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_waiting ON bookings (booker_id, booking_start DESC)
+    WHERE status = 'WAITING';
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_waiting ON bookings (item_id, booking_start DESC)
+    WHERE status = 'WAITING';
+
+--ids used to come from identity columns: the sequences start past the existing rows, and a row inserted without an id
+--takes a whole block of its sequence, so it never gets an id hibernate has already handed out
+DO '
+DECLARE
+    id_column TEXT[];
+    max_id BIGINT;
+    next_free_id BIGINT;
+BEGIN
+    FOREACH id_column SLICE 1 IN ARRAY ARRAY[[''users'', ''user_id'', ''users_seq''],
+            [''requests'', ''request_id'', ''requests_seq''], [''items'', ''item_id'', ''items_seq''],
+            [''bookings'', ''booking_id'', ''bookings_seq''], [''comments'', ''comment_id'', ''comments_seq'']] LOOP
+        EXECUTE format(''ALTER TABLE %I ALTER COLUMN %I DROP IDENTITY IF EXISTS'', id_column[1], id_column[2]);
+        EXECUTE format(''ALTER TABLE %I ALTER COLUMN %I SET DEFAULT nextval(%L)'', id_column[1], id_column[2],
+                id_column[3]);
+        EXECUTE format(''SELECT coalesce(max(%I), 0) FROM %I'', id_column[2], id_column[1]) INTO max_id;
+        EXECUTE format(''SELECT last_value + CASE WHEN is_called THEN 50 ELSE 0 END FROM %I'', id_column[3])
+            INTO next_free_id;
+        IF max_id >= next_free_id THEN
+            PERFORM setval(id_column[3], max_id + 1, false);
+        END IF;
+    END LOOP;
+END';
@@ -0,0 +1,165 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//not transactional: entity cache entries are written and invalidated on commit
+@SpringBootTest
+@ActiveProfiles("integrationtest")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class EntityCacheIntegrationTest {
+    private final UserService userService;
+    private final ItemService itemService;
+    private final ItemRequestService itemRequestService;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+    private final List<Long> userIds = new ArrayList<>();
+    private Statistics statistics;
+    private Cache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        cache = entityManagerFactory.getCache();
+    }
+
+    @AfterEach
+    void afterEach() {
+        for (Long userId : userIds) {
+            if (userRepository.existsById(userId)) {
+                userService.deleteById(userId);
+            }
+        }
+    }
+
+    @Test
+    void findByIdTest_whenUserCached_thenNoStatementExecuted() {
+        UserDto user = createUser("cached");
+        userRepository.findById(user.getId());
+        statistics.clear();
+
+        User cachedUser = userRepository.findById(user.getId()).orElseThrow();
+
+        assertEquals(user.getName(), cachedUser.getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void updateTest_whenUserUpdated_thenCacheHoldsNewValue() {
+        UserDto user = createUser("old");
+        userRepository.findById(user.getId());
+
+        userService.update(user.getId(), UserDto.builder().name("new").build());
+
+        assertTrue(cache.contains(User.class, user.getId()));
+        assertEquals("new", userRepository.findById(user.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void deleteByIdTest_whenUserDeleted_thenCascadedItemsAndRequestsEvicted() {
+        UserDto owner = createUser("owner");
+        UserDto requestor = createUser("requestor");
+        ItemRequestDto request = itemRequestService.create(requestor.getId(),
+                ItemRequestDto.builder().description("request").build());
+        ItemDto requestedItem = itemService.create(owner.getId(), ItemDto.builder().name("requested")
+                .description("requested item").available(true).requestId(request.getId()).build());
+        ItemDto ownItem = itemService.create(owner.getId(), ItemDto.builder().name("own")
+                .description("own item").available(true).build());
+        itemRequestRepository.findById(request.getId());
+        itemRepository.findById(requestedItem.getId());
+        itemRepository.findById(ownItem.getId());
+        assertTrue(cache.contains(ItemRequest.class, request.getId()));
+        assertTrue(cache.contains(Item.class, requestedItem.getId()));
+
+        userService.deleteById(requestor.getId());
+
+        assertTrue(itemRequestRepository.findById(request.getId()).isEmpty());
+        assertTrue(itemRepository.findById(requestedItem.getId()).isEmpty());
+        assertTrue(itemRepository.findById(ownItem.getId()).isPresent());
+    }
+
+    @Test
+    void updateTest_whenItemUpdated_thenCacheHoldsNewValue() {
+        UserDto owner = createUser("owner");
+        ItemDto item = itemService.create(owner.getId(), ItemDto.builder().name("old")
+                .description("item").available(true).build());
+        itemRepository.findById(item.getId());
+
+        itemService.update(item.getId(), owner.getId(), ItemDto.builder().name("new").available(false).build());
+
+        Item cachedItem = itemRepository.findById(item.getId()).orElseThrow();
+        assertEquals("new", cachedItem.getName());
+        assertFalse(cachedItem.getAvailable());
+    }
+
+    @Test
+    void deleteTest_whenItemDeleted_thenNotServedFromCache() {
+        UserDto owner = createUser("owner");
+        ItemDto item = itemService.create(owner.getId(), ItemDto.builder().name("item")
+                .description("item").available(true).build());
+        itemRepository.findById(item.getId());
+
+        itemService.delete(item.getId(), owner.getId());
+
+        assertTrue(itemRepository.findById(item.getId()).isEmpty());
+    }
+
+    @Test
+    void metricsTest_whenUserLoadedTwice_thenMissAndHitCounted() {
+        UserDto user = createUser("metrics");
+        cache.evict(User.class, user.getId());
+        double hits = cacheRequests("hit");
+        double misses = cacheRequests("miss");
+
+        userRepository.findById(user.getId());
+        userRepository.findById(user.getId());
+
+        assertEquals(misses + 1, cacheRequests("miss"));
+        assertEquals(hits + 1, cacheRequests("hit"));
+    }
+
+    private double cacheRequests(String result) {
+        return meterRegistry.get("hibernate.second.level.cache.requests")
+                .tags("region", "users", "result", result)
+                .functionCounter()
+                .count();
+    }
+
+    private UserDto createUser(String name) {
+        UserDto user = userService.create(UserDto.builder().name(name)
+                .email(name + System.nanoTime() + "@cache.test").build());
+        userIds.add(user.getId());
+        return user;
+    }
+}
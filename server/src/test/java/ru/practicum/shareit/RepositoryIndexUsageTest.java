@@ -0,0 +1,104 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingFilter;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.utils.SqlCaptureInspector;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//every repository access path must be served by an index, not by a full table scan
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.practicum.shareit.utils.SqlCaptureInspector")
+class RepositoryIndexUsageTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    private final LocalDateTime now = LocalDateTime.now();
+    private final PageRequest page = PageRequest.of(0, 10);
+
+    @BeforeEach
+    void beforeEach() {
+        SqlCaptureInspector.clear();
+    }
+
+    @Test
+    void bookingFilterQueriesTest() {
+        for (BookingRole role : BookingRole.values()) {
+            for (BookingState state : BookingState.values()) {
+                BookingFilter filter = BookingFilter.builder().role(role).userId(1L).state(state).now(now).build();
+                BookingFilter keysetFilter = BookingFilter.builder().role(role).userId(1L).state(state).now(now)
+                        .beforeStart(now).beforeId(1L).build();
+                BookingFilter itemRangeFilter = BookingFilter.builder().role(role).userId(1L).state(state).now(now)
+                        .itemId(1L).rangeStart(now).rangeEnd(now).build();
+
+                assertIndexUsed(() -> bookingRepository.findByFilter(filter, page));
+                assertIndexUsed(() -> bookingRepository.findByFilter(keysetFilter, page));
+                assertIndexUsed(() -> bookingRepository.findByFilter(itemRangeFilter, page));
+            }
+        }
+    }
+
+    @Test
+    void bookingIndexAndCommentQueriesTest() {
+        assertIndexUsed(() -> bookingRepository.findByItemIdInAndStatusInAndEndIsAfter(List.of(1L, 2L),
+                List.of(BookingStatus.APPROVED, BookingStatus.WAITING), now));
+        assertIndexUsed(() -> bookingRepository.findLastEndedByItemIdIn(List.of(1L, 2L), now));
+        assertIndexUsed(() -> bookingRepository.existsByItemIdAndStatusInAndStartIsBeforeAndEndIsAfter(1L,
+                List.of(BookingStatus.APPROVED), now, now));
+        assertIndexUsed(() -> bookingRepository.findViewById(1L));
+        assertIndexUsed(() -> bookingRepository.findByBookerIdAndItemIdAndStatusAndEndIsBefore(1L, 1L,
+                BookingStatus.APPROVED, now));
+    }
+
+    @Test
+    void itemQueriesTest() {
+        assertIndexUsed(() -> itemRepository.findByOwnerIdWithNextBookingAfter(1L, now, now, 1L, page));
+        assertIndexUsed(() -> itemRepository.countByOwnerIdWithNextBooking(1L, now));
+        assertIndexUsed(() -> itemRepository.findByOwnerIdWithoutNextBookingAfter(1L, now, 1L, page));
+        assertIndexUsed(() -> itemRepository.findByIdGreaterThanOrderByIdAsc(1L, page));
+        assertIndexUsed(() -> itemRepository.findByRequestIdIn(List.of(1L, 2L)));
+        assertIndexUsed(() -> itemRepository.findViewById(1L));
+        assertIndexUsed(() -> itemRepository.findViewsByIdIn(List.of(1L, 2L)));
+        assertIndexUsed(() -> commentRepository.findDtoByItemId(1L));
+    }
+
+    @Test
+    void requestQueriesTest() {
+        assertIndexUsed(() -> itemRequestRepository.findViewById(1L));
+        assertIndexUsed(() -> itemRequestRepository.findByRequestorIdOrderByCreatedDesc(1L));
+        assertIndexUsed(() -> itemRequestRepository.findByRequestorIdNotOrderByCreatedDesc(1L, page));
+        assertIndexUsed(() -> itemRequestRepository.findByRequestorIdNotBefore(1L, now, 1L, page));
+    }
+
+    private void assertIndexUsed(Runnable query) {
+        query.run();
+        String sql = SqlCaptureInspector.lastSelect();
+        String plan = jdbcTemplate.query(connection -> connection.prepareStatement("explain " + sql),
+                rs -> rs.next() ? rs.getString(1) : null);
+
+        assertNotNull(plan);
+        assertFalse(plan.contains(".tableScan"), String.format("Полный просмотр таблицы:%n%s", plan));
+    }
+}
@@ -5,22 +5,36 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exception.model.NotAvailableException;
+import ru.practicum.shareit.exception.model.NotFoundException;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.KeysetCursor;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -57,6 +71,27 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$[0].status", is(bookingDto.getStatus().toString())));
     }
 
+    @Test
+    void getBookingsByUserIdWithCursorTest() throws Exception {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2030, 1, 1, 12, 0), 5L);
+        when(bookingService.getBookingsByUserId(anyLong(), any(), any(KeysetCursor.class), anyInt()))
+                .thenReturn(List.of(bookingDto));
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("state", "FUTURE")
+                        .param("cursor", cursor.encode())
+                        .param("size", "1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(KeysetCursor.NEXT_CURSOR_HEADER,
+                        new KeysetCursor(bookingDto.getStart(), bookingDto.getId()).encode()))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(bookingDto.getId()), Long.class));
+        verify(bookingService, times(1)).getBookingsByUserId(1L, BookingState.FUTURE, cursor, 1);
+    }
+
     @Test
     void getBookingByIdTest() throws Exception {
         when(bookingService.getBookingById(anyLong(), anyLong()))
@@ -89,6 +124,44 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$[0].status", is(bookingDto.getStatus().toString())));
     }
 
+    @Test
+    void getBookingsByOwnerIdTest_whenIfNoneMatchIsCurrentETag_thenNotModified() throws Exception {
+        when(bookingService.getBookingsByOwnerId(anyLong(), any(), anyInt(), anyInt()))
+                .thenReturn(List.of(bookingDto));
+        String etag = mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("size", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .param("size", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getBookingsByOwnerIdWithCursorTest() throws Exception {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2030, 1, 1, 12, 0), 5L);
+        when(bookingService.getBookingsByOwnerId(anyLong(), any(), any(KeysetCursor.class), anyInt()))
+                .thenReturn(List.of(bookingDto));
+
+        mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("cursor", cursor.encode())
+                        .param("size", "2")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(KeysetCursor.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$", hasSize(1)));
+        verify(bookingService, times(1)).getBookingsByOwnerId(1L, null, cursor, 2);
+    }
+
     @Test
     void createTest() throws Exception {
         when(bookingService.create(anyLong(), any()))
@@ -134,4 +207,85 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.id", is(bookingDto.getId()), Long.class))
                 .andExpect(jsonPath("$.status", is(bookingDto.getStatus().toString())));
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateTest_whenBookingChangedConcurrently_thenConflict() throws Exception {
+        when(bookingService.update(anyLong(), anyLong(), anyBoolean()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 1L));
+
+        mvc.perform(patch("/bookings/{bookingId}", 1)
+                        .header("X-Sharer-User-Id", 1)
+                        .param("approved", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void updateAllTest() throws Exception {
+        BookingDto approvedBookingDto = BookingDto.builder()
+                .id(1L)
+                .status(BookingStatus.APPROVED)
+                .build();
+        when(bookingService.updateAll(anyLong(), anyList()))
+                .thenReturn(List.of(BatchResult.ok(0, approvedBookingDto),
+                        BatchResult.failed(1, HttpStatus.BAD_REQUEST, "Бронирование с ID = 2 уже подтверждено!")));
+
+        mvc.perform(patch("/bookings/batch")
+                        .content(mapper.writeValueAsString(List.of(
+                                BookingDecisionDto.builder().bookingId(1L).approved(true).build(),
+                                BookingDecisionDto.builder().bookingId(2L).approved(false).build())))
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].status", is(200)))
+                .andExpect(jsonPath("$[0].result.status", is("APPROVED")))
+                .andExpect(jsonPath("$[1].status", is(400)))
+                .andExpect(jsonPath("$[1].error", is("Бронирование с ID = 2 уже подтверждено!")))
+                .andExpect(jsonPath("$[1].result").doesNotExist());
+        verify(bookingService).updateAll(eq(1L), argThat(decisions -> decisions.size() == 2
+                && decisions.get(0).getApproved() && !decisions.get(1).getApproved()));
+    }
+
+    @Test
+    void exportBookingsByOwnerIdTest() throws Exception {
+        BookingDto secondBookingDto = BookingDto.builder()
+                .id(2L)
+                .status(BookingStatus.APPROVED)
+                .build();
+        doAnswer(invocation -> {
+            Consumer<BookingDto> consumer = invocation.getArgument(2);
+            consumer.accept(bookingDto);
+            consumer.accept(secondBookingDto);
+            return null;
+        }).when(bookingService).exportBookingsByOwnerId(anyLong(), any(), any());
+
+        String body = mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("state", "ALL"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(bookingDto.getId(), mapper.readValue(lines[0], BookingDto.class).getId());
+        assertEquals(BookingStatus.APPROVED, mapper.readValue(lines[1], BookingDto.class).getStatus());
+        assertTrue(body.endsWith("\n"));
+        verify(bookingService).exportBookingsByOwnerId(eq(1L), eq(BookingState.ALL), any());
+    }
+
+    @Test
+    void exportBookingsByUserIdTest_whenUserNotExists_thenNotFound() throws Exception {
+        doThrow(new NotFoundException("Пользователя с ID = 1 не существует."))
+                .when(bookingService).exportBookingsByUserId(anyLong(), any(), any());
+
+        mvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.error", is("Пользователя с ID = 1 не существует.")));
+    }
+}
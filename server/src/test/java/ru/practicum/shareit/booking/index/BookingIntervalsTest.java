@@ -0,0 +1,97 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingIntervalsTest {
+    private final LocalDateTime now = LocalDateTime.of(2023, 1, 10, 12, 0);
+    private BookingIntervals intervals;
+
+    @BeforeEach
+    void beforeEach() {
+        intervals = new BookingIntervals();
+        intervals.put(3L, 30L, now.plusDays(1), now.plusDays(2));
+        intervals.put(1L, 10L, now.minusDays(5), now.plusDays(3));
+        intervals.put(2L, 20L, now.minusDays(2), now.minusDays(1));
+        intervals.put(4L, 40L, now.plusDays(5), now.plusDays(6));
+    }
+
+    @Test
+    void overlapsTest() {
+        assertTrue(intervals.overlaps(now.plusDays(2), now.plusDays(4)));
+        assertTrue(intervals.overlaps(now.plusDays(4), now.plusDays(7)));
+        assertFalse(intervals.overlaps(now.plusDays(3), now.plusDays(5)));
+        assertFalse(intervals.overlaps(now.plusDays(6), now.plusDays(7)));
+        assertFalse(intervals.overlaps(now.minusDays(10), now.minusDays(5)));
+    }
+
+    @Test
+    void lastTest_whenLongBookingEndsLatest_thenItIsLast() {
+        assertEquals(1L, intervals.last(now).getId());
+        assertEquals(10L, intervals.last(now).getBooker().getId());
+        assertNull(intervals.last(now.minusDays(6)));
+    }
+
+    @Test
+    void lastTest_whenEndsEqual_thenGreaterIdIsLast() {
+        intervals.put(5L, 50L, now.minusDays(4), now.plusDays(3));
+
+        assertEquals(5L, intervals.last(now).getId());
+    }
+
+    @Test
+    void nextTest() {
+        assertEquals(3L, intervals.next(now).getId());
+        assertEquals(now.plusDays(1), intervals.next(now).getStart());
+        assertEquals(4L, intervals.next(now.plusDays(1)).getId());
+        assertNull(intervals.next(now.plusDays(5)));
+    }
+
+    @Test
+    void putTest_whenBookingMoved_thenOldIntervalReplaced() {
+        intervals.put(3L, 30L, now.plusDays(10), now.plusDays(11));
+
+        assertEquals(4, intervals.size());
+        assertEquals(4L, intervals.next(now).getId());
+        assertFalse(intervals.overlaps(now.plusDays(3), now.plusDays(5)));
+    }
+
+    @Test
+    void removeTest() {
+        assertTrue(intervals.remove(1L));
+        assertFalse(intervals.remove(1L));
+
+        assertEquals(3, intervals.size());
+        assertEquals(2L, intervals.last(now).getId());
+        assertFalse(intervals.overlaps(now.plusDays(2), now.plusDays(4)));
+    }
+
+    @Test
+    void removeEndedTest_whenBookingsEnded_thenOnlyLastOfThemKept() {
+        intervals.removeEnded(now.plusDays(4));
+
+        assertEquals(2, intervals.size());
+        assertEquals(1L, intervals.last(now.plusDays(4)).getId());
+        assertEquals(4L, intervals.next(now.plusDays(4)).getId());
+        assertTrue(intervals.overlaps(now.plusDays(5), now.plusDays(7)));
+    }
+
+    @Test
+    void removeEndedTest_whenManyBookingsEnded_thenStillUsableAfterShrinking() {
+        for (long id = 10; id < 100; id++) {
+            intervals.put(id, id, now.minusDays(300 - id), now.minusDays(299 - id));
+        }
+
+        intervals.removeEnded(now.plusDays(4));
+        intervals.put(100L, 100L, now.plusDays(7), now.plusDays(8));
+
+        assertEquals(3, intervals.size());
+        assertEquals(1L, intervals.last(now.plusDays(4)).getId());
+        assertEquals(100L, intervals.next(now.plusDays(6)).getId());
+        assertFalse(intervals.overlaps(now.minusDays(250), now.minusDays(200)));
+    }
+}
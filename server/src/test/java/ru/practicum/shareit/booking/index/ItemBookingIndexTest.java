@@ -0,0 +1,141 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class ItemBookingIndexTest {
+    @Mock
+    private BookingRepository bookingRepository;
+    @InjectMocks
+    private ItemBookingIndex itemBookingIndex;
+    private final LocalDateTime now = LocalDateTime.now();
+    private Item item;
+    private Item item2;
+    private User booker;
+
+    @BeforeEach
+    void beforeEach() {
+        item = Item.builder().id(1L).build();
+        item2 = Item.builder().id(2L).build();
+        booker = User.builder().id(5L).build();
+    }
+
+    @Test
+    void findLastAndNextBookingsTest_whenItemsNotLoaded_thenLoadedInOneQuery() {
+        Booking last = booking(1L, item, now.minusDays(2), now.minusDays(1), BookingStatus.APPROVED);
+        Booking next = booking(2L, item, now.plusDays(1), now.plusDays(2), BookingStatus.APPROVED);
+        Booking waiting = booking(3L, item2, now.plusDays(1), now.plusDays(2), BookingStatus.WAITING);
+        Mockito.when(bookingRepository.findByItemIdInAndStatusInAndEndIsAfter(eq(Set.of(1L, 2L)),
+                eq(List.of(BookingStatus.APPROVED, BookingStatus.WAITING)), any())).thenReturn(List.of(next, waiting));
+        Mockito.when(bookingRepository.findLastEndedByItemIdIn(eq(Set.of(1L, 2L)), any())).thenReturn(List.of(last));
+
+        Map<Long, Booking> lastBookings = itemBookingIndex.findLastBookings(List.of(1L, 2L), now);
+        Map<Long, Booking> nextBookings = itemBookingIndex.findNextBookings(List.of(1L, 2L), now);
+
+        assertEquals(Set.of(1L), lastBookings.keySet());
+        assertEquals(last.getId(), lastBookings.get(1L).getId());
+        assertEquals(booker.getId(), lastBookings.get(1L).getBooker().getId());
+        assertEquals(Set.of(1L), nextBookings.keySet());
+        assertEquals(next.getId(), nextBookings.get(1L).getId());
+        assertTrue(itemBookingIndex.hasOverlap(2L, now.plusHours(36), now.plusDays(3)));
+        Mockito.verify(bookingRepository, Mockito.times(1)).findByItemIdInAndStatusInAndEndIsAfter(anyCollection(),
+                anyCollection(), any());
+    }
+
+    @Test
+    void updateTest_whenBookingCreatedApprovedAndRejected_thenIndexFollows() {
+        assertFalse(itemBookingIndex.hasOverlap(1L, now.plusDays(1), now.plusDays(2)));
+        Booking booking = booking(1L, item, now.plusDays(1), now.plusDays(2), BookingStatus.WAITING);
+
+        itemBookingIndex.update(booking);
+        assertTrue(itemBookingIndex.hasOverlap(1L, now.plusHours(30), now.plusDays(3)));
+        assertTrue(itemBookingIndex.findNextBookings(List.of(1L), now).isEmpty());
+
+        booking.setStatus(BookingStatus.APPROVED);
+        itemBookingIndex.update(booking);
+        assertEquals(booking.getId(), itemBookingIndex.findNextBookings(List.of(1L), now).get(1L).getId());
+
+        booking.setStatus(BookingStatus.REJECTED);
+        itemBookingIndex.update(booking);
+        assertFalse(itemBookingIndex.hasOverlap(1L, now.plusHours(30), now.plusDays(3)));
+        assertTrue(itemBookingIndex.findNextBookings(List.of(1L), now).isEmpty());
+        Mockito.verify(bookingRepository, Mockito.times(1)).findByItemIdInAndStatusInAndEndIsAfter(anyCollection(),
+                anyCollection(), any());
+    }
+
+    @Test
+    void updateTest_whenItemNotLoaded_thenLoadedFromRepositoryLater() {
+        Booking booking = booking(1L, item, now.plusDays(1), now.plusDays(2), BookingStatus.APPROVED);
+        itemBookingIndex.update(booking);
+        Mockito.when(bookingRepository.findByItemIdInAndStatusInAndEndIsAfter(anyCollection(), anyCollection(), any()))
+                .thenReturn(List.of(booking));
+
+        assertTrue(itemBookingIndex.hasOverlap(1L, now.plusDays(1), now.plusDays(2)));
+    }
+
+    @Test
+    void evictTest_whenItemEvicted_thenReloaded() {
+        itemBookingIndex.hasOverlap(1L, now.plusDays(1), now.plusDays(2));
+        itemBookingIndex.hasOverlap(2L, now.plusDays(1), now.plusDays(2));
+
+        itemBookingIndex.evict(1L);
+        itemBookingIndex.hasOverlap(1L, now.plusDays(1), now.plusDays(2));
+        itemBookingIndex.hasOverlap(2L, now.plusDays(1), now.plusDays(2));
+        itemBookingIndex.evictAll();
+        itemBookingIndex.hasOverlap(2L, now.plusDays(1), now.plusDays(2));
+
+        Mockito.verify(bookingRepository, Mockito.times(4)).findByItemIdInAndStatusInAndEndIsAfter(anyCollection(),
+                anyCollection(), any());
+    }
+
+    @Test
+    void hasOverlapTest_whenRangeReachesBeforeKeptBookings_thenCheckedInRepository() {
+        Mockito.when(bookingRepository.existsByItemIdAndStatusInAndStartIsBeforeAndEndIsAfter(1L,
+                List.of(BookingStatus.APPROVED), now.minusDays(1), now.minusDays(3))).thenReturn(true);
+
+        assertTrue(itemBookingIndex.hasApprovedOverlap(1L, now.minusDays(3), now.minusDays(1)));
+        assertFalse(itemBookingIndex.hasApprovedOverlap(1L, now.plusDays(1), now.plusDays(2)));
+        Mockito.verify(bookingRepository, Mockito.times(1)).existsByItemIdAndStatusInAndStartIsBeforeAndEndIsAfter(
+                anyLong(), anyCollection(), any(), any());
+    }
+
+    @Test
+    void readTest_whenIndexFull_thenDroppedAndItemsLoadedAgain() {
+        List<Long> itemIds = LongStream.rangeClosed(1, 10_000).boxed().collect(Collectors.toList());
+        itemBookingIndex.findNextBookings(itemIds, now);
+
+        itemBookingIndex.hasOverlap(10_001L, now.plusDays(1), now.plusDays(2));
+        itemBookingIndex.hasOverlap(1L, now.plusDays(1), now.plusDays(2));
+
+        Mockito.verify(bookingRepository, Mockito.times(3)).findByItemIdInAndStatusInAndEndIsAfter(anyCollection(),
+                anyCollection(), any());
+    }
+
+    private Booking booking(Long id, Item item, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return Booking.builder().id(id).item(item).booker(booker).start(start).end(end).status(status).build();
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemBookingLocksTest {
+    private final ItemBookingLocks itemBookingLocks = new ItemBookingLocks();
+
+    @AfterEach
+    void afterEach() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void lockTest_whenTransactionActive_thenLockHeldUntilCompletion() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        itemBookingLocks.lock(1L);
+
+        CompletableFuture<Void> sameItem = CompletableFuture.runAsync(() -> itemBookingLocks.lock(1L));
+        CompletableFuture<Void> otherItem = CompletableFuture.runAsync(() -> itemBookingLocks.lock(2L));
+
+        otherItem.get(1, TimeUnit.SECONDS);
+        assertThrows(TimeoutException.class, () -> sameItem.get(200, TimeUnit.MILLISECONDS));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        sameItem.get(1, TimeUnit.SECONDS);
+        assertTrue(sameItem.isDone());
+    }
+}
@@ -7,12 +7,18 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.OffsetPageRequest;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,7 +52,7 @@ class BookingRepositoryTest {
     }
 
     @Test
-    void findByBookerIdOrderByStartDescTest() {
+    void findByFilterTest_whenBookerAndStateAll() {
         List<Booking> bookings = List.of(
                 Booking.builder().start(LocalDateTime.now().plusDays(1)).end(LocalDateTime.now().plusDays(2))
                         .item(items.get(0)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
@@ -59,16 +65,16 @@ class BookingRepositoryTest {
             em.persist(booking);
         }
 
-        List<Booking> bookingsByBookerId = repository.findByBookerIdOrderByStartDesc(users.get(2).getId(),
-                PageRequest.of(0, 3));
+        List<BookingView> bookingsByBookerId = repository.findByFilter(filter(BookingRole.BOOKER, users.get(2).getId(),
+                BookingState.ALL), PageRequest.of(0, 3));
 
         assertEquals(2, bookingsByBookerId.size());
-        assertEquals(bookings.get(1), bookingsByBookerId.get(0));
-        assertEquals(bookings.get(0), bookingsByBookerId.get(1));
+        assertEquals(bookings.get(1).getId(), bookingsByBookerId.get(0).getId());
+        assertEquals(bookings.get(0).getId(), bookingsByBookerId.get(1).getId());
     }
 
     @Test
-    void findByItemOwnerIdOrderByStartDescTest() {
+    void findByFilterTest_whenOwnerAndStateAll() {
         List<Booking> bookings = List.of(
                 Booking.builder().start(LocalDateTime.now().plusDays(1)).end(LocalDateTime.now().plusDays(2))
                         .item(items.get(0)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
@@ -81,16 +87,16 @@ class BookingRepositoryTest {
             em.persist(booking);
         }
 
-        List<Booking> bookingsByOwnerId = repository.findByItemOwnerIdOrderByStartDesc(users.get(0).getId(),
-                PageRequest.of(0, 3));
+        List<BookingView> bookingsByOwnerId = repository.findByFilter(filter(BookingRole.OWNER, users.get(0).getId(),
+                BookingState.ALL), PageRequest.of(0, 3));
 
         assertEquals(2, bookingsByOwnerId.size());
-        assertEquals(bookings.get(2), bookingsByOwnerId.get(0));
-        assertEquals(bookings.get(0), bookingsByOwnerId.get(1));
+        assertEquals(bookings.get(2).getId(), bookingsByOwnerId.get(0).getId());
+        assertEquals(bookings.get(0).getId(), bookingsByOwnerId.get(1).getId());
     }
 
     @Test
-    void findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDescTest() {
+    void findByFilterTest_whenBookerAndStateCurrent() {
         List<Booking> bookings = List.of(
                 Booking.builder().start(LocalDateTime.now().minusDays(1)).end(LocalDateTime.now().plusDays(2))
                         .item(items.get(0)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
@@ -103,16 +109,15 @@ class BookingRepositoryTest {
             em.persist(booking);
         }
 
-        List<Booking> bookingsResponse = repository
-                .findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(users.get(2).getId(),
-                        LocalDateTime.now(), LocalDateTime.now(), PageRequest.of(0, 3));
+        List<BookingView> bookingsResponse = repository.findByFilter(filter(BookingRole.BOOKER, users.get(2).getId(),
+                BookingState.CURRENT), PageRequest.of(0, 3));
 
         assertEquals(1, bookingsResponse.size());
-        assertEquals(bookings.get(0), bookingsResponse.get(0));
+        assertEquals(bookings.get(0).getId(), bookingsResponse.get(0).getId());
     }
 
     @Test
-    void findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDescTest() {
+    void findByFilterTest_whenOwnerAndStateCurrent() {
         List<Booking> bookings = List.of(
                 Booking.builder().start(LocalDateTime.now().minusDays(1)).end(LocalDateTime.now().plusDays(2))
                         .item(items.get(0)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
@@ -125,17 +130,16 @@ class BookingRepositoryTest {
             em.persist(booking);
         }
 
-        List<Booking> bookingsResponse = repository
-                .findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(users.get(0).getId(),
-                        LocalDateTime.now(), LocalDateTime.now(), PageRequest.of(0, 3));
+        List<BookingView> bookingsResponse = repository.findByFilter(filter(BookingRole.OWNER, users.get(0).getId(),
+                BookingState.CURRENT), PageRequest.of(0, 3));
 
         assertEquals(2, bookingsResponse.size());
-        assertEquals(bookings.get(0), bookingsResponse.get(0));
-        assertEquals(bookings.get(2), bookingsResponse.get(1));
+        assertEquals(bookings.get(0).getId(), bookingsResponse.get(0).getId());
+        assertEquals(bookings.get(2).getId(), bookingsResponse.get(1).getId());
     }
 
     @Test
-    void findByBookerIdAndEndIsBeforeOrderByStartDescTest() {
+    void findByFilterTest_whenBookerAndStatePast() {
         List<Booking> bookings = List.of(
                 Booking.builder().start(LocalDateTime.now().minusDays(2)).end(LocalDateTime.now().minusDays(1))
                         .item(items.get(0)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
@@ -148,16 +152,15 @@ class BookingRepositoryTest {
             em.persist(booking);
         }
 
-        List<Booking> bookingsResponse = repository
-                .findByBookerIdAndEndIsBeforeOrderByStartDesc(users.get(2).getId(),
-                        LocalDateTime.now(), PageRequest.of(0, 3));
+        List<BookingView> bookingsResponse = repository.findByFilter(filter(BookingRole.BOOKER, users.get(2).getId(),
+                BookingState.PAST), PageRequest.of(0, 3));
 
         assertEquals(1, bookingsResponse.size());
-        assertEquals(bookings.get(0), bookingsResponse.get(0));
+        assertEquals(bookings.get(0).getId(), bookingsResponse.get(0).getId());
     }
 
     @Test
-    void findByItemOwnerIdAndEndIsBeforeOrderByStartDescTest() {
+    void findByFilterTest_whenOwnerAndStatePast() {
         List<Booking> bookings = List.of(
                 Booking.builder().start(LocalDateTime.now().minusDays(2)).end(LocalDateTime.now().minusDays(1))
                         .item(items.get(0)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
@@ -170,16 +173,15 @@ class BookingRepositoryTest {
             em.persist(booking);
         }
 
-        List<Booking> bookingsResponse = repository
-                .findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(users.get(0).getId(),
-                        LocalDateTime.now(), PageRequest.of(0, 3));
+        List<BookingView> bookingsResponse = repository.findByFilter(filter(BookingRole.OWNER, users.get(0).getId(),
+                BookingState.PAST), PageRequest.of(0, 3));
 
         assertEquals(1, bookingsResponse.size());
-        assertEquals(bookings.get(0), bookingsResponse.get(0));
+        assertEquals(bookings.get(0).getId(), bookingsResponse.get(0).getId());
     }
 
     @Test
-    void findByBookerIdAndStartIsAfterOrderByStartDescTest() {
+    void findByFilterTest_whenBookerAndStateFuture() {
         List<Booking> bookings = List.of(
                 Booking.builder().start(LocalDateTime.now().minusDays(2)).end(LocalDateTime.now().minusDays(1))
                         .item(items.get(0)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
@@ -192,16 +194,15 @@ class BookingRepositoryTest {
             em.persist(booking);
         }
 
-        List<Booking> bookingsResponse = repository
-                .findByBookerIdAndStartIsAfterOrderByStartDesc(users.get(2).getId(),
-                        LocalDateTime.now(), PageRequest.of(0, 3));
+        List<BookingView> bookingsResponse = repository.findByFilter(filter(BookingRole.BOOKER, users.get(2).getId(),
+                BookingState.FUTURE), PageRequest.of(0, 3));
 
         assertEquals(1, bookingsResponse.size());
-        assertEquals(bookings.get(1), bookingsResponse.get(0));
+        assertEquals(bookings.get(1).getId(), bookingsResponse.get(0).getId());
     }
 
     @Test
-    void findByItemOwnerIdAndStartIsAfterOrderByStartDescTest() {
+    void findByFilterTest_whenOwnerAndStateFuture() {
         List<Booking> bookings = List.of(
                 Booking.builder().start(LocalDateTime.now().plusDays(2)).end(LocalDateTime.now().plusDays(1))
                         .item(items.get(0)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
@@ -214,16 +215,15 @@ class BookingRepositoryTest {
             em.persist(booking);
         }
 
-        List<Booking> bookingsResponse = repository
-                .findByItemOwnerIdAndStartIsAfterOrderByStartDesc(users.get(0).getId(),
-                        LocalDateTime.now(), PageRequest.of(0, 3));
+        List<BookingView> bookingsResponse = repository.findByFilter(filter(BookingRole.OWNER, users.get(0).getId(),
+                BookingState.FUTURE), PageRequest.of(0, 3));
 
         assertEquals(1, bookingsResponse.size());
-        assertEquals(bookings.get(0), bookingsResponse.get(0));
+        assertEquals(bookings.get(0).getId(), bookingsResponse.get(0).getId());
     }
 
     @Test
-    void findByBookerIdAndStatusOrderByStartDescTest() {
+    void findByFilterTest_whenBookerAndStateRejected() {
         List<Booking> bookings = List.of(
                 Booking.builder().start(LocalDateTime.now().plusDays(2)).end(LocalDateTime.now().plusDays(1))
                         .item(items.get(0)).booker(users.get(2)).status(BookingStatus.REJECTED).build(),
@@ -236,16 +236,15 @@ class BookingRepositoryTest {
             em.persist(booking);
         }
 
-        List<Booking> bookingsResponse = repository
-                .findByBookerIdAndStatusOrderByStartDesc(users.get(2).getId(),
-                        BookingStatus.REJECTED, PageRequest.of(0, 3));
+        List<BookingView> bookingsResponse = repository.findByFilter(filter(BookingRole.BOOKER, users.get(2).getId(),
+                BookingState.REJECTED), PageRequest.of(0, 3));
 
         assertEquals(1, bookingsResponse.size());
-        assertEquals(bookings.get(0), bookingsResponse.get(0));
+        assertEquals(bookings.get(0).getId(), bookingsResponse.get(0).getId());
     }
 
     @Test
-    void findByItemOwnerIdAndStatusOrderByStartDescTest() {
+    void findByFilterTest_whenOwnerAndStateRejected() {
         List<Booking> bookings = List.of(
                 Booking.builder().start(LocalDateTime.now().plusDays(2)).end(LocalDateTime.now().plusDays(1))
                         .item(items.get(0)).booker(users.get(2)).status(BookingStatus.REJECTED).build(),
@@ -258,54 +257,81 @@ class BookingRepositoryTest {
             em.persist(booking);
         }
 
-        List<Booking> bookingsResponse = repository
-                .findByItemOwnerIdAndStatusOrderByStartDesc(users.get(0).getId(),
-                        BookingStatus.REJECTED, PageRequest.of(0, 3));
+        List<BookingView> bookingsResponse = repository.findByFilter(filter(BookingRole.OWNER, users.get(0).getId(),
+                BookingState.REJECTED), PageRequest.of(0, 3));
 
         assertEquals(1, bookingsResponse.size());
-        assertEquals(bookings.get(0), bookingsResponse.get(0));
+        assertEquals(bookings.get(0).getId(), bookingsResponse.get(0).getId());
     }
 
     @Test
-    void findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDescTest() {
+    void findByItemIdInAndStatusInAndEndIsAfterTest() {
         List<Booking> bookings = List.of(
                 Booking.builder().start(LocalDateTime.now().minusDays(1)).end(LocalDateTime.now().minusHours(1))
                         .item(items.get(0)).booker(users.get(2)).status(BookingStatus.APPROVED).build(),
                 Booking.builder().start(LocalDateTime.now().plusDays(2)).end(LocalDateTime.now().plusDays(3))
                         .item(items.get(1)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
-                Booking.builder().start(LocalDateTime.now().minusDays(2)).end(LocalDateTime.now().plusDays(3))
-                        .item(items.get(0)).booker(users.get(1)).status(BookingStatus.APPROVED).build()
+                Booking.builder().start(LocalDateTime.now().plusDays(4)).end(LocalDateTime.now().plusDays(5))
+                        .item(items.get(0)).booker(users.get(1)).status(BookingStatus.REJECTED).build(),
+                Booking.builder().start(LocalDateTime.now().minusHours(2)).end(LocalDateTime.now().plusDays(2))
+                        .item(items.get(0)).booker(users.get(1)).status(BookingStatus.APPROVED).build(),
+                Booking.builder().start(LocalDateTime.now().plusDays(3)).end(LocalDateTime.now().plusDays(4))
+                        .item(items.get(2)).booker(users.get(0)).status(BookingStatus.APPROVED).build()
         );
         for (Booking booking : bookings) {
             em.persist(booking);
         }
 
-        Booking bookingResponse = repository
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(items.get(0).getId(),
-                        BookingStatus.APPROVED, LocalDateTime.now());
+        List<Booking> bookingsResponse = repository.findByItemIdInAndStatusInAndEndIsAfter(
+                List.of(items.get(0).getId(), items.get(1).getId()),
+                List.of(BookingStatus.APPROVED, BookingStatus.WAITING), LocalDateTime.now());
 
-        assertEquals(bookings.get(2), bookingResponse);
+        assertEquals(2, bookingsResponse.size());
+        assertTrue(bookingsResponse.contains(bookings.get(1)));
+        assertTrue(bookingsResponse.contains(bookings.get(3)));
     }
 
     @Test
-    void findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAscTest() {
+    void findLastEndedByItemIdInTest() {
         List<Booking> bookings = List.of(
-                Booking.builder().start(LocalDateTime.now().plusMinutes(10)).end(LocalDateTime.now().plusHours(1))
+                Booking.builder().start(LocalDateTime.now().minusDays(5)).end(LocalDateTime.now().minusDays(4))
                         .item(items.get(0)).booker(users.get(2)).status(BookingStatus.APPROVED).build(),
-                Booking.builder().start(LocalDateTime.now().plusDays(2)).end(LocalDateTime.now().plusDays(3))
-                        .item(items.get(1)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
-                Booking.builder().start(LocalDateTime.now().minusDays(2)).end(LocalDateTime.now().plusDays(3))
-                        .item(items.get(0)).booker(users.get(1)).status(BookingStatus.APPROVED).build()
+                Booking.builder().start(LocalDateTime.now().minusDays(3)).end(LocalDateTime.now().minusDays(2))
+                        .item(items.get(0)).booker(users.get(1)).status(BookingStatus.APPROVED).build(),
+                Booking.builder().start(LocalDateTime.now().minusDays(2)).end(LocalDateTime.now().minusDays(1))
+                        .item(items.get(0)).booker(users.get(1)).status(BookingStatus.REJECTED).build(),
+                Booking.builder().start(LocalDateTime.now().minusHours(1)).end(LocalDateTime.now().plusDays(1))
+                        .item(items.get(0)).booker(users.get(2)).status(BookingStatus.APPROVED).build(),
+                Booking.builder().start(LocalDateTime.now().minusDays(3)).end(LocalDateTime.now().minusDays(1))
+                        .item(items.get(2)).booker(users.get(0)).status(BookingStatus.APPROVED).build()
         );
         for (Booking booking : bookings) {
             em.persist(booking);
         }
 
-        Booking bookingResponse = repository
-                .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(items.get(0).getId(),
-                        BookingStatus.APPROVED, LocalDateTime.now());
+        List<Booking> bookingsResponse = repository.findLastEndedByItemIdIn(List.of(items.get(0).getId(),
+                items.get(1).getId(), items.get(2).getId()), LocalDateTime.now());
 
-        assertEquals(bookings.get(0), bookingResponse);
+        assertEquals(2, bookingsResponse.size());
+        assertTrue(bookingsResponse.contains(bookings.get(1)));
+        assertTrue(bookingsResponse.contains(bookings.get(4)));
+    }
+
+    @Test
+    void existsByItemIdAndStatusInAndStartIsBeforeAndEndIsAfterTest() {
+        //whole seconds, so the stored times compare equal to the ones passed
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Booking booking = Booking.builder().start(now.minusDays(3)).end(now.minusDays(2)).item(items.get(0))
+                .booker(users.get(2)).status(BookingStatus.APPROVED).build();
+        em.persist(booking);
+        List<BookingStatus> statuses = List.of(BookingStatus.APPROVED);
+
+        assertTrue(repository.existsByItemIdAndStatusInAndStartIsBeforeAndEndIsAfter(items.get(0).getId(), statuses,
+                booking.getEnd(), booking.getStart().minusDays(1)));
+        assertFalse(repository.existsByItemIdAndStatusInAndStartIsBeforeAndEndIsAfter(items.get(0).getId(),
+                statuses, booking.getStart(), booking.getStart().minusDays(1)));
+        assertFalse(repository.existsByItemIdAndStatusInAndStartIsBeforeAndEndIsAfter(items.get(1).getId(),
+                statuses, booking.getEnd(), booking.getStart()));
     }
 
     @Test
@@ -329,4 +355,195 @@ class BookingRepositoryTest {
         assertEquals(1, bookingsResponse.size());
         assertEquals(bookings.get(0), bookingsResponse.get(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByFilterTest_whenBookerAndKeyset_thenPagedBeforeCursor() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Booking> bookings = List.of(
+                Booking.builder().start(now.minusDays(3)).end(now.minusDays(2))
+                        .item(items.get(0)).booker(users.get(2)).status(BookingStatus.APPROVED).build(),
+                Booking.builder().start(now.plusDays(1)).end(now.plusDays(2))
+                        .item(items.get(1)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
+                Booking.builder().start(now.plusDays(1)).end(now.plusDays(3))
+                        .item(items.get(2)).booker(users.get(2)).status(BookingStatus.REJECTED).build(),
+                Booking.builder().start(now.plusDays(2)).end(now.plusDays(3))
+                        .item(items.get(0)).booker(users.get(1)).status(BookingStatus.WAITING).build()
+        );
+        for (Booking booking : bookings) {
+            em.persist(booking);
+        }
+        Long bookerId = users.get(2).getId();
+        LocalDateTime maxStart = now.plusYears(1);
+
+        List<BookingView> firstPage = findBefore(BookingRole.BOOKER, bookerId, BookingState.ALL, now, maxStart,
+                Long.MAX_VALUE, 2);
+        List<BookingView> secondPage = findBefore(BookingRole.BOOKER, bookerId, BookingState.ALL, now,
+                firstPage.get(1).getStart(), firstPage.get(1).getId(), 2);
+
+        assertEquals(List.of(bookings.get(2).getId(), bookings.get(1).getId()), ids(firstPage));
+        assertEquals(List.of(bookings.get(0).getId()), ids(secondPage));
+        assertEquals(List.of(bookings.get(0).getId()),
+                ids(findBefore(BookingRole.BOOKER, bookerId, BookingState.PAST, now, maxStart, Long.MAX_VALUE, 5)));
+        assertEquals(List.of(bookings.get(2).getId(), bookings.get(1).getId()),
+                ids(findBefore(BookingRole.BOOKER, bookerId, BookingState.FUTURE, now, maxStart, Long.MAX_VALUE, 5)));
+        assertEquals(List.of(bookings.get(1).getId()),
+                ids(findBefore(BookingRole.BOOKER, bookerId, BookingState.WAITING, now, maxStart, Long.MAX_VALUE, 5)));
+        assertTrue(findBefore(BookingRole.BOOKER, bookerId, BookingState.CURRENT, now, maxStart, Long.MAX_VALUE, 5)
+                .isEmpty());
+    }
+
+    @Test
+    void findByFilterTest_whenOwnerAndKeyset_thenPagedBeforeCursor() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Booking> bookings = List.of(
+                Booking.builder().start(now.minusDays(1)).end(now.plusDays(1))
+                        .item(items.get(1)).booker(users.get(2)).status(BookingStatus.APPROVED).build(),
+                Booking.builder().start(now.plusDays(1)).end(now.plusDays(2))
+                        .item(items.get(2)).booker(users.get(2)).status(BookingStatus.REJECTED).build(),
+                Booking.builder().start(now.plusDays(1)).end(now.plusDays(2))
+                        .item(items.get(0)).booker(users.get(2)).status(BookingStatus.REJECTED).build()
+        );
+        for (Booking booking : bookings) {
+            em.persist(booking);
+        }
+        Long ownerId = users.get(1).getId();
+        LocalDateTime maxStart = now.plusYears(1);
+
+        assertEquals(List.of(bookings.get(0).getId()),
+                ids(findBefore(BookingRole.OWNER, ownerId, BookingState.CURRENT, now, maxStart, Long.MAX_VALUE, 5)));
+        assertEquals(List.of(bookings.get(1).getId()),
+                ids(findBefore(BookingRole.OWNER, ownerId, BookingState.REJECTED, now, maxStart, Long.MAX_VALUE, 5)));
+        assertEquals(List.of(bookings.get(0).getId()),
+                ids(findBefore(BookingRole.OWNER, ownerId, BookingState.ALL, now, bookings.get(1).getStart(),
+                        bookings.get(1).getId(), 5)));
+    }
+
+    @Test
+    void findByFilterTest_whenItemIdAndRangeSet_thenOnlyMatchingBookingsReturned() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Booking> bookings = List.of(
+                Booking.builder().start(now.plusDays(1)).end(now.plusDays(2))
+                        .item(items.get(1)).booker(users.get(2)).status(BookingStatus.APPROVED).build(),
+                Booking.builder().start(now.plusDays(5)).end(now.plusDays(6))
+                        .item(items.get(1)).booker(users.get(2)).status(BookingStatus.APPROVED).build(),
+                Booking.builder().start(now.plusDays(1)).end(now.plusDays(2))
+                        .item(items.get(2)).booker(users.get(2)).status(BookingStatus.APPROVED).build()
+        );
+        for (Booking booking : bookings) {
+            em.persist(booking);
+        }
+
+        List<BookingView> bookingsResponse = repository.findByFilter(BookingFilter.builder()
+                .role(BookingRole.OWNER)
+                .userId(users.get(1).getId())
+                .now(now)
+                .itemId(items.get(1).getId())
+                .rangeStart(now)
+                .rangeEnd(now.plusDays(3))
+                .build(), PageRequest.of(0, 3));
+
+        assertEquals(List.of(bookings.get(0).getId()), ids(bookingsResponse));
+    }
+
+    @Test
+    void findByFilterTest_whenOffsetSet_thenRowsSkipped() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Booking> bookings = List.of(
+                Booking.builder().start(now.plusDays(1)).end(now.plusDays(2))
+                        .item(items.get(0)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
+                Booking.builder().start(now.plusDays(1)).end(now.plusDays(2))
+                        .item(items.get(1)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
+                Booking.builder().start(now.plusDays(3)).end(now.plusDays(4))
+                        .item(items.get(2)).booker(users.get(2)).status(BookingStatus.WAITING).build()
+        );
+        for (Booking booking : bookings) {
+            em.persist(booking);
+        }
+
+        List<BookingView> bookingsResponse = repository.findByFilter(filter(BookingRole.BOOKER, users.get(2).getId(),
+                BookingState.WAITING), new OffsetPageRequest(1, 5));
+
+        assertEquals(List.of(bookings.get(1).getId(), bookings.get(0).getId()), ids(bookingsResponse));
+    }
+
+    @Test
+    void findViewByIdTest() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Booking booking = em.persist(Booking.builder().start(now.plusDays(1)).end(now.plusDays(2))
+                .item(items.get(1)).booker(users.get(2)).status(BookingStatus.APPROVED).build());
+
+        BookingView bookingView = repository.findViewById(booking.getId()).orElseThrow();
+
+        assertEquals(new BookingView(booking.getId(), now.plusDays(1), now.plusDays(2), BookingStatus.APPROVED, 0L,
+                items.get(1).getId(), items.get(1).getName(), items.get(1).getDescription(), true, null,
+                users.get(1).getId(), 0L, users.get(2).getId(), users.get(2).getName(), users.get(2).getEmail(), 0L),
+                bookingView);
+        assertTrue(repository.findViewById(booking.getId() + 1).isEmpty());
+    }
+
+    @Test
+    void streamByFilterTest_whenOwner_thenSameOrderAsPages() {
+        for (int i = 0; i < 5; i++) {
+            em.persist(Booking.builder().start(LocalDateTime.now().plusDays(i))
+                    .end(LocalDateTime.now().plusDays(i + 1)).item(items.get(i % 2)).booker(users.get(2)).status(BookingStatus.WAITING).build());
+        }
+        BookingFilter filter = filter(BookingRole.OWNER, users.get(0).getId(), BookingState.ALL);
+
+        try (Stream<BookingView> bookingsByOwner = repository.streamByFilter(filter)) {
+            assertEquals(ids(repository.findByFilter(filter, PageRequest.of(0, 10))),
+                    ids(bookingsByOwner.collect(Collectors.toList())));
+        }
+        assertEquals(3, repository.findByFilter(filter, PageRequest.of(0, 10)).size());
+    }
+
+    @Test
+    void updateStatusByIdInTest_whenBookingApproved_thenNotUpdated() {
+        List<Booking> bookings = List.of(
+                Booking.builder().start(LocalDateTime.now().plusDays(1)).end(LocalDateTime.now().plusDays(2))
+                        .item(items.get(0)).booker(users.get(2)).status(BookingStatus.WAITING).build(),
+                Booking.builder().start(LocalDateTime.now().plusDays(3)).end(LocalDateTime.now().plusDays(4))
+                        .item(items.get(0)).booker(users.get(2)).status(BookingStatus.APPROVED).build()
+        );
+        for (Booking booking : bookings) {
+            em.persist(booking);
+        }
+        List<Long> ids = bookings.stream()
+                .map(Booking::getId)
+                .collect(Collectors.toList());
+
+        int updated = repository.updateStatusByIdIn(ids, BookingStatus.REJECTED);
+        em.clear();
+
+        assertEquals(1, updated);
+        List<BookingView> views = repository.findViewsByIdIn(ids);
+        assertEquals(2, views.size());
+        BookingView waiting = views.stream()
+                .filter(view -> view.getId().equals(ids.get(0)))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(BookingStatus.REJECTED, waiting.getStatus());
+        assertEquals(bookings.get(0).getVersion() + 1, waiting.getVersion());
+        assertEquals(BookingStatus.APPROVED, em.find(Booking.class, ids.get(1)).getStatus());
+    }
+
+    private List<BookingView> findBefore(BookingRole role, Long userId, BookingState state, LocalDateTime now,
+            LocalDateTime start, Long id, int limit) {
+        return repository.findByFilter(filter(role, userId, state, now).beforeStart(start).beforeId(id).build(),
+                PageRequest.of(0, limit));
+    }
+
+    private BookingFilter filter(BookingRole role, Long userId, BookingState state) {
+        return filter(role, userId, state, LocalDateTime.now()).build();
+    }
+
+    private BookingFilter.BookingFilterBuilder filter(BookingRole role, Long userId, BookingState state,
+            LocalDateTime now) {
+        return BookingFilter.builder().role(role).userId(userId).state(state).now(now);
+    }
+
+    private List<Long> ids(List<BookingView> bookings) {
+        return bookings.stream()
+                .map(BookingView::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,129 @@
+package ru.practicum.shareit.booking.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.model.NotAvailableException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("integrationtest")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingServiceImplConcurrencyTest {
+    private static final int THREADS = 64;
+    private static final int ITEMS = 10;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+
+    private final BookingService bookingService;
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private User owner;
+    private User booker;
+    private List<Item> items;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = userRepository.save(User.builder().name("owner").email("concurrency-owner@email.test").build());
+        booker = userRepository.save(User.builder().name("booker").email("concurrency-booker@email.test").build());
+        items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(itemRepository.save(Item.builder().name("item" + i).description("popular item")
+                    .available(true).owner(owner).build()));
+        }
+    }
+
+    @AfterEach
+    void afterEach() {
+        userService.deleteById(owner.getId());
+        userService.deleteById(booker.getId());
+    }
+
+    @Test
+    void createAndApproveTest_whenThreadsCompeteForSameItems_thenNoOverlappingBookings() throws Exception {
+        LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger approved = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            Random random = new Random(thread);
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                    Item item = items.get(random.nextInt(ITEMS));
+                    LocalDateTime start = base.plusHours(random.nextInt(24 * 30));
+                    LocalDateTime end = start.plusHours(1 + random.nextInt(48));
+                    try {
+                        BookingDto bookingDto = bookingService.create(booker.getId(), BookingDto.builder()
+                                .itemId(item.getId()).start(start).end(end).build());
+                        created.incrementAndGet();
+                        bookingService.update(bookingDto.getId(), owner.getId(), true);
+                        approved.incrementAndGet();
+                    } catch (NotAvailableException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long startedAt = System.nanoTime();
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        executor.shutdown();
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        log.info("{} попыток бронирования за {} мс ({} оп/с): создано {}, подтверждено {}, конфликтов {}.",
+                attempts, elapsedMillis, attempts * 1000L / elapsedMillis, created.get(), approved.get(),
+                conflicts.get());
+
+        assertEquals(attempts, created.get() + conflicts.get());
+        assertEquals(created.get(), approved.get());
+        assertTrue(created.get() > 0);
+        for (Item item : items) {
+            List<Booking> bookings = bookingRepository.findByItemIdInAndStatusInAndEndIsAfter(List.of(item.getId()),
+                            List.of(BookingStatus.APPROVED, BookingStatus.WAITING), LocalDateTime.now()).stream()
+                    .sorted(Comparator.comparing(Booking::getStart))
+                    .collect(Collectors.toList());
+            for (int i = 1; i < bookings.size(); i++) {
+                assertFalse(bookings.get(i).getStart().isBefore(bookings.get(i - 1).getEnd()),
+                        String.format("Пересечение бронирований %s и %s", bookings.get(i - 1), bookings.get(i)));
+            }
+        }
+    }
+}
@@ -1,23 +1,32 @@
 package ru.practicum.shareit.booking.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.model.NotAvailableException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.BatchResult;
 
 import javax.persistence.EntityManager;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -51,8 +60,8 @@ class BookingServiceImplIntegrationTest {
                 .owner(users.get(0))
                 .build();
         entityManager.persist(item);
-        LocalDateTime start = LocalDateTime.now().plusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
         BookingDto bookingDtoToCreate = makeBookingDto(start,
                 end, item.getId());
 
@@ -66,6 +75,27 @@ class BookingServiceImplIntegrationTest {
         assertEquals(BookingStatus.WAITING, bookingDto.getStatus());
     }
 
+    @Test
+    void createTest_whenOverlapsApprovedBooking_thenNotAvailableException() {
+        Item item = Item.builder()
+                .name("testItem")
+                .description("testItem description")
+                .available(true)
+                .owner(users.get(0))
+                .build();
+        entityManager.persist(item);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
+        entityManager.persist(Booking.builder().start(start).end(end).item(item).booker(users.get(2))
+                .status(BookingStatus.APPROVED).build());
+
+        assertThrows(NotAvailableException.class, () -> bookingService.create(users.get(1).getId(),
+                makeBookingDto(start.plusHours(12), end.plusDays(1), item.getId())));
+        BookingDto bookingDto = bookingService.create(users.get(1).getId(),
+                makeBookingDto(end, end.plusDays(1), item.getId()));
+        assertEquals(BookingStatus.WAITING, bookingDto.getStatus());
+    }
+
     @Test
     void updateTest() {
         Item item = Item.builder()
@@ -75,8 +105,8 @@ class BookingServiceImplIntegrationTest {
                 .owner(users.get(0))
                 .build();
         entityManager.persist(item);
-        LocalDateTime start = LocalDateTime.now().plusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
         BookingDto bookingDtoToCreate = makeBookingDto(start,
                 end, item.getId());
         BookingDto bookingDto = bookingService.create(users.get(1).getId(), bookingDtoToCreate);
@@ -86,6 +116,76 @@ class BookingServiceImplIntegrationTest {
         assertEquals(BookingStatus.APPROVED, updatedBookingDto.getStatus());
     }
 
+    @Test
+    void updateAllTest() {
+        Item item = Item.builder()
+                .name("testItem")
+                .description("testItem description")
+                .available(true)
+                .owner(users.get(0))
+                .build();
+        entityManager.persist(item);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
+        Booking first = Booking.builder().start(start).end(end).item(item).booker(users.get(1))
+                .status(BookingStatus.WAITING).build();
+        Booking overlapping = Booking.builder().start(start.plusHours(12)).end(end.plusHours(12)).item(item)
+                .booker(users.get(2)).status(BookingStatus.WAITING).build();
+        Booking rejected = Booking.builder().start(start.plusDays(5)).end(end.plusDays(5)).item(item)
+                .booker(users.get(1)).status(BookingStatus.WAITING).build();
+        Booking approved = Booking.builder().start(start.plusDays(10)).end(end.plusDays(10)).item(item)
+                .booker(users.get(2)).status(BookingStatus.APPROVED).build();
+        List.of(first, overlapping, rejected, approved).forEach(entityManager::persist);
+
+        List<BatchResult<BookingDto>> results = bookingService.updateAll(users.get(0).getId(), List.of(
+                makeBookingDecisionDto(first.getId(), true),
+                makeBookingDecisionDto(overlapping.getId(), true),
+                makeBookingDecisionDto(rejected.getId(), false),
+                makeBookingDecisionDto(approved.getId(), false),
+                makeBookingDecisionDto(first.getId(), false),
+                makeBookingDecisionDto(-1L, true)));
+
+        assertEquals(List.of(200, 400, 200, 400, 400, 404), results.stream()
+                .map(BatchResult::getStatus)
+                .collect(Collectors.toList()));
+        assertEquals(BookingStatus.APPROVED, results.get(0).getResult().getStatus());
+        assertEquals(BookingStatus.REJECTED, results.get(2).getResult().getStatus());
+        entityManager.clear();
+        Booking firstAfterUpdate = entityManager.find(Booking.class, first.getId());
+        assertEquals(BookingStatus.APPROVED, firstAfterUpdate.getStatus());
+        assertEquals(first.getVersion() + 1, firstAfterUpdate.getVersion());
+        assertEquals(results.get(0).getResult().getVersion(), firstAfterUpdate.getVersion());
+        assertEquals(BookingStatus.WAITING, entityManager.find(Booking.class, overlapping.getId()).getStatus());
+        assertEquals(BookingStatus.REJECTED, entityManager.find(Booking.class, rejected.getId()).getStatus());
+        Booking approvedAfterUpdate = entityManager.find(Booking.class, approved.getId());
+        assertEquals(BookingStatus.APPROVED, approvedAfterUpdate.getStatus());
+        assertEquals(approved.getVersion(), approvedAfterUpdate.getVersion());
+    }
+
+    @Test
+    void updateAllTest_whenNotOwner_thenBookingNotDecided() {
+        Item item = Item.builder()
+                .name("testItem")
+                .description("testItem description")
+                .available(true)
+                .owner(users.get(0))
+                .build();
+        entityManager.persist(item);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
+        BookingDto bookingDto = bookingService.create(users.get(1).getId(), makeBookingDto(start, end, item.getId()));
+
+        List<BatchResult<BookingDto>> bookerResults = bookingService.updateAll(users.get(1).getId(),
+                List.of(makeBookingDecisionDto(bookingDto.getId(), true)));
+        List<BatchResult<BookingDto>> otherResults = bookingService.updateAll(users.get(2).getId(),
+                List.of(makeBookingDecisionDto(bookingDto.getId(), true)));
+
+        assertEquals(404, bookerResults.get(0).getStatus());
+        assertEquals(400, otherResults.get(0).getStatus());
+        assertEquals(BookingStatus.WAITING,
+                bookingService.getBookingById(users.get(0).getId(), bookingDto.getId()).getStatus());
+    }
+
     @Test
     void getBookingByIdTest() {
         Item item = Item.builder()
@@ -95,8 +195,8 @@ class BookingServiceImplIntegrationTest {
                 .owner(users.get(0))
                 .build();
         entityManager.persist(item);
-        LocalDateTime start = LocalDateTime.now().plusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
         BookingDto bookingDtoToCreate = makeBookingDto(start,
                 end, item.getId());
         BookingDto createdBookingDto = bookingService.create(users.get(1).getId(), bookingDtoToCreate);
@@ -115,8 +215,8 @@ class BookingServiceImplIntegrationTest {
                 .owner(users.get(0))
                 .build();
         entityManager.persist(item);
-        LocalDateTime start = LocalDateTime.now().plusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
         BookingDto bookingDtoToCreate = makeBookingDto(start,
                 end, item.getId());
         BookingDto createdBookingDto = bookingService.create(users.get(1).getId(), bookingDtoToCreate);
@@ -136,8 +236,8 @@ class BookingServiceImplIntegrationTest {
                 .owner(users.get(0))
                 .build();
         entityManager.persist(item);
-        LocalDateTime start = LocalDateTime.now().minusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
         BookingDto bookingDtoToCreate = makeBookingDto(start,
                 end, item.getId());
         BookingDto createdBookingDto = bookingService.create(users.get(1).getId(), bookingDtoToCreate);
@@ -157,8 +257,8 @@ class BookingServiceImplIntegrationTest {
                 .owner(users.get(0))
                 .build();
         entityManager.persist(item);
-        LocalDateTime start = LocalDateTime.now().minusDays(2);
-        LocalDateTime end = LocalDateTime.now().minusDays(1);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(2);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(1);
         BookingDto bookingDtoToCreate = makeBookingDto(start,
                 end, item.getId());
         BookingDto createdBookingDto = bookingService.create(users.get(1).getId(), bookingDtoToCreate);
@@ -178,8 +278,8 @@ class BookingServiceImplIntegrationTest {
                 .owner(users.get(0))
                 .build();
         entityManager.persist(item);
-        LocalDateTime start = LocalDateTime.now().plusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
         BookingDto bookingDtoToCreate = makeBookingDto(start,
                 end, item.getId());
         BookingDto createdBookingDto = bookingService.create(users.get(1).getId(), bookingDtoToCreate);
@@ -199,8 +299,8 @@ class BookingServiceImplIntegrationTest {
                 .owner(users.get(0))
                 .build();
         entityManager.persist(item);
-        LocalDateTime start = LocalDateTime.now().plusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
         BookingDto bookingDtoToCreate = makeBookingDto(start,
                 end, item.getId());
         BookingDto createdBookingDto = bookingService.create(users.get(1).getId(), bookingDtoToCreate);
@@ -220,8 +320,8 @@ class BookingServiceImplIntegrationTest {
                 .owner(users.get(0))
                 .build();
         entityManager.persist(item);
-        LocalDateTime start = LocalDateTime.now().plusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
         BookingDto bookingDtoToCreate = makeBookingDto(start,
                 end, item.getId());
         BookingDto createdBookingDto = bookingService.create(users.get(1).getId(), bookingDtoToCreate);
@@ -241,8 +341,8 @@ class BookingServiceImplIntegrationTest {
                 .owner(users.get(0))
                 .build();
         entityManager.persist(item);
-        LocalDateTime start = LocalDateTime.now().minusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
         BookingDto bookingDtoToCreate = makeBookingDto(start,
                 end, item.getId());
         BookingDto createdBookingDto = bookingService.create(users.get(1).getId(), bookingDtoToCreate);
@@ -262,8 +362,8 @@ class BookingServiceImplIntegrationTest {
                 .owner(users.get(0))
                 .build();
         entityManager.persist(item);
-        LocalDateTime start = LocalDateTime.now().minusDays(2);
-        LocalDateTime end = LocalDateTime.now().minusDays(1);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(2);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(1);
         BookingDto bookingDtoToCreate = makeBookingDto(start,
                 end, item.getId());
         BookingDto createdBookingDto = bookingService.create(users.get(1).getId(), bookingDtoToCreate);
@@ -283,8 +383,8 @@ class BookingServiceImplIntegrationTest {
                 .owner(users.get(0))
                 .build();
         entityManager.persist(item);
-        LocalDateTime start = LocalDateTime.now().plusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
         BookingDto bookingDtoToCreate = makeBookingDto(start,
                 end, item.getId());
         BookingDto createdBookingDto = bookingService.create(users.get(1).getId(), bookingDtoToCreate);
@@ -304,8 +404,8 @@ class BookingServiceImplIntegrationTest {
                 .owner(users.get(0))
                 .build();
         entityManager.persist(item);
-        LocalDateTime start = LocalDateTime.now().plusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
         BookingDto bookingDtoToCreate = makeBookingDto(start,
                 end, item.getId());
         BookingDto createdBookingDto = bookingService.create(users.get(1).getId(), bookingDtoToCreate);
@@ -316,6 +416,97 @@ class BookingServiceImplIntegrationTest {
         assertEquals(createdBookingDto, bookingDtos.get(0));
     }
 
+    @Test
+    void exportBookingsByOwnerIdTest() {
+        Item item = Item.builder()
+                .name("testItem")
+                .description("testItem description")
+                .available(true)
+                .owner(users.get(0))
+                .build();
+        entityManager.persist(item);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
+        BookingDto first = bookingService.create(users.get(1).getId(), makeBookingDto(start, end, item.getId()));
+        BookingDto second = bookingService.create(users.get(2).getId(),
+                makeBookingDto(start.plusDays(2), end.plusDays(2), item.getId()));
+        List<BookingDto> exported = new ArrayList<>();
+
+        bookingService.exportBookingsByOwnerId(users.get(0).getId(), null, exported::add);
+
+        assertEquals(List.of(second, first), exported);
+        assertEquals(bookingService.getBookingsByOwnerId(users.get(0).getId(), null, 0, 10), exported);
+    }
+
+    @Test
+    void exportBookingsByUserIdTest_whenStateWaiting_thenOnlyWaitingBookings() {
+        Item item = Item.builder()
+                .name("testItem")
+                .description("testItem description")
+                .available(true)
+                .owner(users.get(0))
+                .build();
+        entityManager.persist(item);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(2);
+        BookingDto waiting = bookingService.create(users.get(1).getId(), makeBookingDto(start, end, item.getId()));
+        entityManager.persist(Booking.builder().start(start.plusDays(2)).end(end.plusDays(2)).item(item)
+                .booker(users.get(1)).status(BookingStatus.REJECTED).build());
+        List<BookingDto> exported = new ArrayList<>();
+
+        bookingService.exportBookingsByUserId(users.get(1).getId(), BookingState.WAITING, exported::add);
+
+        assertEquals(List.of(waiting), exported);
+    }
+
+    @Test
+    void getBookingsByOwnerIdQueryCountDoesNotDependOnPageSizeTest() {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        for (int i = 0; i < 20; i++) {
+            Item item = Item.builder()
+                    .name("item" + i)
+                    .description("item" + i + " description")
+                    .available(true)
+                    .owner(users.get(0))
+                    .build();
+            entityManager.persist(item);
+            entityManager.persist(Booking.builder()
+                    .start(start.plusDays(i))
+                    .end(start.plusDays(i + 1))
+                    .item(item)
+                    .booker(users.get(1 + i % 2))
+                    .status(BookingStatus.WAITING).build());
+        }
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+
+        entityManager.clear();
+        statistics.clear();
+        List<BookingDto> smallPage = bookingService.getBookingsByOwnerId(users.get(0).getId(), null, 0, 2);
+        long smallPageQueryCount = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        statistics.clear();
+        List<BookingDto> bigPage = bookingService.getBookingsByOwnerId(users.get(0).getId(), null, 0, 20);
+        long bigPageQueryCount = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        statistics.clear();
+        BookingDto bookingDto = bookingService.getBookingById(users.get(0).getId(), bigPage.get(0).getId());
+        long singleBookingQueryCount = statistics.getPrepareStatementCount();
+
+        assertEquals(2, smallPage.size());
+        assertEquals(20, bigPage.size());
+        assertTrue(bigPage.stream().allMatch(dto -> dto.getItem().getName() != null
+                && dto.getBooker().getEmail() != null));
+        assertEquals(2, smallPageQueryCount);
+        assertEquals(2, bigPageQueryCount);
+        assertEquals(bigPage.get(0).getItem().getName(), bookingDto.getItem().getName());
+        assertEquals(1, singleBookingQueryCount);
+        //reads are projected, so no booking or item entity is hydrated
+        assertEquals(0, statistics.getEntityStatistics(Booking.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityStatistics(Item.class.getName()).getLoadCount());
+    }
+
     private BookingDto makeBookingDto(LocalDateTime start, LocalDateTime end, Long itemId) {
         return BookingDto.builder()
                 .start(start)
@@ -323,4 +514,11 @@ class BookingServiceImplIntegrationTest {
                 .itemId(itemId)
                 .build();
     }
-}
\ No newline at end of file
+
+    private BookingDecisionDto makeBookingDecisionDto(Long bookingId, Boolean approved) {
+        return BookingDecisionDto.builder()
+                .bookingId(bookingId)
+                .approved(approved)
+                .build();
+    }
+}
@@ -2,32 +2,49 @@ package ru.practicum.shareit.booking.service.impl;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.index.ItemBookingIndex;
+import ru.practicum.shareit.booking.index.ItemBookingLocks;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.mapper.impl.BookingMapperImpl;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingFilter;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingView;
+import ru.practicum.shareit.exception.model.AlreadyExistException;
 import ru.practicum.shareit.exception.model.NotAvailableException;
 import ru.practicum.shareit.exception.model.NotFoundException;
+import ru.practicum.shareit.exception.model.ValidationException;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.mapper.impl.ItemMapperImpl;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.mapper.impl.UserMapperImpl;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.KeysetCursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -41,12 +58,22 @@ class BookingServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private ItemRepository itemRepository;
+    @Mock
+    private ItemBookingIndex itemBookingIndex;
+    @Mock
+    private ItemBookingLocks itemBookingLocks;
+    @Mock
+    private ItemViewCache itemViewCache;
     private final ItemMapper itemMapper = new ItemMapperImpl();
     private final UserMapper userMapper = new UserMapperImpl();
     @Spy
     private BookingMapper bookingMapper = new BookingMapperImpl(itemMapper, userMapper);
     @InjectMocks
     private BookingServiceImpl bookingService;
+    @Captor
+    private ArgumentCaptor<BookingFilter> filterCaptor;
+    @Captor
+    private ArgumentCaptor<Pageable> pageableCaptor;
 
     @Test
     void getBookingsByUserIdTest_whenUserNotExist_thenNotFoundException() {
@@ -65,196 +92,195 @@ class BookingServiceImplTest {
     void getBookingsByUserIdTest_whenStateIsCurrent_thenReturnedCurrentBookings() {
         Long userId = 1L;
         BookingState state = BookingState.CURRENT;
-        Integer from = 0;
+        Integer from = 2;
         Integer size = 2;
         User user = User.builder().id(1L).email("test@test.test").name("test").build();
-        Item item = Item.builder().id(1L).name("test").description("test description").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
         Booking booking = Booking.builder().id(1L).booker(user).item(item).build();
-        List<Booking> bookings = List.of(booking);
         Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository
-                .findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any()))
-                .thenReturn(bookings);
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
 
         List<BookingDto> bookingsDto = bookingService.getBookingsByUserId(userId, state, from, size);
 
-        assertEquals(userId, bookingsDto.get(0).getBooker().getId());
-        Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStatusOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdOrderByStartDesc(anyLong(), any());
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.BOOKER, filterCaptor.getValue().getRole());
+        assertEquals(userId, filterCaptor.getValue().getUserId());
+        assertEquals(BookingState.CURRENT, filterCaptor.getValue().getState());
+        assertFalse(filterCaptor.getValue().isKeyset());
+        assertEquals(2, pageableCaptor.getValue().getOffset());
+        assertEquals(2, pageableCaptor.getValue().getPageSize());
     }
 
     @Test
     void getBookingsByUserIdTest_whenStateIsPast_thenReturnedPastBookings() {
         Long userId = 1L;
         BookingState state = BookingState.PAST;
-        Integer from = 0;
+        Integer from = 2;
         Integer size = 2;
         User user = User.builder().id(1L).email("test@test.test").name("test").build();
-        Item item = Item.builder().id(1L).name("test").description("test description").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
         Booking booking = Booking.builder().id(1L).booker(user).item(item).build();
-        List<Booking> bookings = List.of(booking);
         Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository
-                        .findByBookerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(bookings);
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
 
         List<BookingDto> bookingsDto = bookingService.getBookingsByUserId(userId, state, from, size);
 
-        assertEquals(userId, bookingsDto.get(0).getBooker().getId());
-        Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByBookerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStatusOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdOrderByStartDesc(anyLong(), any());
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.BOOKER, filterCaptor.getValue().getRole());
+        assertEquals(userId, filterCaptor.getValue().getUserId());
+        assertEquals(BookingState.PAST, filterCaptor.getValue().getState());
+        assertFalse(filterCaptor.getValue().isKeyset());
+        assertEquals(2, pageableCaptor.getValue().getOffset());
+        assertEquals(2, pageableCaptor.getValue().getPageSize());
     }
 
     @Test
     void getBookingsByUserIdTest_whenStateIsFuture_thenReturnedFutureBookings() {
         Long userId = 1L;
         BookingState state = BookingState.FUTURE;
-        Integer from = 0;
+        Integer from = 2;
         Integer size = 2;
         User user = User.builder().id(1L).email("test@test.test").name("test").build();
-        Item item = Item.builder().id(1L).name("test").description("test description").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
         Booking booking = Booking.builder().id(1L).booker(user).item(item).build();
-        List<Booking> bookings = List.of(booking);
         Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository
-                        .findByBookerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(bookings);
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
 
         List<BookingDto> bookingsDto = bookingService.getBookingsByUserId(userId, state, from, size);
 
-        assertEquals(userId, bookingsDto.get(0).getBooker().getId());
-        Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByBookerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStatusOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdOrderByStartDesc(anyLong(), any());
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.BOOKER, filterCaptor.getValue().getRole());
+        assertEquals(userId, filterCaptor.getValue().getUserId());
+        assertEquals(BookingState.FUTURE, filterCaptor.getValue().getState());
+        assertFalse(filterCaptor.getValue().isKeyset());
+        assertEquals(2, pageableCaptor.getValue().getOffset());
+        assertEquals(2, pageableCaptor.getValue().getPageSize());
     }
 
     @Test
     void getBookingsByUserIdTest_whenStateIsWaiting_thenReturnedWaitingBookings() {
         Long userId = 1L;
         BookingState state = BookingState.WAITING;
-        Integer from = 0;
+        Integer from = 2;
         Integer size = 2;
         User user = User.builder().id(1L).email("test@test.test").name("test").build();
-        Item item = Item.builder().id(1L).name("test").description("test description").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
         Booking booking = Booking.builder().id(1L).booker(user).item(item).build();
-        List<Booking> bookings = List.of(booking);
         Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository
-                        .findByBookerIdAndStatusOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(bookings);
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
 
         List<BookingDto> bookingsDto = bookingService.getBookingsByUserId(userId, state, from, size);
 
-        assertEquals(userId, bookingsDto.get(0).getBooker().getId());
-        Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByBookerIdAndStatusOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdOrderByStartDesc(anyLong(), any());
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.BOOKER, filterCaptor.getValue().getRole());
+        assertEquals(userId, filterCaptor.getValue().getUserId());
+        assertEquals(BookingState.WAITING, filterCaptor.getValue().getState());
+        assertFalse(filterCaptor.getValue().isKeyset());
+        assertEquals(2, pageableCaptor.getValue().getOffset());
+        assertEquals(2, pageableCaptor.getValue().getPageSize());
     }
 
     @Test
     void getBookingsByUserIdTest_whenStateIsRejected_thenReturnedRejectedBookings() {
         Long userId = 1L;
         BookingState state = BookingState.REJECTED;
-        Integer from = 0;
+        Integer from = 2;
         Integer size = 2;
         User user = User.builder().id(1L).email("test@test.test").name("test").build();
-        Item item = Item.builder().id(1L).name("test").description("test description").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
         Booking booking = Booking.builder().id(1L).booker(user).item(item).build();
-        List<Booking> bookings = List.of(booking);
         Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository
-                        .findByBookerIdAndStatusOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(bookings);
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
 
         List<BookingDto> bookingsDto = bookingService.getBookingsByUserId(userId, state, from, size);
 
-        assertEquals(userId, bookingsDto.get(0).getBooker().getId());
-        Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByBookerIdAndStatusOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdOrderByStartDesc(anyLong(), any());
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.BOOKER, filterCaptor.getValue().getRole());
+        assertEquals(userId, filterCaptor.getValue().getUserId());
+        assertEquals(BookingState.REJECTED, filterCaptor.getValue().getState());
+        assertFalse(filterCaptor.getValue().isKeyset());
+        assertEquals(2, pageableCaptor.getValue().getOffset());
+        assertEquals(2, pageableCaptor.getValue().getPageSize());
     }
 
     @Test
     void getBookingsByUserIdTest_whenStateNull_thenReturnedAllBookings() {
         Long userId = 1L;
         BookingState state = null;
-        Integer from = 0;
+        Integer from = 2;
         Integer size = 2;
         User user = User.builder().id(1L).email("test@test.test").name("test").build();
-        Item item = Item.builder().id(1L).name("test").description("test description").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
         Booking booking = Booking.builder().id(1L).booker(user).item(item).build();
-        List<Booking> bookings = List.of(booking);
         Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository
-                        .findByBookerIdOrderByStartDesc(anyLong(), any()))
-                .thenReturn(bookings);
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
 
         List<BookingDto> bookingsDto = bookingService.getBookingsByUserId(userId, state, from, size);
 
-        assertEquals(userId, bookingsDto.get(0).getBooker().getId());
-        Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByBookerIdAndStatusOrderByStartDesc(anyLong(), any(), any());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByBookerIdOrderByStartDesc(anyLong(), any());
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.BOOKER, filterCaptor.getValue().getRole());
+        assertEquals(userId, filterCaptor.getValue().getUserId());
+        assertEquals(BookingState.ALL, filterCaptor.getValue().getState());
+        assertFalse(filterCaptor.getValue().isKeyset());
+        assertEquals(2, pageableCaptor.getValue().getOffset());
+        assertEquals(2, pageableCaptor.getValue().getPageSize());
+    }
+
+    @Test
+    void getBookingsByUserIdWithCursorTest_whenStateNull_thenQueriedAllBookingsBeforeCursor() {
+        Long userId = 1L;
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 12, 0);
+        KeysetCursor cursor = new KeysetCursor(start, 5L);
+        User user = User.builder().id(1L).email("test@test.test").name("test").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
+        Booking booking = Booking.builder().id(4L).booker(user).item(item).start(start.minusDays(1)).build();
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
+
+        List<BookingDto> bookingsDto = bookingService.getBookingsByUserId(userId, null, cursor, 2);
+
+        assertEquals(1, bookingsDto.size());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
+        Mockito.verify(bookingRepository, Mockito.times(1))
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.BOOKER, filterCaptor.getValue().getRole());
+        assertEquals(BookingState.ALL, filterCaptor.getValue().getState());
+        assertEquals(start, filterCaptor.getValue().getBeforeStart());
+        assertEquals(5L, filterCaptor.getValue().getBeforeId());
+        assertEquals(0, pageableCaptor.getValue().getOffset());
+        assertEquals(2, pageableCaptor.getValue().getPageSize());
+    }
+
+    @Test
+    void getBookingsByUserIdWithCursorTest_whenCursorWithoutStart_thenValidationException() {
+        User user = User.builder().id(1L).email("test@test.test").name("test").build();
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
+
+        assertThrows(ValidationException.class, () -> bookingService.getBookingsByUserId(1L, BookingState.ALL,
+                new KeysetCursor(null, 5L), 2));
+        Mockito.verifyNoInteractions(bookingRepository);
     }
 
     @Test
     void getBookingByIdTest_whenBookingNotExist_thenNotFoundException() {
         Long userId = 1L;
         Long bookingId = 1L;
-        Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.empty());
+        Mockito.when(bookingRepository.findViewById(bookingId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> bookingService.getBookingById(userId, bookingId));
-        Mockito.verify(bookingRepository, Mockito.times(1)).findById(anyLong());
+        Mockito.verify(bookingRepository, Mockito.times(1)).findViewById(anyLong());
     }
 
     @Test
@@ -265,10 +291,10 @@ class BookingServiceImplTest {
         User owner = User.builder().id(3L).build();
         Item item = Item.builder().id(1L).owner(owner).build();
         Booking booking = Booking.builder().id(1L).booker(booker).item(item).build();
-        Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        Mockito.when(bookingRepository.findViewById(bookingId)).thenReturn(Optional.of(toView(booking)));
 
         assertThrows(NotFoundException.class, () -> bookingService.getBookingById(userId, bookingId));
-        Mockito.verify(bookingRepository, Mockito.times(1)).findById(anyLong());
+        Mockito.verify(bookingRepository, Mockito.times(1)).findViewById(anyLong());
     }
 
     @Test
@@ -279,13 +305,13 @@ class BookingServiceImplTest {
         User owner = User.builder().id(2L).build();
         Item item = Item.builder().id(1L).owner(owner).build();
         Booking booking = Booking.builder().id(1L).booker(booker).item(item).build();
-        Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        Mockito.when(bookingRepository.findViewById(bookingId)).thenReturn(Optional.of(toView(booking)));
 
         BookingDto bookingDto = bookingService.getBookingById(userId, bookingId);
 
         assertEquals(bookingId, bookingDto.getId());
         assertEquals(userId, bookingDto.getBooker().getId());
-        Mockito.verify(bookingRepository, Mockito.times(1)).findById(anyLong());
+        Mockito.verify(bookingRepository, Mockito.times(1)).findViewById(anyLong());
     }
 
     @Test
@@ -296,13 +322,13 @@ class BookingServiceImplTest {
         User owner = User.builder().id(userId).build();
         Item item = Item.builder().id(1L).owner(owner).build();
         Booking booking = Booking.builder().id(1L).booker(booker).item(item).build();
-        Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        Mockito.when(bookingRepository.findViewById(bookingId)).thenReturn(Optional.of(toView(booking)));
 
         BookingDto bookingDto = bookingService.getBookingById(userId, bookingId);
 
         assertEquals(bookingId, bookingDto.getId());
         assertNotEquals(userId, bookingDto.getBooker().getId());
-        Mockito.verify(bookingRepository, Mockito.times(1)).findById(anyLong());
+        Mockito.verify(bookingRepository, Mockito.times(1)).findViewById(anyLong());
     }
 
     @Test
@@ -320,194 +346,176 @@ class BookingServiceImplTest {
 
     @Test
     void getBookingsByOwnerIdTest_whenStateIsCurrent_thenReturnedCurrentBookings() {
-        Long ownerId = 1L;
+        Long userId = 1L;
         BookingState state = BookingState.CURRENT;
-        Integer from = 0;
+        Integer from = 2;
         Integer size = 2;
-        User user = User.builder().id(2L).email("test@test.test").name("test").build();
-        User owner = User.builder().id(ownerId).email("test-owner@test.test").name("test-owner").build();
-        Item item = Item.builder().id(1L).name("test").description("test description").owner(owner).build();
+        User user = User.builder().id(1L).email("test@test.test").name("test").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
         Booking booking = Booking.builder().id(1L).booker(user).item(item).build();
-        List<Booking> bookings = List.of(booking);
-        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(owner));
-        Mockito.when(bookingRepository
-                        .findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any()))
-                .thenReturn(bookings);
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
 
-        List<BookingDto> bookingsDto = bookingService.getBookingsByOwnerId(ownerId, state, from, size);
+        List<BookingDto> bookingsDto = bookingService.getBookingsByOwnerId(userId, state, from, size);
 
-        assertEquals(item.getId(), bookingsDto.get(0).getItem().getId());
-        Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStatusOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdOrderByStartDesc(anyLong(), any());
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.OWNER, filterCaptor.getValue().getRole());
+        assertEquals(userId, filterCaptor.getValue().getUserId());
+        assertEquals(BookingState.CURRENT, filterCaptor.getValue().getState());
+        assertFalse(filterCaptor.getValue().isKeyset());
+        assertEquals(2, pageableCaptor.getValue().getOffset());
+        assertEquals(2, pageableCaptor.getValue().getPageSize());
     }
 
     @Test
     void getBookingsByOwnerIdTest_whenStateIsPast_thenReturnedPastBookings() {
-        Long ownerId = 1L;
+        Long userId = 1L;
         BookingState state = BookingState.PAST;
-        Integer from = 0;
+        Integer from = 2;
         Integer size = 2;
-        User user = User.builder().id(2L).email("test@test.test").name("test").build();
-        User owner = User.builder().id(ownerId).email("test-owner@test.test").name("test-owner").build();
-        Item item = Item.builder().id(1L).name("test").description("test description").owner(owner).build();
+        User user = User.builder().id(1L).email("test@test.test").name("test").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
         Booking booking = Booking.builder().id(1L).booker(user).item(item).build();
-        List<Booking> bookings = List.of(booking);
-        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(owner));
-        Mockito.when(bookingRepository
-                        .findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(bookings);
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
 
-        List<BookingDto> bookingsDto = bookingService.getBookingsByOwnerId(ownerId, state, from, size);
+        List<BookingDto> bookingsDto = bookingService.getBookingsByOwnerId(userId, state, from, size);
 
-        assertEquals(item.getId(), bookingsDto.get(0).getItem().getId());
-        Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStatusOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdOrderByStartDesc(anyLong(), any());
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.OWNER, filterCaptor.getValue().getRole());
+        assertEquals(userId, filterCaptor.getValue().getUserId());
+        assertEquals(BookingState.PAST, filterCaptor.getValue().getState());
+        assertFalse(filterCaptor.getValue().isKeyset());
+        assertEquals(2, pageableCaptor.getValue().getOffset());
+        assertEquals(2, pageableCaptor.getValue().getPageSize());
     }
 
     @Test
     void getBookingsByOwnerIdTest_whenStateIsFuture_thenReturnedFutureBookings() {
-        Long ownerId = 1L;
+        Long userId = 1L;
         BookingState state = BookingState.FUTURE;
-        Integer from = 0;
+        Integer from = 2;
         Integer size = 2;
-        User user = User.builder().id(2L).email("test@test.test").name("test").build();
-        User owner = User.builder().id(ownerId).email("test-owner@test.test").name("test-owner").build();
-        Item item = Item.builder().id(1L).name("test").description("test description").owner(owner).build();
+        User user = User.builder().id(1L).email("test@test.test").name("test").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
         Booking booking = Booking.builder().id(1L).booker(user).item(item).build();
-        List<Booking> bookings = List.of(booking);
-        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(owner));
-        Mockito.when(bookingRepository
-                        .findByItemOwnerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(bookings);
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
 
-        List<BookingDto> bookingsDto = bookingService.getBookingsByOwnerId(ownerId, state, from, size);
+        List<BookingDto> bookingsDto = bookingService.getBookingsByOwnerId(userId, state, from, size);
 
-        assertEquals(item.getId(), bookingsDto.get(0).getItem().getId());
-        Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByItemOwnerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStatusOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdOrderByStartDesc(anyLong(), any());
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.OWNER, filterCaptor.getValue().getRole());
+        assertEquals(userId, filterCaptor.getValue().getUserId());
+        assertEquals(BookingState.FUTURE, filterCaptor.getValue().getState());
+        assertFalse(filterCaptor.getValue().isKeyset());
+        assertEquals(2, pageableCaptor.getValue().getOffset());
+        assertEquals(2, pageableCaptor.getValue().getPageSize());
     }
 
     @Test
     void getBookingsByOwnerIdTest_whenStateIsWaiting_thenReturnedWaitingBookings() {
-        Long ownerId = 1L;
+        Long userId = 1L;
         BookingState state = BookingState.WAITING;
-        Integer from = 0;
+        Integer from = 2;
         Integer size = 2;
-        User user = User.builder().id(2L).email("test@test.test").name("test").build();
-        User owner = User.builder().id(ownerId).email("test-owner@test.test").name("test-owner").build();
-        Item item = Item.builder().id(1L).name("test").description("test description").owner(owner).build();
+        User user = User.builder().id(1L).email("test@test.test").name("test").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
         Booking booking = Booking.builder().id(1L).booker(user).item(item).build();
-        List<Booking> bookings = List.of(booking);
-        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(owner));
-        Mockito.when(bookingRepository
-                        .findByItemOwnerIdAndStatusOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(bookings);
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
 
-        List<BookingDto> bookingsDto = bookingService.getBookingsByOwnerId(ownerId, state, from, size);
+        List<BookingDto> bookingsDto = bookingService.getBookingsByOwnerId(userId, state, from, size);
 
-        assertEquals(item.getId(), bookingsDto.get(0).getItem().getId());
-        Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByItemOwnerIdAndStatusOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdOrderByStartDesc(anyLong(), any());
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.OWNER, filterCaptor.getValue().getRole());
+        assertEquals(userId, filterCaptor.getValue().getUserId());
+        assertEquals(BookingState.WAITING, filterCaptor.getValue().getState());
+        assertFalse(filterCaptor.getValue().isKeyset());
+        assertEquals(2, pageableCaptor.getValue().getOffset());
+        assertEquals(2, pageableCaptor.getValue().getPageSize());
     }
 
     @Test
     void getBookingsByOwnerIdTest_whenStateIsRejected_thenReturnedRejectedBookings() {
-        Long ownerId = 1L;
+        Long userId = 1L;
         BookingState state = BookingState.REJECTED;
-        Integer from = 0;
+        Integer from = 2;
         Integer size = 2;
-        User user = User.builder().id(2L).email("test@test.test").name("test").build();
-        User owner = User.builder().id(ownerId).email("test-owner@test.test").name("test-owner").build();
-        Item item = Item.builder().id(1L).name("test").description("test description").owner(owner).build();
+        User user = User.builder().id(1L).email("test@test.test").name("test").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
         Booking booking = Booking.builder().id(1L).booker(user).item(item).build();
-        List<Booking> bookings = List.of(booking);
-        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(owner));
-        Mockito.when(bookingRepository
-                        .findByItemOwnerIdAndStatusOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(bookings);
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
 
-        List<BookingDto> bookingsDto = bookingService.getBookingsByOwnerId(ownerId, state, from, size);
+        List<BookingDto> bookingsDto = bookingService.getBookingsByOwnerId(userId, state, from, size);
 
-        assertEquals(item.getId(), bookingsDto.get(0).getItem().getId());
-        Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByItemOwnerIdAndStatusOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdOrderByStartDesc(anyLong(), any());
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.OWNER, filterCaptor.getValue().getRole());
+        assertEquals(userId, filterCaptor.getValue().getUserId());
+        assertEquals(BookingState.REJECTED, filterCaptor.getValue().getState());
+        assertFalse(filterCaptor.getValue().isKeyset());
+        assertEquals(2, pageableCaptor.getValue().getOffset());
+        assertEquals(2, pageableCaptor.getValue().getPageSize());
     }
 
     @Test
     void getBookingsByOwnerIdTest_whenStateNull_thenReturnedAllBookings() {
-        Long ownerId = 1L;
+        Long userId = 1L;
         BookingState state = null;
-        Integer from = 0;
+        Integer from = 2;
         Integer size = 2;
-        User user = User.builder().id(2L).email("test@test.test").name("test").build();
-        User owner = User.builder().id(ownerId).email("test-owner@test.test").name("test-owner").build();
-        Item item = Item.builder().id(1L).name("test").description("test description").owner(owner).build();
+        User user = User.builder().id(1L).email("test@test.test").name("test").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
         Booking booking = Booking.builder().id(1L).booker(user).item(item).build();
-        List<Booking> bookings = List.of(booking);
-        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(owner));
-        Mockito.when(bookingRepository
-                        .findByItemOwnerIdOrderByStartDesc(anyLong(), any()))
-                .thenReturn(bookings);
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
 
-        List<BookingDto> bookingsDto = bookingService.getBookingsByOwnerId(ownerId, state, from, size);
+        List<BookingDto> bookingsDto = bookingService.getBookingsByOwnerId(userId, state, from, size);
 
-        assertEquals(item.getId(), bookingsDto.get(0).getItem().getId());
-        Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findByItemOwnerIdAndStatusOrderByStartDesc(anyLong(), any(), any());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
+        Mockito.verify(bookingRepository, Mockito.times(1))
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.OWNER, filterCaptor.getValue().getRole());
+        assertEquals(userId, filterCaptor.getValue().getUserId());
+        assertEquals(BookingState.ALL, filterCaptor.getValue().getState());
+        assertFalse(filterCaptor.getValue().isKeyset());
+        assertEquals(2, pageableCaptor.getValue().getOffset());
+        assertEquals(2, pageableCaptor.getValue().getPageSize());
+    }
+
+    @Test
+    void getBookingsByOwnerIdWithCursorTest_whenStateIsWaiting_thenQueriedWaitingBookingsBeforeCursor() {
+        Long ownerId = 1L;
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 12, 0);
+        KeysetCursor cursor = new KeysetCursor(start, 5L);
+        User user = User.builder().id(1L).email("test@test.test").name("test").build();
+        User booker = User.builder().id(2L).email("booker@test.test").name("booker").build();
+        Item item = Item.builder().id(1L).name("test").description("test description").owner(user).build();
+        Booking booking = Booking.builder().id(4L).booker(booker).item(item).status(BookingStatus.WAITING).build();
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(user));
+        Mockito.when(bookingRepository.findByFilter(any(), any())).thenReturn(List.of(toView(booking)));
+
+        List<BookingDto> bookingsDto = bookingService.getBookingsByOwnerId(ownerId, BookingState.WAITING, cursor, 2);
+
+        assertEquals(1, bookingsDto.size());
+        assertEquals(booking.getId(), bookingsDto.get(0).getId());
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByItemOwnerIdOrderByStartDesc(anyLong(), any());
+                .findByFilter(filterCaptor.capture(), pageableCaptor.capture());
+        assertEquals(BookingRole.OWNER, filterCaptor.getValue().getRole());
+        assertEquals(BookingState.WAITING, filterCaptor.getValue().getState());
+        assertEquals(start, filterCaptor.getValue().getBeforeStart());
+        assertEquals(5L, filterCaptor.getValue().getBeforeId());
     }
 
     @Test
@@ -597,6 +605,30 @@ class BookingServiceImplTest {
         Mockito.verify(itemRepository, Mockito.times(1)).findById(bookingDto.getItemId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(userId);
         Mockito.verify(bookingRepository, Mockito.times(1)).save(any());
+        Mockito.verify(itemBookingLocks, Mockito.times(1)).lock(itemId);
+        Mockito.verify(itemBookingIndex, Mockito.times(1)).hasOverlap(itemId, start, end);
+        Mockito.verify(itemBookingIndex, Mockito.times(1)).update(savedBooking);
+        Mockito.verify(itemViewCache, Mockito.times(1)).evict(itemId);
+    }
+
+    @Test
+    void createTest_whenBookingOverlapsExisting_thenNotAvailableException() {
+        Long userId = 1L;
+        Long itemId = 1L;
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        User user = User.builder().id(userId).name("test").email("test@test.test").build();
+        User owner = User.builder().id(2L).name("test2").email("test2@test.test").build();
+        BookingDto bookingDto = BookingDto.builder().start(start)
+                .end(end).itemId(itemId).build();
+        Item item = Item.builder().id(itemId).available(true).owner(owner).build();
+        Mockito.when(itemRepository.findById(bookingDto.getItemId())).thenReturn(Optional.of(item));
+        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        Mockito.when(itemBookingIndex.hasOverlap(itemId, start, end)).thenReturn(true);
+
+        assertThrows(NotAvailableException.class, () -> bookingService.create(userId, bookingDto));
+        Mockito.verify(bookingRepository, Mockito.never()).save(any());
+        Mockito.verify(itemBookingIndex, Mockito.never()).update(any());
     }
 
     @Test
@@ -607,7 +639,7 @@ class BookingServiceImplTest {
         Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> bookingService.update(bookingId, ownerId, approved));
-        Mockito.verify(bookingRepository, Mockito.never()).save(any());
+        Mockito.verify(bookingRepository, Mockito.never()).saveAndFlush(any());
     }
 
     @Test
@@ -623,7 +655,7 @@ class BookingServiceImplTest {
         Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(bookingForUpdate));
 
         assertThrows(NotFoundException.class, () -> bookingService.update(bookingId, ownerId, approved));
-        Mockito.verify(bookingRepository, Mockito.never()).save(any());
+        Mockito.verify(bookingRepository, Mockito.never()).saveAndFlush(any());
     }
 
     @Test
@@ -640,7 +672,7 @@ class BookingServiceImplTest {
         Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(bookingForUpdate));
 
         assertThrows(NotAvailableException.class, () -> bookingService.update(bookingId, ownerId, approved));
-        Mockito.verify(bookingRepository, Mockito.never()).save(any());
+        Mockito.verify(bookingRepository, Mockito.never()).saveAndFlush(any());
     }
 
     @Test
@@ -657,7 +689,7 @@ class BookingServiceImplTest {
         Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(bookingForUpdate));
 
         assertThrows(NotAvailableException.class, () -> bookingService.update(bookingId, ownerId, approved));
-        Mockito.verify(bookingRepository, Mockito.never()).save(any());
+        Mockito.verify(bookingRepository, Mockito.never()).saveAndFlush(any());
     }
 
     @Test
@@ -672,12 +704,14 @@ class BookingServiceImplTest {
         Booking booking = Booking.builder().id(1L).booker(booker).item(item)
                 .status(BookingStatus.WAITING).build();
         Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
-        Mockito.when(bookingRepository.save(any())).thenReturn(booking);
+        Mockito.when(bookingRepository.saveAndFlush(any())).thenReturn(booking);
 
         BookingDto bookingDto = bookingService.update(bookingId, ownerId, approved);
 
         assertEquals(BookingStatus.APPROVED, bookingDto.getStatus());
-        Mockito.verify(bookingRepository, Mockito.times(1)).save(any());
+        Mockito.verify(bookingRepository, Mockito.times(1)).saveAndFlush(any());
+        Mockito.verify(itemBookingIndex, Mockito.times(1)).update(booking);
+        Mockito.verify(itemViewCache, Mockito.times(1)).evict(item.getId());
     }
 
     @Test
@@ -692,11 +726,103 @@ class BookingServiceImplTest {
         Booking booking = Booking.builder().id(1L).booker(booker).item(item)
                 .status(BookingStatus.WAITING).build();
         Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
-        Mockito.when(bookingRepository.save(any())).thenReturn(booking);
+        Mockito.when(bookingRepository.saveAndFlush(any())).thenReturn(booking);
 
         BookingDto bookingDto = bookingService.update(bookingId, ownerId, approved);
 
         assertEquals(BookingStatus.REJECTED, bookingDto.getStatus());
-        Mockito.verify(bookingRepository, Mockito.times(1)).save(any());
+        Mockito.verify(bookingRepository, Mockito.times(1)).saveAndFlush(any());
+        Mockito.verify(itemBookingIndex, Mockito.times(1)).update(booking);
+        Mockito.verify(itemViewCache, Mockito.times(1)).evict(item.getId());
+    }
+
+    @Test
+    void updateTest_whenApprovingOverlapsApprovedBooking_thenNotAvailableException() {
+        Long bookingId = 1L;
+        Long ownerId = 2L;
+        User booker = User.builder().id(1L).name("booker").email("booker@test.test").build();
+        User itemOwner = User.builder().id(ownerId).name("itemOwner").email("itemowner@test.test").build();
+        Item item = Item.builder().id(1L).name("test").owner(itemOwner).build();
+        Booking booking = Booking.builder().id(bookingId).booker(booker).item(item)
+                .start(LocalDateTime.now().plusDays(1)).end(LocalDateTime.now().plusDays(2))
+                .status(BookingStatus.WAITING).build();
+        Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        Mockito.when(itemBookingIndex.hasApprovedOverlap(item.getId(), booking.getStart(), booking.getEnd()))
+                .thenReturn(true);
+
+        assertThrows(NotAvailableException.class, () -> bookingService.update(bookingId, ownerId, true));
+        Mockito.verify(itemBookingLocks, Mockito.times(1)).lock(item.getId());
+        Mockito.verify(bookingRepository, Mockito.never()).saveAndFlush(any());
+        Mockito.verify(itemBookingIndex, Mockito.never()).update(any());
+    }
+
+    @Test
+    void updateTest_whenDatabaseRejectsOverlap_thenNotAvailableException() {
+        Long bookingId = 1L;
+        Long ownerId = 2L;
+        User booker = User.builder().id(1L).name("booker").email("booker@test.test").build();
+        User itemOwner = User.builder().id(ownerId).name("itemOwner").email("itemowner@test.test").build();
+        Item item = Item.builder().id(1L).name("test").owner(itemOwner).build();
+        Booking booking = Booking.builder().id(bookingId).booker(booker).item(item)
+                .status(BookingStatus.WAITING).build();
+        Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        Mockito.when(bookingRepository.saveAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("ex_bookings_approved_overlap"));
+
+        assertThrows(NotAvailableException.class, () -> bookingService.update(bookingId, ownerId, true));
+        Mockito.verify(itemBookingIndex, Mockito.never()).update(any());
+    }
+
+    @Test
+    void updateAllTest_whenBookingOfOtherOwner_thenItsItemNotLocked() {
+        Long ownerId = 2L;
+        User booker = User.builder().id(1L).name("booker").email("booker@test.test").build();
+        User itemOwner = User.builder().id(ownerId).name("itemOwner").email("itemowner@test.test").build();
+        User otherOwner = User.builder().id(3L).name("otherOwner").email("otherowner@test.test").build();
+        Item item = Item.builder().id(1L).name("test").owner(itemOwner).build();
+        Item otherItem = Item.builder().id(2L).name("other").owner(otherOwner).build();
+        Booking booking = Booking.builder().id(1L).booker(booker).item(item)
+                .start(LocalDateTime.now().plusDays(1)).end(LocalDateTime.now().plusDays(2))
+                .status(BookingStatus.WAITING).version(0L).build();
+        Booking otherBooking = Booking.builder().id(2L).booker(booker).item(otherItem)
+                .start(LocalDateTime.now().plusDays(1)).end(LocalDateTime.now().plusDays(2))
+                .status(BookingStatus.WAITING).version(0L).build();
+        Mockito.when(bookingRepository.findViewsByIdIn(Set.of(1L, 2L)))
+                .thenReturn(List.of(toView(booking), toView(otherBooking)));
+        Mockito.when(bookingRepository.updateStatusByIdIn(List.of(1L), BookingStatus.APPROVED)).thenReturn(1);
+
+        List<BatchResult<BookingDto>> results = bookingService.updateAll(ownerId, List.of(
+                BookingDecisionDto.builder().bookingId(1L).approved(true).build(),
+                BookingDecisionDto.builder().bookingId(2L).approved(true).build()));
+
+        assertNull(results.get(0).getError());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), results.get(1).getStatus());
+        Mockito.verify(itemBookingLocks, Mockito.times(1)).lockAll(Set.of(item.getId()));
+    }
+
+    @Test
+    void updateAllTest_whenDatabaseRejectsOverlap_thenAlreadyExistException() {
+        Long ownerId = 2L;
+        User booker = User.builder().id(1L).name("booker").email("booker@test.test").build();
+        User itemOwner = User.builder().id(ownerId).name("itemOwner").email("itemowner@test.test").build();
+        Item item = Item.builder().id(1L).name("test").owner(itemOwner).build();
+        Booking booking = Booking.builder().id(1L).booker(booker).item(item)
+                .start(LocalDateTime.now().plusDays(1)).end(LocalDateTime.now().plusDays(2))
+                .status(BookingStatus.WAITING).version(0L).build();
+        Mockito.when(bookingRepository.findViewsByIdIn(Set.of(1L))).thenReturn(List.of(toView(booking)));
+        Mockito.when(bookingRepository.updateStatusByIdIn(List.of(1L), BookingStatus.APPROVED))
+                .thenThrow(new DataIntegrityViolationException("ex_bookings_approved_overlap"));
+
+        assertThrows(AlreadyExistException.class, () -> bookingService.updateAll(ownerId,
+                List.of(BookingDecisionDto.builder().bookingId(1L).approved(true).build())));
+        Mockito.verify(itemBookingIndex, Mockito.never()).update(any(), any());
+    }
+
+    private BookingView toView(Booking booking) {
+        return new BookingView(booking.getId(), booking.getStart(), booking.getEnd(), booking.getStatus(),
+                booking.getVersion(), booking.getItem().getId(), booking.getItem().getName(),
+                booking.getItem().getDescription(), booking.getItem().getAvailable(), null,
+                booking.getItem().getOwner().getId(), booking.getItem().getVersion(), booking.getBooker().getId(),
+                booking.getBooker().getName(), booking.getBooker().getEmail(), booking.getBooker().getVersion());
     }
-}
\ No newline at end of file
+}
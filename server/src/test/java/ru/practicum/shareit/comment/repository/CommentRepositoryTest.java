@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
@@ -55,11 +56,14 @@ class CommentRepositoryTest {
     }
 
     @Test
-    void findByItemIdTest() {
-        List<Comment> commentsByItemId = repository.findByItemId(items.get(0).getId());
+    void findDtoByItemIdTest() {
+        List<CommentDto> commentsByItemId = repository.findDtoByItemId(items.get(0).getId());
 
         assertEquals(2, commentsByItemId.size());
-        assertEquals(comments.get(0), commentsByItemId.get(0));
-        assertEquals(comments.get(1), commentsByItemId.get(1));
+        assertEquals(comments.get(0).getId(), commentsByItemId.get(0).getId());
+        assertEquals(users.get(1).getName(), commentsByItemId.get(0).getAuthorName());
+        assertEquals(comments.get(1).getId(), commentsByItemId.get(1).getId());
+        assertEquals(users.get(2).getName(), commentsByItemId.get(1).getAuthorName());
+        assertEquals(comments.get(1).getText(), commentsByItemId.get(1).getText());
     }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.importer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.importer.service.ImportService;
+import ru.practicum.shareit.utils.NdjsonResponse;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = ImportController.class)
+class ImportControllerDisabledTest {
+    @Autowired
+    private MockMvc mvc;
+    @MockBean
+    private ImportService importService;
+
+    @Test
+    void importAllTest_whenImportNotEnabled_thenNotFound() throws Exception {
+        mvc.perform(post("/admin/import")
+                        .contentType(NdjsonResponse.CONTENT_TYPE)
+                        .content("{\"type\":\"user\",\"id\":1,\"name\":\"test\",\"email\":\"test@example.com\"}\n"))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(importService);
+    }
+}
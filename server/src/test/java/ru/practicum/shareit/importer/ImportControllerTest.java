@@ -0,0 +1,55 @@
+package ru.practicum.shareit.importer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.importer.dto.ImportReport;
+import ru.practicum.shareit.importer.service.ImportService;
+import ru.practicum.shareit.utils.NdjsonResponse;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = ImportController.class, properties = "shareit.import.enabled=true")
+class ImportControllerTest {
+    @Autowired
+    private MockMvc mvc;
+    @MockBean
+    private ImportService importService;
+
+    @Test
+    void importAllTest() throws Exception {
+        String body = "{\"type\":\"user\",\"id\":1,\"name\":\"test\",\"email\":\"test@example.com\"}\n";
+        when(importService.importAll(any())).thenAnswer(invocation -> {
+            InputStream input = invocation.getArgument(0);
+            assertEquals(body, new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            return ImportReport.builder()
+                    .lines(1)
+                    .imported(Map.of("users", 1L))
+                    .rejected(Map.of("users", 0L))
+                    .errors(List.of())
+                    .build();
+        });
+
+        mvc.perform(post("/admin/import")
+                        .contentType(NdjsonResponse.CONTENT_TYPE)
+                        .content(body)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lines", is(1)))
+                .andExpect(jsonPath("$.imported.users", is(1)));
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.importer.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.importer.dto.ImportReport;
+import ru.practicum.shareit.importer.service.ImportService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Transactional
+@SpringBootTest
+@ActiveProfiles("integrationtest")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ImportServiceImplIntegrationTest {
+    private final ImportService importService;
+    private final UserService userService;
+    private final ItemService itemService;
+
+    @Test
+    void importAllTest() throws IOException {
+        ImportReport report = importAll(
+                "{\"type\":\"user\",\"id\":10,\"name\":\"owner\",\"email\":\"owner@example.com\"}",
+                "{\"type\":\"user\",\"id\":11,\"name\":\"booker\",\"email\":\"booker@example.com\"}",
+                "{\"type\":\"item\",\"id\":20,\"ownerId\":10,\"name\":\"drill\",\"description\":\"cordless\","
+                        + "\"available\":true}",
+                "{\"type\":\"item\",\"id\":21,\"ownerId\":99,\"name\":\"saw\",\"available\":true}",
+                "{\"type\":\"booking\",\"id\":30,\"itemId\":20,\"bookerId\":11,\"start\":\"2020-01-01T10:00:00\","
+                        + "\"end\":\"2020-01-02T10:00:00\",\"status\":\"APPROVED\"}",
+                "{\"type\":\"comment\",\"id\":40,\"itemId\":20,\"authorId\":11,\"text\":\"works\","
+                        + "\"created\":\"2020-01-03T10:00:00\"}",
+                "not json",
+                "{\"type\":\"user\",\"id\":10,\"name\":\"again\",\"email\":\"again@example.com\"}"
+        );
+
+        assertEquals(8, report.getLines());
+        assertEquals(1, report.getMalformed());
+        assertEquals(Map.of("users", 2L, "items", 1L, "bookings", 1L, "comments", 1L), report.getImported());
+        assertEquals(Map.of("users", 1L, "items", 1L, "bookings", 0L, "comments", 0L), report.getRejected());
+        assertEquals(List.of("Строка 7: запись не разобрана.",
+                "Строка 8: пользователь с ID = 10 уже есть в импорте.",
+                "Строка 4: владелец с ID = 99 отсутствует в импорте."), report.getErrors());
+
+        List<UserDto> users = userService.getAll();
+        assertEquals(2, users.size());
+        UserDto owner = users.stream().filter(user -> user.getName().equals("owner")).findFirst().orElseThrow();
+        UserDto booker = users.stream().filter(user -> user.getName().equals("booker")).findFirst().orElseThrow();
+        List<ItemDto> items = itemService.getItemsByUserId(owner.getId(), 0, 10).getContent();
+        assertEquals(1, items.size());
+        assertEquals("drill", items.get(0).getName());
+        assertEquals(booker.getId(), items.get(0).getLastBooking().getBookerId());
+        ItemDto item = itemService.getItemById(owner.getId(), items.get(0).getId());
+        assertEquals("works", item.getComments().get(0).getText());
+        assertEquals("booker", item.getComments().get(0).getAuthorName());
+    }
+
+    @Test
+    void importAllTest_whenBookingDatesWrong_thenBookingRejected() throws IOException {
+        ImportReport report = importAll(
+                "{\"type\":\"user\",\"id\":1,\"name\":\"owner\",\"email\":\"owner@example.com\"}",
+                "{\"type\":\"item\",\"id\":1,\"ownerId\":1,\"name\":\"drill\",\"available\":true}",
+                "{\"type\":\"booking\",\"itemId\":1,\"bookerId\":1,\"start\":\"2020-01-02T10:00:00\","
+                        + "\"end\":\"2020-01-01T10:00:00\"}"
+        );
+
+        assertEquals(0L, report.getImported().get("bookings"));
+        assertEquals(List.of("Строка 3: некорректные даты бронирования."), report.getErrors());
+    }
+
+    private ImportReport importAll(String... lines) throws IOException {
+        return importService.importAll(new ByteArrayInputStream(String.join("\n", lines)
+                .getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,159 @@
+package ru.practicum.shareit.importer.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.index.ItemBookingIndex;
+import ru.practicum.shareit.importer.dto.ImportReport;
+import ru.practicum.shareit.importer.loader.ImportLoader;
+import ru.practicum.shareit.importer.loader.ImportTable;
+import ru.practicum.shareit.importer.loader.SequenceBlocks;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportServiceImplTest {
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ImportLoader importLoader;
+    @Mock
+    private SequenceBlocks sequenceBlocks;
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+    @Mock
+    private ItemBookingIndex itemBookingIndex;
+    @Mock
+    private ItemViewCache itemViewCache;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ImportServiceImpl importService;
+
+    @BeforeEach
+    void beforeEach() {
+        //not every import gets as far as a transaction
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        importService = new ImportServiceImpl(new ObjectMapper().findAndRegisterModules(),
+                new TransactionTemplate(transactionManager), importLoader, sequenceBlocks, itemSearchEngine,
+                itemBookingIndex, itemViewCache, meterRegistry, 2);
+    }
+
+    @Test
+    void importAllTest_whenChunkFull_thenChunkLoaded() throws IOException {
+        when(sequenceBlocks.next(ImportTable.USERS)).thenReturn(1L);
+        List<List<Object[]>> loaded = new ArrayList<>();
+        doAnswer(invocation -> loaded.add(invocation.getArgument(1)))
+                .when(importLoader).load(eq(ImportTable.USERS), anyList());
+
+        ImportReport report = importAll(user(1, "first"), user(2, "second"), user(3, "third"));
+
+        assertEquals(3L, report.getImported().get("users"));
+        assertEquals(List.of(2, 1), loaded.stream().map(List::size).collect(Collectors.toList()));
+        assertArrayEquals(new Object[]{3L, "third", "third@example.com"}, loaded.get(1).get(0));
+        verify(sequenceBlocks, times(1)).next(ImportTable.USERS);
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(3, meterRegistry.get("shareit.import.rows").tags("table", "users", "result", "imported")
+                .counter().count());
+    }
+
+    @Test
+    void importAllTest_whenChunkFailed_thenRowsLoadedOneByOne() throws IOException {
+        when(sequenceBlocks.next(any())).thenReturn(1L);
+        doAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            if (rows.stream().anyMatch(row -> row[1].equals("taken"))) {
+                throw new DataIntegrityViolationException("duplicate email");
+            }
+            return null;
+        }).when(importLoader).load(any(), anyList());
+
+        ImportReport report = importAll(user(1, "free"), user(2, "taken"), item(5, 2));
+
+        assertEquals(1L, report.getImported().get("users"));
+        assertEquals(1L, report.getRejected().get("users"));
+        assertEquals(1L, report.getRejected().get("items"));
+        assertEquals(List.of("Строка 2: запись противоречит уже сохраненным данным.",
+                "Строка 3: владелец с ID = 2 отсутствует в импорте."), report.getErrors());
+        //the chunk and the failing row are rolled back
+        verify(transactionManager, times(2)).rollback(any());
+    }
+
+    @Test
+    void importAllTest_whenIdBlockUsedUp_thenNextBlockTaken() throws IOException {
+        importService = new ImportServiceImpl(new ObjectMapper().findAndRegisterModules(),
+                new TransactionTemplate(transactionManager), importLoader, sequenceBlocks, itemSearchEngine,
+                itemBookingIndex, itemViewCache, meterRegistry, 100);
+        when(sequenceBlocks.next(ImportTable.USERS)).thenReturn(1L, 51L);
+        List<Object[]> loaded = new ArrayList<>();
+        doAnswer(invocation -> loaded.addAll(invocation.getArgument(1)))
+                .when(importLoader).load(eq(ImportTable.USERS), anyList());
+
+        importAll(IntStream.rangeClosed(1, 51).mapToObj(id -> user(id, "user" + id)).toArray(String[]::new));
+
+        assertEquals(50L, loaded.get(49)[0]);
+        assertEquals(51L, loaded.get(50)[0]);
+    }
+
+    @Test
+    void importAllTest_whenItemAndBookingImported_thenCachesUpdated() throws IOException {
+        when(sequenceBlocks.next(any())).thenReturn(1L);
+
+        ImportReport report = importAll(user(1, "owner"), item(1, 1),
+                "{\"type\":\"booking\",\"itemId\":1,\"bookerId\":1,\"start\":\"2020-01-01T10:00:00\","
+                        + "\"end\":\"2020-01-02T10:00:00\"}");
+
+        assertEquals(1L, report.getImported().get("bookings"));
+        verify(itemSearchEngine).index(argThat(item -> item.getId() == 1L && item.getName().equals("item")
+                && item.getAvailable()));
+        verify(itemBookingIndex).evict(1L);
+        verify(itemViewCache).evict(1L);
+    }
+
+    @Test
+    void importAllTest_whenTypeUnknown_thenLineMalformed() throws IOException {
+        ImportReport report = importAll("{\"type\":\"request\",\"id\":1}", "", "[");
+
+        assertEquals(3, report.getLines());
+        assertEquals(2, report.getMalformed());
+        assertEquals(List.of("Строка 1: запись не разобрана.", "Строка 3: запись не разобрана."),
+                report.getErrors());
+        verifyNoInteractions(importLoader);
+    }
+
+    private ImportReport importAll(String... lines) throws IOException {
+        return importService.importAll(new ByteArrayInputStream(String.join("\n", lines)
+                .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String user(long id, String name) {
+        return String.format("{\"type\":\"user\",\"id\":%d,\"name\":\"%s\",\"email\":\"%s@example.com\"}",
+                id, name, name);
+    }
+
+    private static String item(long id, long ownerId) {
+        return String.format("{\"type\":\"item\",\"id\":%d,\"ownerId\":%d,\"name\":\"item\",\"available\":true}",
+                id, ownerId);
+    }
+}
@@ -5,22 +5,30 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.exception.model.AccessException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.KeysetCursor;
+import ru.practicum.shareit.utils.KeysetPage;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -60,6 +68,25 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[0].description", is(itemDto.getDescription())));
     }
 
+    @Test
+    void getAllWithCursorTest() throws Exception {
+        KeysetCursor cursor = new KeysetCursor(null, 0L);
+        when(itemService.getAll(any(KeysetCursor.class), anyInt())).thenReturn(List.of(itemDto));
+
+        mvc.perform(get("/items/all")
+                        .param("cursor", cursor.encode())
+                        .param("size", "1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(KeysetCursor.NEXT_CURSOR_HEADER,
+                        new KeysetCursor(null, itemDto.getId()).encode()))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(itemDto.getId()), Long.class));
+        verify(itemService, times(1)).getAll(cursor, 1);
+    }
+
     @Test
     void getItemByIdTest() throws Exception {
         when(itemService.getItemById(anyLong(), anyLong())).thenReturn(itemDto);
@@ -74,9 +101,53 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.description", is(itemDto.getDescription())));
     }
 
+    @Test
+    void getItemByIdTest_whenIfNoneMatchIsCurrentETag_thenNotModified() throws Exception {
+        when(itemService.getItemById(anyLong(), anyLong())).thenReturn(itemDto);
+        String etag = mvc.perform(get("/items/{id}", 1)
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/items/{id}", 1)
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getItemByIdTest_whenItemVersionChanged_thenReturned() throws Exception {
+        when(itemService.getItemById(anyLong(), anyLong())).thenReturn(itemDto);
+        String etag = mvc.perform(get("/items/{id}", 1)
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        ItemDto updatedItemDto = ItemDto.builder()
+                .id(1L)
+                .name("test")
+                .description("new description")
+                .available(true)
+                .version(1L)
+                .build();
+        when(itemService.getItemById(anyLong(), anyLong())).thenReturn(updatedItemDto);
+
+        mvc.perform(get("/items/{id}", 1)
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description", is(updatedItemDto.getDescription())));
+    }
+
     @Test
     void getItemsByUserIdTest() throws Exception {
-        when(itemService.getItemsByUserId(anyLong(), anyInt(), anyInt())).thenReturn(List.of(itemDto));
+        when(itemService.getItemsByUserId(anyLong(), anyInt(), anyInt()))
+                .thenReturn(new KeysetPage<>(List.of(itemDto), null));
 
         mvc.perform(get("/items")
                         .header("X-Sharer-User-Id", 1)
@@ -91,6 +162,39 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[0].description", is(itemDto.getDescription())));
     }
 
+    @Test
+    void getItemsByUserIdWithCursorTest() throws Exception {
+        KeysetCursor cursor = new KeysetCursor(null, 1L);
+        KeysetCursor next = new KeysetCursor(LocalDateTime.of(2030, 1, 1, 10, 0), itemDto.getId());
+        when(itemService.getItemsByUserId(anyLong(), any(KeysetCursor.class), anyInt()))
+                .thenReturn(new KeysetPage<>(List.of(itemDto), next));
+
+        mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("cursor", cursor.encode())
+                        .param("size", "1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(KeysetCursor.NEXT_CURSOR_HEADER, next.encode()))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(itemDto.getId()), Long.class));
+        verify(itemService, times(1)).getItemsByUserId(1L, cursor, 1);
+    }
+
+    @Test
+    void getItemsByUserIdWithInvalidCursorTest() throws Exception {
+        mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("cursor", "not a cursor")
+                        .param("size", "1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void searchTest() throws Exception {
         when(itemService.search(anyString(), anyInt(), anyInt())).thenReturn(List.of(itemDto));
@@ -123,6 +227,28 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.description", is(itemDto.getDescription())));
     }
 
+    @Test
+    void createAllTest() throws Exception {
+        when(itemService.createAll(anyLong(), anyList())).thenReturn(List.of(BatchResult.created(0, itemDto),
+                BatchResult.failed(1, HttpStatus.NOT_FOUND, "Запроса с ID = 5 не существует.")));
+
+        mvc.perform(post("/items/batch")
+                        .content(mapper.writeValueAsString(List.of(itemDto, itemDto)))
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].index", is(0)))
+                .andExpect(jsonPath("$[0].status", is(201)))
+                .andExpect(jsonPath("$[0].result.id", is(itemDto.getId()), Long.class))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].status", is(404)))
+                .andExpect(jsonPath("$[1].error", is("Запроса с ID = 5 не существует.")))
+                .andExpect(jsonPath("$[1].result").doesNotExist());
+    }
+
     @Test
     void createWithoutUserIdTest() throws Exception {
         mvc.perform(post("/items")
@@ -186,4 +312,20 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.id", is(commentDto.getId()), Long.class))
                 .andExpect(jsonPath("$.text", is(commentDto.getText())));
     }
-}
\ No newline at end of file
+
+    @Test
+    void exportItemsByUserIdTest() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ItemDto> consumer = invocation.getArgument(1);
+            consumer.accept(itemDto);
+            return null;
+        }).when(itemService).exportItemsByUserId(anyLong(), any());
+
+        mvc.perform(get("/items/export")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string(mapper.writeValueAsString(itemDto) + "\n"));
+        verify(itemService).exportItemsByUserId(eq(1L), any());
+    }
+}
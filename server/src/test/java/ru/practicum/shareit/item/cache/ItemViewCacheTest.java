@@ -0,0 +1,113 @@
+package ru.practicum.shareit.item.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemViewCacheTest {
+    private static final Long OWNER_ID = 1L;
+    private static final Long OTHER_USER_ID = 2L;
+
+    private final ItemViewCache itemViewCache = new ItemViewCache();
+    private final LocalDateTime now = LocalDateTime.of(2023, 1, 1, 12, 0);
+
+    @Test
+    void getTest_whenOwnerViewBeforeNextBookingStart_thenReturned() {
+        ItemDto itemDto = makeItemDto(1L, now.plusHours(1));
+        itemViewCache.putOwnerView(OWNER_ID, itemDto, itemViewCache.version());
+
+        ItemDto cachedItemDto = itemViewCache.get(1L, OWNER_ID, now.plusMinutes(59));
+
+        assertEquals(itemDto, cachedItemDto);
+    }
+
+    @Test
+    void getTest_whenNextBookingStarted_thenOwnerViewExpired() {
+        itemViewCache.putOwnerView(OWNER_ID, makeItemDto(1L, now.plusHours(1)), itemViewCache.version());
+
+        assertNull(itemViewCache.get(1L, OWNER_ID, now.plusHours(1)));
+        assertNull(itemViewCache.get(1L, OWNER_ID, now));
+    }
+
+    @Test
+    void getTest_whenNoNextBooking_thenOwnerViewNotExpired() {
+        itemViewCache.putOwnerView(OWNER_ID, makeItemDto(1L, null), itemViewCache.version());
+
+        assertNotNull(itemViewCache.get(1L, OWNER_ID, now.plusYears(1)));
+    }
+
+    @Test
+    void getTest_whenViewOfAnotherAudience_thenNotReturned() {
+        itemViewCache.putOwnerView(OWNER_ID, makeItemDto(1L, null), itemViewCache.version());
+        itemViewCache.putPublicView(OWNER_ID, makeItemDto(2L, null), itemViewCache.version());
+
+        assertNull(itemViewCache.get(1L, OTHER_USER_ID, now));
+        assertNull(itemViewCache.get(2L, OWNER_ID, now));
+        assertNotNull(itemViewCache.get(2L, OTHER_USER_ID, now));
+    }
+
+    @Test
+    void putTest_whenEvictedAfterRead_thenNotCached() {
+        long version = itemViewCache.version();
+        itemViewCache.evict(1L);
+
+        itemViewCache.putOwnerView(OWNER_ID, makeItemDto(1L, null), version);
+
+        assertNull(itemViewCache.get(1L, OWNER_ID, now));
+    }
+
+    @Test
+    void evictTest_whenEvicted_thenBothViewsRemoved() {
+        itemViewCache.putOwnerView(OWNER_ID, makeItemDto(1L, null), itemViewCache.version());
+        itemViewCache.putPublicView(OWNER_ID, makeItemDto(1L, null), itemViewCache.version());
+        itemViewCache.putPublicView(OWNER_ID, makeItemDto(2L, null), itemViewCache.version());
+
+        itemViewCache.evict(1L);
+
+        assertNull(itemViewCache.get(1L, OWNER_ID, now));
+        assertNull(itemViewCache.get(1L, OTHER_USER_ID, now));
+        assertNotNull(itemViewCache.get(2L, OTHER_USER_ID, now));
+    }
+
+    @Test
+    void evictAllTest_whenEvicted_thenAllViewsRemoved() {
+        itemViewCache.putOwnerView(OWNER_ID, makeItemDto(1L, null), itemViewCache.version());
+        itemViewCache.putPublicView(OWNER_ID, makeItemDto(2L, null), itemViewCache.version());
+
+        itemViewCache.evictAll();
+
+        assertNull(itemViewCache.get(1L, OWNER_ID, now));
+        assertNull(itemViewCache.get(2L, OTHER_USER_ID, now));
+    }
+
+    @Test
+    void getTest_whenReturnedViewChanged_thenCachedViewUnchanged() {
+        itemViewCache.putPublicView(OWNER_ID, makeItemDto(1L, null), itemViewCache.version());
+
+        ItemDto itemDto = itemViewCache.get(1L, OTHER_USER_ID, now);
+        itemDto.setName("changed");
+
+        assertEquals("item", itemViewCache.get(1L, OTHER_USER_ID, now).getName());
+    }
+
+    private ItemDto makeItemDto(Long id, LocalDateTime nextBookingStart) {
+        List<CommentDto> comments = new ArrayList<>();
+        comments.add(CommentDto.builder().id(1L).text("comment").build());
+        return ItemDto.builder()
+                .id(id)
+                .name("item")
+                .description("description")
+                .available(true)
+                .nextBooking(nextBookingStart == null ? null : BookingDto.builder().id(1L)
+                        .start(nextBookingStart).end(nextBookingStart.plusHours(1)).build())
+                .comments(comments)
+                .build();
+    }
+}
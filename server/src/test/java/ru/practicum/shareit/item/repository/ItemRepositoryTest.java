@@ -6,12 +6,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -57,30 +62,125 @@ class ItemRepositoryTest {
     }
 
     @Test
-    void findByOwnerIdTest() {
-        List<Item> itemByOwner = repository.findByOwnerId(users.get(1).getId(),
-                PageRequest.of(0, 3));
+    void findByOwnerIdWithNextBookingAfterTest() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime nextStart = now.plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        em.persist(Booking.builder().start(nextStart.plusDays(2)).end(nextStart.plusDays(3)).item(items.get(2))
+                .booker(users.get(0)).status(BookingStatus.APPROVED).build());
+        em.persist(Booking.builder().start(nextStart).end(nextStart.plusDays(1)).item(items.get(2))
+                .booker(users.get(0)).status(BookingStatus.APPROVED).build());
+        em.persist(Booking.builder().start(now.minusDays(2)).end(now.minusDays(1)).item(items.get(1))
+                .booker(users.get(0)).status(BookingStatus.APPROVED).build());
+        em.persist(Booking.builder().start(now.plusHours(1)).end(now.plusHours(2)).item(items.get(1))
+                .booker(users.get(0)).status(BookingStatus.WAITING).build());
+
+        List<ItemView> itemByOwner = repository.findByOwnerIdWithNextBookingAfter(users.get(1).getId(), now, now,
+                0L, PageRequest.of(0, 3));
+
+        assertEquals(List.of(toView(items.get(2), nextStart)), itemByOwner);
+        assertEquals(1, repository.countByOwnerIdWithNextBooking(users.get(1).getId(), now));
+        assertTrue(repository.findByOwnerIdWithNextBookingAfter(users.get(1).getId(), now, nextStart,
+                items.get(2).getId(), PageRequest.of(0, 3)).isEmpty());
+    }
+
+    @Test
+    void findByOwnerIdWithNextBookingAfterTest_whenSameNextStart_thenOrderedById() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime nextStart = now.plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        em.persist(Booking.builder().start(nextStart).end(nextStart.plusDays(1)).item(items.get(2))
+                .booker(users.get(0)).status(BookingStatus.APPROVED).build());
+        em.persist(Booking.builder().start(nextStart).end(nextStart.plusDays(1)).item(items.get(1))
+                .booker(users.get(0)).status(BookingStatus.APPROVED).build());
+
+        List<ItemView> itemByOwner = repository.findByOwnerIdWithNextBookingAfter(users.get(1).getId(), now,
+                nextStart, items.get(1).getId(), PageRequest.of(0, 3));
 
-        assertEquals(2, itemByOwner.size());
-        assertEquals(items.get(1), itemByOwner.get(0));
-        assertEquals(items.get(2), itemByOwner.get(1));
+        assertEquals(List.of(toView(items.get(2), nextStart)), itemByOwner);
+    }
+
+    @Test
+    void findByOwnerIdWithoutNextBookingAfterTest() {
+        List<ItemView> itemByOwner = repository.findByOwnerIdWithoutNextBookingAfter(users.get(1).getId(),
+                LocalDateTime.now(), items.get(1).getId(), PageRequest.of(0, 3));
+
+        assertEquals(List.of(toView(items.get(2))), itemByOwner);
+    }
+
+    @Test
+    void streamByOwnerIdTest() {
+        try (Stream<ItemView> itemsByOwner = repository.streamByOwnerId(users.get(1).getId())) {
+            assertEquals(List.of(toView(items.get(1)), toView(items.get(2))),
+                    itemsByOwner.collect(Collectors.toList()));
+        }
     }
 
     @Test
     void searchTest() {
-        List<Item> itemBySearch = repository.search("2",
+        List<ItemView> itemBySearch = repository.search("2",
                 PageRequest.of(0, 3));
 
         assertEquals(2, itemBySearch.size());
-        assertEquals(items.get(1), itemBySearch.get(0));
-        assertEquals(items.get(2), itemBySearch.get(1));
+        assertEquals(toView(items.get(1)), itemBySearch.get(0));
+        assertEquals(toView(items.get(2)), itemBySearch.get(1));
     }
 
     @Test
-    void findByRequestIdTest() {
-        List<Item> itemByRequest = repository.findByRequestId(requests.get(0).getId());
+    void streamAvailableTest() {
+        em.persist(Item.builder().name("3").description("3").available(false).owner(users.get(0)).build());
+
+        List<Item> availableItems;
+        try (Stream<Item> stream = repository.streamAvailable()) {
+            availableItems = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(3, availableItems.size());
+        assertTrue(availableItems.containsAll(items));
+    }
+
+    @Test
+    void findByRequestIdInTest() {
+        Item secondRequestItem = em.persist(Item.builder().name("3").description("3").available(true)
+                .owner(users.get(0)).request(requests.get(1)).build());
+
+        List<ItemView> itemByRequest = repository.findByRequestIdIn(List.of(requests.get(0).getId(),
+                requests.get(1).getId(), requests.get(2).getId()));
+
+        assertEquals(List.of(toView(items.get(1)), toView(secondRequestItem)), itemByRequest);
+    }
+
+    @Test
+    void findViewByIdTest() {
+        assertEquals(toView(items.get(1)), repository.findViewById(items.get(1).getId()).orElseThrow());
+        assertEquals(toView(items.get(0)), repository.findViewById(items.get(0).getId()).orElseThrow());
+    }
+
+    @Test
+    void findViewsByIdInTest() {
+        List<ItemView> views = repository.findViewsByIdIn(List.of(items.get(0).getId(), items.get(2).getId()));
+
+        assertEquals(2, views.size());
+        assertTrue(views.containsAll(List.of(toView(items.get(0)), toView(items.get(2)))));
+    }
+
+    @Test
+    void findByIdGreaterThanOrderByIdAscTest() {
+        List<Item> firstPage = repository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 2));
+        List<Item> secondPage = repository.findByIdGreaterThanOrderByIdAsc(firstPage.get(1).getId(),
+                PageRequest.of(0, 2));
+
+        assertEquals(List.of(items.get(0), items.get(1)), firstPage);
+        assertEquals(List.of(items.get(2)), secondPage);
+    }
+
+    private ItemView toView(Item item) {
+        return new ItemView(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getRequest() == null ? null : item.getRequest().getId(), item.getOwner().getId(),
+                item.getVersion());
+    }
 
-        assertEquals(1, itemByRequest.size());
-        assertEquals(items.get(1), itemByRequest.get(0));
+    private ItemView toView(Item item, LocalDateTime nextStart) {
+        return new ItemView(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getRequest() == null ? null : item.getRequest().getId(), item.getOwner().getId(),
+                item.getVersion(), nextStart);
     }
-}
\ No newline at end of file
+}
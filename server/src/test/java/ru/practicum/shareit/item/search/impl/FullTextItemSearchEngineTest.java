@@ -0,0 +1,62 @@
+package ru.practicum.shareit.item.search.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemView;
+import ru.practicum.shareit.utils.OffsetPageRequest;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+class FullTextItemSearchEngineTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @InjectMocks
+    private FullTextItemSearchEngine searchEngine;
+
+    @Test
+    void searchTest_whenTextHasSurroundingSpaces_thenTrimmedTextSearched() {
+        OffsetPageRequest pageRequest = new OffsetPageRequest(0, 2);
+        List<ItemView> items = List.of(new ItemView(1L, "drill", null, true, null, 1L, 0L));
+        Mockito.when(itemRepository.searchFullTextIds("drill", pageRequest)).thenReturn(List.of(BigInteger.ONE));
+        Mockito.when(itemRepository.findViewsByIdIn(List.of(1L))).thenReturn(items);
+
+        List<ItemView> result = searchEngine.search(" drill ", pageRequest);
+
+        assertEquals(items, result);
+        Mockito.verify(itemRepository, Mockito.never()).search(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void searchTest_whenSeveralItemsFound_thenRankOrderKept() {
+        OffsetPageRequest pageRequest = new OffsetPageRequest(0, 3);
+        ItemView first = new ItemView(1L, "drill", null, true, null, 1L, 0L);
+        ItemView second = new ItemView(2L, "drill bit", null, true, null, 1L, 0L);
+        ItemView third = new ItemView(3L, "hammer drill", null, true, null, 1L, 0L);
+        Mockito.when(itemRepository.searchFullTextIds("drill", pageRequest))
+                .thenReturn(List.of(BigInteger.valueOf(3), BigInteger.ONE, BigInteger.TWO));
+        Mockito.when(itemRepository.findViewsByIdIn(List.of(3L, 1L, 2L))).thenReturn(List.of(first, second, third));
+
+        List<ItemView> result = searchEngine.search("drill", pageRequest);
+
+        assertEquals(List.of(third, first, second), result);
+    }
+
+    @Test
+    void searchTest_whenNothingFound_thenViewsNotQueried() {
+        OffsetPageRequest pageRequest = new OffsetPageRequest(0, 2);
+        Mockito.when(itemRepository.searchFullTextIds("drill", pageRequest)).thenReturn(List.of());
+
+        assertTrue(searchEngine.search("drill", pageRequest).isEmpty());
+        Mockito.verify(itemRepository, Mockito.never()).findViewsByIdIn(Mockito.any());
+    }
+}
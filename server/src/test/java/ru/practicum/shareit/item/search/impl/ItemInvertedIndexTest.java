@@ -0,0 +1,66 @@
+package ru.practicum.shareit.item.search.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemInvertedIndexTest {
+    private ItemInvertedIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        index = new ItemInvertedIndex();
+        index.put(3L, "Дрель", "Аккумуляторная дрель");
+        index.put(1L, "Отвертка", "Простая отвертка");
+        index.put(2L, "Перфоратор", null);
+    }
+
+    @Test
+    void searchTest_whenSubstringOfNameOrDescription_thenIdsInAscendingOrder() {
+        assertArrayEquals(new long[]{3L}, index.search("дРЕл"));
+        assertArrayEquals(new long[]{1L, 3L}, index.search("ая"));
+        assertArrayEquals(new long[]{2L}, index.search("ПЕРФО"));
+    }
+
+    @Test
+    void searchTest_whenAllGramsPresentButNoSubstring_thenEmpty() {
+        index.put(4L, "абвг", "вгде");
+
+        assertArrayEquals(new long[0], index.search("абвгде"));
+    }
+
+    @Test
+    void searchTest_whenTextBlankOrUnknown_thenEmpty() {
+        assertArrayEquals(new long[0], index.search(""));
+        assertArrayEquals(new long[0], index.search("молоток"));
+    }
+
+    @Test
+    void putTest_whenItemReindexed_thenOldTextNotFound() {
+        index.put(3L, "Молоток", null);
+
+        assertArrayEquals(new long[0], index.search("дрель"));
+        assertArrayEquals(new long[]{3L}, index.search("молоток"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void removeTest() {
+        index.remove(3L);
+        index.remove(42L);
+
+        assertArrayEquals(new long[0], index.search("дрель"));
+        assertArrayEquals(new long[]{1L}, index.search("ая"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void clearTest() {
+        index.clear();
+
+        assertArrayEquals(new long[0], index.search("ая"));
+        assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.item.search.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemView;
+import ru.practicum.shareit.utils.OffsetPageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(MockitoExtension.class)
+class LikeItemSearchEngineTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @InjectMocks
+    private LikeItemSearchEngine searchEngine;
+
+    @Test
+    void searchTest() {
+        OffsetPageRequest pageRequest = new OffsetPageRequest(0, 2);
+        List<ItemView> items = List.of(new ItemView(1L, "drill", null, true, null, 1L, 0L));
+        Mockito.when(itemRepository.search("drill", pageRequest)).thenReturn(items);
+
+        List<ItemView> result = searchEngine.search("drill", pageRequest);
+
+        assertEquals(items, result);
+        Mockito.verify(itemRepository, Mockito.times(1)).search("drill", pageRequest);
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.item.search.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemView;
+import ru.practicum.shareit.utils.OffsetPageRequest;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+
+@ExtendWith(MockitoExtension.class)
+class MemoryItemSearchEngineTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private EntityManager entityManager;
+    @InjectMocks
+    private MemoryItemSearchEngine searchEngine;
+    private List<Item> items;
+    private List<ItemView> views;
+
+    @BeforeEach
+    void beforeEach() {
+        items = List.of(
+                Item.builder().id(1L).name("Дрель").description("Дрель ударная").available(true).build(),
+                Item.builder().id(2L).name("Отвертка").description("Аккумуляторная отвертка").available(true).build(),
+                Item.builder().id(3L).name("Дрель").description("Аккумуляторная дрель").available(true).build()
+        );
+        views = items.stream()
+                .map(item -> new ItemView(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                        null, 1L, 0L))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void searchTest_whenIndexNotBuilt_thenDatabaseSearch() {
+        OffsetPageRequest pageRequest = new OffsetPageRequest(0, 2);
+        Mockito.when(itemRepository.search("дрель", pageRequest)).thenReturn(List.of(views.get(0)));
+
+        List<ItemView> result = searchEngine.search("дрель", pageRequest);
+
+        assertEquals(List.of(views.get(0)), result);
+        Mockito.verify(itemRepository, Mockito.never()).findViewsByIdIn(any());
+    }
+
+    @Test
+    void searchTest_whenIndexBuilt_thenPageHydratedInOneBatch() {
+        Mockito.when(itemRepository.streamAvailable()).thenReturn(items.stream());
+        Mockito.when(itemRepository.findViewsByIdIn(List.of(3L))).thenReturn(List.of(views.get(2)));
+        searchEngine.rebuild();
+
+        List<ItemView> result = searchEngine.search("дрель", new OffsetPageRequest(1, 5));
+
+        assertEquals(List.of(views.get(2)), result);
+        Mockito.verify(itemRepository, Mockito.never()).search(any(), any());
+        Mockito.verify(itemRepository, Mockito.times(1)).findViewsByIdIn(anyCollection());
+        Mockito.verify(entityManager, Mockito.times(3)).detach(any());
+    }
+
+    @Test
+    void searchTest_whenIndexedItemDeletedByCascade_thenRemovedFromIndex() {
+        Mockito.when(itemRepository.streamAvailable()).thenReturn(items.stream());
+        Mockito.when(itemRepository.findViewsByIdIn(List.of(2L, 3L))).thenReturn(List.of(views.get(2)));
+        Mockito.when(itemRepository.findViewsByIdIn(List.of(3L))).thenReturn(List.of(views.get(2)));
+        searchEngine.rebuild();
+
+        List<ItemView> result = searchEngine.search("аккум", new OffsetPageRequest(0, 5));
+
+        assertEquals(List.of(views.get(2)), result);
+        Mockito.verify(itemRepository, Mockito.times(2)).findViewsByIdIn(anyCollection());
+    }
+
+    @Test
+    void indexTest_whenItemCreatedUpdatedAndDeleted_thenIndexFollows() {
+        Mockito.when(itemRepository.streamAvailable()).thenReturn(Stream.empty());
+        searchEngine.rebuild();
+        Item item = Item.builder().id(4L).name("Молоток").description("Молоток").available(true).build();
+        ItemView view = new ItemView(4L, "Молоток", "Молоток", true, null, 1L, 0L);
+        Mockito.when(itemRepository.findViewsByIdIn(List.of(4L))).thenReturn(List.of(view));
+
+        searchEngine.index(item);
+        assertEquals(List.of(view), searchEngine.search("молот", new OffsetPageRequest(0, 5)));
+
+        item.setAvailable(false);
+        searchEngine.index(item);
+        assertTrue(searchEngine.search("молот", new OffsetPageRequest(0, 5)).isEmpty());
+
+        item.setAvailable(true);
+        searchEngine.index(item);
+        searchEngine.remove(item.getId());
+        assertTrue(searchEngine.search("молот", new OffsetPageRequest(0, 5)).isEmpty());
+        Mockito.verify(itemRepository, Mockito.times(1)).findViewsByIdIn(anyCollection());
+    }
+}
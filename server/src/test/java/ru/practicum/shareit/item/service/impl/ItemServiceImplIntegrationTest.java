@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,11 +18,17 @@ import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.KeysetCursor;
+import ru.practicum.shareit.utils.KeysetPage;
 
 import javax.persistence.EntityManager;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -63,6 +71,37 @@ class ItemServiceImplIntegrationTest {
         assertEquals(itemDtoToCreate.getAvailable(), itemDto.getAvailable());
     }
 
+    @Test
+    void createAllTest_whenRequestNotExists_thenOnlyThatElementFailed() {
+        ItemRequest request = ItemRequest.builder().description("1").requestor(users.get(1))
+                .created(LocalDateTime.now()).build();
+        entityManager.persist(request);
+        ItemDto itemForRequest = makeItemDto("item2", "item2 description", true);
+        itemForRequest.setRequestId(request.getId());
+        ItemDto itemForMissingRequest = makeItemDto("item3", "item3 description", true);
+        itemForMissingRequest.setRequestId(request.getId() + 100);
+
+        List<BatchResult<ItemDto>> results = itemService.createAll(users.get(0).getId(),
+                List.of(makeItemDto("item1", "item1 description", true), itemForRequest, itemForMissingRequest));
+
+        assertEquals(3, results.size());
+        assertEquals(201, results.get(0).getStatus());
+        assertNotNull(results.get(0).getResult().getId());
+        assertEquals(201, results.get(1).getStatus());
+        assertEquals(request.getId(), results.get(1).getResult().getRequestId());
+        assertEquals(2, results.get(2).getIndex());
+        assertEquals(404, results.get(2).getStatus());
+        assertNull(results.get(2).getResult());
+        assertEquals(2, itemService.getItemsByUserId(users.get(0).getId(), 0, 10).getContent().size());
+    }
+
+    @Test
+    void createAllTest_whenUserNotExists_thenNotFoundException() {
+        List<ItemDto> itemDtos = List.of(makeItemDto("item1", "item1 description", true));
+
+        assertThrows(NotFoundException.class, () -> itemService.createAll(999L, itemDtos));
+    }
+
     @Test
     void updateDescriptionTest() {
         ItemDto itemDtoToCreate = makeItemDto("item1", "item1 description", true);
@@ -78,6 +117,17 @@ class ItemServiceImplIntegrationTest {
         assertEquals(createdItemDto.getAvailable(), itemDto.getAvailable());
     }
 
+    @Test
+    void updateTest_whenUpdated_thenVersionIncremented() {
+        ItemDto createdItemDto = itemService.create(users.get(0).getId(),
+                makeItemDto("item1", "item1 description", true));
+
+        itemService.update(createdItemDto.getId(), users.get(0).getId(), makeItemDto("itemUpdate", null, null));
+        ItemDto itemDto = itemService.getItemById(users.get(1).getId(), createdItemDto.getId());
+
+        assertEquals(createdItemDto.getVersion() + 1, itemDto.getVersion());
+    }
+
     @Test
     void updateNameTest() {
         ItemDto itemDtoToCreate = makeItemDto("item1", "item1 description", true);
@@ -152,6 +202,29 @@ class ItemServiceImplIntegrationTest {
         assertTrue(itemDto.getComments().isEmpty());
     }
 
+    @Test
+    void getItemByIdTest_whenOwnerViewsAgain_thenNoStatementExecuted() {
+        ItemDto createdItemDto = itemService.create(users.get(0).getId(),
+                makeItemDto("item1", "item1 description", true));
+        Booking nextBooking = Booking.builder()
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .item(itemMapper.toItem(createdItemDto, users.get(0)))
+                .booker(users.get(1))
+                .status(BookingStatus.APPROVED).build();
+        entityManager.persist(nextBooking);
+        ItemDto itemDto = itemService.getItemById(users.get(0).getId(), createdItemDto.getId());
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        ItemDto cachedItemDto = itemService.getItemById(users.get(0).getId(), createdItemDto.getId());
+
+        assertEquals(itemDto, cachedItemDto);
+        assertEquals(nextBooking.getId(), cachedItemDto.getNextBooking().getId());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
     @Test
     void deleteTest() {
         ItemDto itemDtoToCreate = makeItemDto("item1", "item1 description", true);
@@ -211,7 +284,7 @@ class ItemServiceImplIntegrationTest {
                 .status(BookingStatus.APPROVED).build();
         entityManager.persist(nextBooking2);
 
-        List<ItemDto> itemDtos = itemService.getItemsByUserId(users.get(0).getId(), 0, 2);
+        List<ItemDto> itemDtos = itemService.getItemsByUserId(users.get(0).getId(), 0, 2).getContent();
 
         assertFalse(itemDtos.isEmpty());
         assertEquals(2, itemDtos.size());
@@ -223,6 +296,121 @@ class ItemServiceImplIntegrationTest {
         assertNotNull(itemDtos.get(1).getNextBooking());
     }
 
+    @Test
+    void getItemsByUserIdWithCursorTest_whenEveryPageWalked_thenEveryItemOnceInOrder() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        List<ItemDto> created = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            created.add(itemService.create(users.get(0).getId(), makeItemDto("item" + i, "description", true)));
+        }
+        itemService.create(users.get(1).getId(), makeItemDto("other", "description", true));
+        persistBooking(created.get(5), start.plusDays(3), BookingStatus.APPROVED);
+        persistBooking(created.get(5), start.plusDays(1), BookingStatus.APPROVED);
+        persistBooking(created.get(2), start.plusDays(1), BookingStatus.APPROVED);
+        persistBooking(created.get(0), start.plusDays(2), BookingStatus.APPROVED);
+        persistBooking(created.get(7), start, BookingStatus.APPROVED);
+        persistBooking(created.get(1), start, BookingStatus.WAITING);
+        persistBooking(created.get(3), start.minusDays(3), BookingStatus.APPROVED);
+        entityManager.flush();
+        List<Long> expected = List.of(created.get(7).getId(), created.get(2).getId(), created.get(5).getId(),
+                created.get(0).getId(), created.get(1).getId(), created.get(3).getId(), created.get(4).getId(),
+                created.get(6).getId());
+
+        for (int size = 1; size <= 9; size++) {
+            KeysetPage<ItemDto> page = itemService.getItemsByUserId(users.get(0).getId(), 0, size);
+            List<Long> walked = new ArrayList<>();
+            page.getContent().forEach(itemDto -> walked.add(itemDto.getId()));
+            while (page.getNext() != null) {
+                KeysetCursor cursor = KeysetCursor.decode(page.getNext().encode());
+                page = itemService.getItemsByUserId(users.get(0).getId(), cursor, size);
+                page.getContent().forEach(itemDto -> walked.add(itemDto.getId()));
+            }
+
+            assertEquals(expected, walked, "size = " + size);
+        }
+    }
+
+    @Test
+    void getItemsByUserIdTest_whenFromPastItemsWithNextBooking_thenPageTakenFromTail() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<ItemDto> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(itemService.create(users.get(0).getId(), makeItemDto("item" + i, "description", true)));
+        }
+        persistBooking(created.get(3), start, BookingStatus.APPROVED);
+        persistBooking(created.get(1), start.plusDays(1), BookingStatus.APPROVED);
+        entityManager.flush();
+
+        List<Long> page = itemService.getItemsByUserId(users.get(0).getId(), 3, 2).getContent().stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(created.get(2).getId(), created.get(4).getId()), page);
+    }
+
+    @Test
+    void exportItemsByUserIdTest() {
+        ItemDto first = itemService.create(users.get(0).getId(), makeItemDto("item1", "item1 description", true));
+        ItemDto second = itemService.create(users.get(0).getId(), makeItemDto("item2", "item2 description", false));
+        itemService.create(users.get(1).getId(), makeItemDto("item3", "item3 description", true));
+        List<ItemDto> exported = new ArrayList<>();
+
+        itemService.exportItemsByUserId(users.get(0).getId(), exported::add);
+
+        assertEquals(List.of(first.getId(), second.getId()), exported.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals("item2", exported.get(1).getName());
+        assertFalse(exported.get(1).getAvailable());
+        assertNull(exported.get(0).getComments());
+    }
+
+    @Test
+    void exportItemsByUserIdTest_whenUserNotExists_thenNotFoundException() {
+        List<ItemDto> exported = new ArrayList<>();
+
+        assertThrows(NotFoundException.class, () -> itemService.exportItemsByUserId(-1L, exported::add));
+        assertTrue(exported.isEmpty());
+    }
+
+    @Test
+    void getItemsByUserIdQueryCountDoesNotDependOnPageSizeTest() {
+        for (int i = 0; i < 10; i++) {
+            ItemDto createdItemDto = itemService.create(users.get(0).getId(),
+                    makeItemDto("item" + i, "item" + i + " description", true));
+            entityManager.persist(Booking.builder()
+                    .start(LocalDateTime.now().minusDays(2))
+                    .end(LocalDateTime.now().minusDays(1))
+                    .item(itemMapper.toItem(createdItemDto, users.get(0)))
+                    .booker(users.get(1))
+                    .status(BookingStatus.APPROVED).build());
+            entityManager.persist(Booking.builder()
+                    .start(LocalDateTime.now().plusDays(i + 1))
+                    .end(LocalDateTime.now().plusDays(i + 2))
+                    .item(itemMapper.toItem(createdItemDto, users.get(0)))
+                    .booker(users.get(1))
+                    .status(BookingStatus.APPROVED).build());
+        }
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+
+        entityManager.clear();
+        statistics.clear();
+        List<ItemDto> smallPage = itemService.getItemsByUserId(users.get(0).getId(), 0, 2).getContent();
+        long smallPageQueryCount = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        statistics.clear();
+        List<ItemDto> bigPage = itemService.getItemsByUserId(users.get(0).getId(), 0, 10).getContent();
+        long bigPageQueryCount = statistics.getPrepareStatementCount();
+
+        assertEquals(2, smallPage.size());
+        assertEquals(10, bigPage.size());
+        assertTrue(bigPage.stream().allMatch(itemDto -> itemDto.getLastBooking() != null
+                && itemDto.getNextBooking() != null));
+        assertEquals(smallPageQueryCount, bigPageQueryCount);
+    }
+
     @Test
     void searchTest() {
         ItemDto itemDtoToCreate = makeItemDto("item1", "item1 description", true);
@@ -256,6 +444,15 @@ class ItemServiceImplIntegrationTest {
         assertEquals(commentDtoToCreate.getText(), commentDto.getText());
     }
 
+    private void persistBooking(ItemDto itemDto, LocalDateTime start, BookingStatus status) {
+        entityManager.persist(Booking.builder()
+                .start(start)
+                .end(start.plusHours(1))
+                .item(itemMapper.toItem(itemDto, users.get(0)))
+                .booker(users.get(2))
+                .status(status).build());
+    }
+
     private ItemDto makeItemDto(String name, String description, Boolean available) {
         return ItemDto.builder()
                 .name(name)
@@ -10,6 +10,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.index.ItemBookingIndex;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.mapper.impl.BookingMapperImpl;
 import ru.practicum.shareit.booking.model.Booking;
@@ -23,26 +24,36 @@ import ru.practicum.shareit.comment.repository.CommentRepository;
 import ru.practicum.shareit.exception.model.AccessException;
 import ru.practicum.shareit.exception.model.NotAvailableException;
 import ru.practicum.shareit.exception.model.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.mapper.impl.ItemMapperImpl;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemView;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.mapper.impl.UserMapperImpl;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utils.KeysetCursor;
+import ru.practicum.shareit.utils.KeysetPage;
+import ru.practicum.shareit.utils.OffsetPageRequest;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 
 @ExtendWith(MockitoExtension.class)
 class ItemServiceImplTest {
@@ -56,6 +67,12 @@ class ItemServiceImplTest {
     private CommentRepository commentRepository;
     @Mock
     private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+    @Mock
+    private ItemBookingIndex itemBookingIndex;
+    @Mock
+    private ItemViewCache itemViewCache;
     @Spy
     private ItemMapper itemMapper = new ItemMapperImpl();
     private final UserMapper userMapper = new UserMapperImpl();
@@ -96,18 +113,31 @@ class ItemServiceImplTest {
         Mockito.verify(itemRepository, Mockito.times(1)).findAll(any(Pageable.class));
     }
 
+    @Test
+    void getAllWithCursorTest_thenQueriedItemsAfterCursorId() {
+        Item item = Item.builder().id(6L).build();
+        Mockito.when(itemRepository.findByIdGreaterThanOrderByIdAsc(eq(5L), any(Pageable.class)))
+                .thenReturn(List.of(item));
+
+        List<ItemDto> itemsDto = itemService.getAll(new KeysetCursor(null, 5L), 2);
+
+        assertEquals(1, itemsDto.size());
+        assertEquals(item.getId(), itemsDto.get(0).getId());
+        Mockito.verify(itemRepository, Mockito.never()).findAll(any(Pageable.class));
+    }
+
     @Test
     void getItemByIdTest_whenItemNotExist_thenNotFoundException() {
         Long userId = 1L;
         Long itemId = 1L;
-        Mockito.when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
+        Mockito.when(itemRepository.findViewById(itemId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> itemService.getItemById(userId, itemId));
-        Mockito.verify(commentRepository, Mockito.never()).findByItemId(anyLong());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(anyLong(), any(), any());
+        Mockito.verify(commentRepository, Mockito.never()).findDtoByItemId(anyLong());
+        Mockito.verify(itemBookingIndex, Mockito.never())
+                .findLastBookings(anyCollection(), any());
+        Mockito.verify(itemBookingIndex, Mockito.never())
+                .findNextBookings(anyCollection(), any());
     }
 
     @Test
@@ -119,30 +149,46 @@ class ItemServiceImplTest {
         User nextBooker = User.builder().id(3L).name("nextBooker").email("nextbooker@test.test").build();
         Item item = Item.builder().id(itemId).name("testItem").description("test description")
                 .owner(user).build();
-        List<Comment> comments = List.of(Comment.builder().id(1L).text("test text").author(lastBooker).build());
+        List<CommentDto> comments = List.of(CommentDto.builder().id(1L).text("test text")
+                .authorName(lastBooker.getName()).build());
         Booking lastBooking = Booking.builder().id(1L).item(item).status(BookingStatus.APPROVED)
                 .booker(lastBooker).build();
         Booking nextBooking = Booking.builder().id(2L).item(item).status(BookingStatus.APPROVED)
                 .booker(nextBooker).build();
-        Mockito.when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        Mockito.when(commentRepository.findByItemId(item.getId())).thenReturn(comments);
-        Mockito.when(bookingRepository
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(anyLong(), any(), any()))
-                .thenReturn(lastBooking);
-        Mockito.when(bookingRepository
-                .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(anyLong(), any(), any()))
-                .thenReturn(nextBooking);
+        Mockito.when(itemRepository.findViewById(itemId)).thenReturn(Optional.of(toView(item)));
+        Mockito.when(commentRepository.findDtoByItemId(item.getId())).thenReturn(comments);
+        Mockito.when(itemBookingIndex.findLastBookings(anyCollection(), any()))
+                .thenReturn(Map.of(lastBooking.getItem().getId(), lastBooking));
+        Mockito.when(itemBookingIndex.findNextBookings(anyCollection(), any()))
+                .thenReturn(Map.of(nextBooking.getItem().getId(), nextBooking));
 
         ItemDto itemDto = itemService.getItemById(userId, itemId);
 
         assertEquals(itemId, itemDto.getId());
         assertEquals(lastBooking.getId(), itemDto.getLastBooking().getId());
         assertEquals(nextBooking.getId(), itemDto.getNextBooking().getId());
-        Mockito.verify(commentRepository, Mockito.times(1)).findByItemId(anyLong());
-        Mockito.verify(bookingRepository, Mockito.times(1))
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.times(1))
-                .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(anyLong(), any(), any());
+        Mockito.verify(commentRepository, Mockito.times(1)).findDtoByItemId(anyLong());
+        Mockito.verify(itemBookingIndex, Mockito.times(1))
+                .findLastBookings(anyCollection(), any());
+        Mockito.verify(itemBookingIndex, Mockito.times(1))
+                .findNextBookings(anyCollection(), any());
+        Mockito.verify(itemViewCache, Mockito.times(1)).putOwnerView(eq(userId), eq(itemDto), anyLong());
+    }
+
+    @Test
+    void getItemByIdTest_whenViewCached_thenRepositoriesNotCalled() {
+        Long userId = 1L;
+        Long itemId = 1L;
+        ItemDto cachedItemDto = ItemDto.builder().id(itemId).name("testItem").build();
+        Mockito.when(itemViewCache.get(eq(itemId), eq(userId), any())).thenReturn(cachedItemDto);
+
+        ItemDto itemDto = itemService.getItemById(userId, itemId);
+
+        assertEquals(cachedItemDto, itemDto);
+        Mockito.verify(itemRepository, Mockito.never()).findViewById(anyLong());
+        Mockito.verify(commentRepository, Mockito.never()).findDtoByItemId(anyLong());
+        Mockito.verify(itemBookingIndex, Mockito.never())
+                .findLastBookings(anyCollection(), any());
     }
 
     @Test
@@ -152,19 +198,20 @@ class ItemServiceImplTest {
         User user = User.builder().id(3L).name("name").email("test@test.test").build();
         Item item = Item.builder().id(itemId).name("testItem").description("test description")
                 .owner(user).build();
-        List<Comment> comments = List.of(Comment.builder().id(1L).text("test text")
-                .author(User.builder().id(1L).build()).build());
-        Mockito.when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        Mockito.when(commentRepository.findByItemId(item.getId())).thenReturn(comments);
+        List<CommentDto> comments = List.of(CommentDto.builder().id(1L).text("test text").build());
+        Mockito.when(itemRepository.findViewById(itemId)).thenReturn(Optional.of(toView(item)));
+        Mockito.when(commentRepository.findDtoByItemId(item.getId())).thenReturn(comments);
 
         ItemDto itemDto = itemService.getItemById(userId, itemId);
 
         assertEquals(itemId, itemDto.getId());
-        Mockito.verify(commentRepository, Mockito.times(1)).findByItemId(anyLong());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(anyLong(), any(), any());
+        assertEquals(comments, itemDto.getComments());
+        Mockito.verify(commentRepository, Mockito.times(1)).findDtoByItemId(anyLong());
+        Mockito.verify(itemBookingIndex, Mockito.never())
+                .findLastBookings(anyCollection(), any());
+        Mockito.verify(itemBookingIndex, Mockito.never())
+                .findNextBookings(anyCollection(), any());
+        Mockito.verify(itemViewCache, Mockito.times(1)).putPublicView(eq(user.getId()), eq(itemDto), anyLong());
     }
 
     @Test
@@ -175,11 +222,11 @@ class ItemServiceImplTest {
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> itemService.getItemsByUserId(userId, from, size));
-        Mockito.verify(itemRepository, Mockito.never()).findByOwnerId(anyLong(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(anyLong(), any(), any());
+        Mockito.verify(itemRepository, Mockito.never()).findByOwnerIdWithNextBookingAfter(anyLong(), any(), any(), anyLong(), any());
+        Mockito.verify(itemBookingIndex, Mockito.never())
+                .findLastBookings(anyCollection(), any());
+        Mockito.verify(itemBookingIndex, Mockito.never())
+                .findNextBookings(anyCollection(), any());
     }
 
     @Test
@@ -189,17 +236,17 @@ class ItemServiceImplTest {
         Integer size = 2;
         User user = User.builder().id(3L).name("name").email("test@test.test").build();
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        Mockito.when(itemRepository.findByOwnerId(anyLong(), any())).thenReturn(Collections.emptyList());
+        Mockito.when(itemRepository.findByOwnerIdWithNextBookingAfter(anyLong(), any(), any(), anyLong(), any())).thenReturn(Collections.emptyList());
 
-        List<ItemDto> itemsDto = itemService.getItemsByUserId(userId, from, size);
+        List<ItemDto> itemsDto = itemService.getItemsByUserId(userId, from, size).getContent();
 
         assertTrue(itemsDto.isEmpty());
         Mockito.verify(userRepository, Mockito.times(1)).findById(userId);
-        Mockito.verify(itemRepository, Mockito.times(1)).findByOwnerId(anyLong(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.never())
-                .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(anyLong(), any(), any());
+        Mockito.verify(itemRepository, Mockito.times(1)).findByOwnerIdWithNextBookingAfter(anyLong(), any(), any(), anyLong(), any());
+        Mockito.verify(itemBookingIndex, Mockito.never())
+                .findLastBookings(anyCollection(), any());
+        Mockito.verify(itemBookingIndex, Mockito.never())
+                .findNextBookings(anyCollection(), any());
     }
 
     @Test
@@ -214,9 +261,10 @@ class ItemServiceImplTest {
         User nextBooker2 = User.builder().id(3L).name("nextBooker2").email("nextbooker2@test.test").build();
         Item item = Item.builder().id(1L).name("testItem").description("test description")
                 .owner(user).build();
-        Item item2 = Item.builder().id(1L).name("testItem2").description("test description2")
+        Item item2 = Item.builder().id(2L).name("testItem2").description("test description2")
                 .owner(user).build();
-        List<Item> items = List.of(item, item2);
+        List<ItemView> items = List.of(toView(item, LocalDateTime.now().plusMinutes(30)),
+                toView(item2, LocalDateTime.now().plusMinutes(40)));
         Booking lastBooking = Booking.builder().id(1L).item(item).status(BookingStatus.APPROVED)
                 .booker(lastBooker).build();
         Booking nextBooking = Booking.builder().id(2L).item(item).status(BookingStatus.APPROVED)
@@ -226,26 +274,24 @@ class ItemServiceImplTest {
         Booking nextBooking2 = Booking.builder().id(4L).item(item2).status(BookingStatus.APPROVED)
                 .booker(nextBooker2).start(LocalDateTime.now().plusMinutes(40)).build();
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        Mockito.when(itemRepository.findByOwnerId(anyLong(), any())).thenReturn(items);
-        Mockito.when(bookingRepository
-                        .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(anyLong(), any(), any()))
-                .thenReturn(lastBooking).thenReturn(lastBooking2);
-        Mockito.when(bookingRepository
-                        .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(anyLong(), any(), any()))
-                .thenReturn(nextBooking).thenReturn(nextBooking2);
+        Mockito.when(itemRepository.findByOwnerIdWithNextBookingAfter(anyLong(), any(), any(), anyLong(), any())).thenReturn(items);
+        Mockito.when(itemBookingIndex.findLastBookings(anyCollection(), any()))
+                .thenReturn(Map.of(lastBooking.getItem().getId(), lastBooking, lastBooking2.getItem().getId(), lastBooking2));
+        Mockito.when(itemBookingIndex.findNextBookings(anyCollection(), any()))
+                .thenReturn(Map.of(nextBooking.getItem().getId(), nextBooking, nextBooking2.getItem().getId(), nextBooking2));
 
-        List<ItemDto> itemsDto = itemService.getItemsByUserId(userId, from, size);
+        List<ItemDto> itemsDto = itemService.getItemsByUserId(userId, from, size).getContent();
 
         assertFalse(itemsDto.isEmpty());
         assertEquals(2, itemsDto.size());
         assertEquals(item.getId(), itemsDto.get(0).getId());
         assertEquals(lastBooking.getId(), itemsDto.get(0).getLastBooking().getId());
         assertEquals(nextBooking.getId(), itemsDto.get(0).getNextBooking().getId());
-        Mockito.verify(itemRepository, Mockito.times(1)).findByOwnerId(anyLong(), any());
-        Mockito.verify(bookingRepository, Mockito.times(2))
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.times(2))
-                .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(anyLong(), any(), any());
+        Mockito.verify(itemRepository, Mockito.times(1)).findByOwnerIdWithNextBookingAfter(anyLong(), any(), any(), anyLong(), any());
+        Mockito.verify(itemBookingIndex, Mockito.times(1))
+                .findLastBookings(anyCollection(), any());
+        Mockito.verify(itemBookingIndex, Mockito.times(1))
+                .findNextBookings(anyCollection(), any());
     }
 
     @Test
@@ -259,9 +305,10 @@ class ItemServiceImplTest {
         User lastBooker2 = User.builder().id(2L).name("lastBooker2").email("lastbooker2@test.test").build();
         Item item = Item.builder().id(1L).name("testItem").description("test description")
                 .owner(user).build();
-        Item item2 = Item.builder().id(1L).name("testItem2").description("test description2")
+        Item item2 = Item.builder().id(2L).name("testItem2").description("test description2")
                 .owner(user).build();
-        List<Item> items = List.of(item, item2);
+        List<ItemView> items = List.of(toView(item, LocalDateTime.now().plusMinutes(30)),
+                toView(item2, LocalDateTime.now().plusMinutes(40)));
         Booking lastBooking = Booking.builder().id(1L).item(item).status(BookingStatus.APPROVED)
                 .booker(lastBooker).build();
         Booking nextBooking = Booking.builder().id(2L).item(item).status(BookingStatus.APPROVED)
@@ -269,30 +316,28 @@ class ItemServiceImplTest {
         Booking lastBooking2 = Booking.builder().id(3L).item(item2).status(BookingStatus.APPROVED)
                 .booker(lastBooker2).build();
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        Mockito.when(itemRepository.findByOwnerId(anyLong(), any())).thenReturn(items);
-        Mockito.when(bookingRepository
-                        .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(anyLong(), any(), any()))
-                .thenReturn(lastBooking).thenReturn(lastBooking2);
-        Mockito.when(bookingRepository
-                        .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(anyLong(), any(), any()))
-                .thenReturn(nextBooking).thenReturn(null);
+        Mockito.when(itemRepository.findByOwnerIdWithNextBookingAfter(anyLong(), any(), any(), anyLong(), any())).thenReturn(items);
+        Mockito.when(itemBookingIndex.findLastBookings(anyCollection(), any()))
+                .thenReturn(Map.of(lastBooking.getItem().getId(), lastBooking, lastBooking2.getItem().getId(), lastBooking2));
+        Mockito.when(itemBookingIndex.findNextBookings(anyCollection(), any()))
+                .thenReturn(Map.of(nextBooking.getItem().getId(), nextBooking));
 
-        List<ItemDto> itemsDto = itemService.getItemsByUserId(userId, from, size);
+        List<ItemDto> itemsDto = itemService.getItemsByUserId(userId, from, size).getContent();
 
         assertFalse(itemsDto.isEmpty());
         assertEquals(2, itemsDto.size());
         assertEquals(item.getId(), itemsDto.get(0).getId());
         assertEquals(lastBooking.getId(), itemsDto.get(0).getLastBooking().getId());
         assertEquals(nextBooking.getId(), itemsDto.get(0).getNextBooking().getId());
-        Mockito.verify(itemRepository, Mockito.times(1)).findByOwnerId(anyLong(), any());
-        Mockito.verify(bookingRepository, Mockito.times(2))
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.times(2))
-                .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(anyLong(), any(), any());
+        Mockito.verify(itemRepository, Mockito.times(1)).findByOwnerIdWithNextBookingAfter(anyLong(), any(), any(), anyLong(), any());
+        Mockito.verify(itemBookingIndex, Mockito.times(1))
+                .findLastBookings(anyCollection(), any());
+        Mockito.verify(itemBookingIndex, Mockito.times(1))
+                .findNextBookings(anyCollection(), any());
     }
 
     @Test
-    void getItemsByUserId_whenItemNextBookingNull_thenListSize2() {
+    void getItemsByUserId_whenItemNextBookingNull_thenRepositoryOrderKept() {
         Long userId = 1L;
         Integer from = 0;
         Integer size = 2;
@@ -303,9 +348,10 @@ class ItemServiceImplTest {
         User nextBooker2 = User.builder().id(3L).name("nextBooker2").email("nextbooker2@test.test").build();
         Item item = Item.builder().id(1L).name("testItem").description("test description")
                 .owner(user).build();
-        Item item2 = Item.builder().id(1L).name("testItem2").description("test description2")
+        Item item2 = Item.builder().id(2L).name("testItem2").description("test description2")
                 .owner(user).build();
-        List<Item> items = List.of(item, item2);
+        List<ItemView> items = List.of(toView(item, LocalDateTime.now().plusMinutes(30)),
+                toView(item2, LocalDateTime.now().plusMinutes(40)));
         Booking lastBooking = Booking.builder().id(1L).item(item).status(BookingStatus.APPROVED)
                 .booker(lastBooker).build();
         Booking lastBooking2 = Booking.builder().id(3L).item(item2).status(BookingStatus.APPROVED)
@@ -313,26 +359,112 @@ class ItemServiceImplTest {
         Booking nextBooking2 = Booking.builder().id(4L).item(item2).status(BookingStatus.APPROVED)
                 .booker(nextBooker2).start(LocalDateTime.now().plusMinutes(40)).build();
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        Mockito.when(itemRepository.findByOwnerId(anyLong(), any())).thenReturn(items);
-        Mockito.when(bookingRepository
-                        .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(anyLong(), any(), any()))
-                .thenReturn(lastBooking).thenReturn(lastBooking2);
-        Mockito.when(bookingRepository
-                        .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(anyLong(), any(), any()))
-                .thenReturn(null).thenReturn(nextBooking2);
+        Mockito.when(itemRepository.findByOwnerIdWithNextBookingAfter(anyLong(), any(), any(), anyLong(), any())).thenReturn(items);
+        Mockito.when(itemBookingIndex.findLastBookings(anyCollection(), any()))
+                .thenReturn(Map.of(lastBooking.getItem().getId(), lastBooking, lastBooking2.getItem().getId(), lastBooking2));
+        Mockito.when(itemBookingIndex.findNextBookings(anyCollection(), any()))
+                .thenReturn(Map.of(nextBooking2.getItem().getId(), nextBooking2));
 
-        List<ItemDto> itemsDto = itemService.getItemsByUserId(userId, from, size);
+        List<ItemDto> itemsDto = itemService.getItemsByUserId(userId, from, size).getContent();
 
         assertFalse(itemsDto.isEmpty());
         assertEquals(2, itemsDto.size());
-        assertEquals(item2.getId(), itemsDto.get(0).getId());
-        assertEquals(lastBooking2.getId(), itemsDto.get(0).getLastBooking().getId());
-        assertEquals(nextBooking2.getId(), itemsDto.get(0).getNextBooking().getId());
-        Mockito.verify(itemRepository, Mockito.times(1)).findByOwnerId(anyLong(), any());
-        Mockito.verify(bookingRepository, Mockito.times(2))
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrderByEndDesc(anyLong(), any(), any());
-        Mockito.verify(bookingRepository, Mockito.times(2))
-                .findFirstByItemIdAndStatusAndStartIsAfterOrderByStartAsc(anyLong(), any(), any());
+        assertEquals(item.getId(), itemsDto.get(0).getId());
+        assertNull(itemsDto.get(0).getNextBooking());
+        assertEquals(item2.getId(), itemsDto.get(1).getId());
+        assertEquals(lastBooking2.getId(), itemsDto.get(1).getLastBooking().getId());
+        assertEquals(nextBooking2.getId(), itemsDto.get(1).getNextBooking().getId());
+        Mockito.verify(itemRepository, Mockito.times(1)).findByOwnerIdWithNextBookingAfter(anyLong(), any(), any(), anyLong(), any());
+        Mockito.verify(itemBookingIndex, Mockito.times(1))
+                .findLastBookings(anyCollection(), any());
+        Mockito.verify(itemBookingIndex, Mockito.times(1))
+                .findNextBookings(anyCollection(), any());
+    }
+
+    @Test
+    void getItemsByUserIdWithCursor_whenCursorHasNextStart_thenQueriedAfterNextStart() {
+        Long userId = 1L;
+        LocalDateTime nextStart = LocalDateTime.now().plusDays(1);
+        KeysetCursor cursor = new KeysetCursor(nextStart, 5L);
+        User user = User.builder().id(userId).name("name").email("test@test.test").build();
+        Item item = Item.builder().id(6L).name("testItem").description("test description")
+                .owner(user).build();
+        Item item2 = Item.builder().id(2L).name("testItem2").description("test description2")
+                .owner(user).build();
+        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        Mockito.when(itemRepository.findByOwnerIdWithNextBookingAfter(anyLong(), any(), any(), anyLong(), any()))
+                .thenReturn(List.of(toView(item, nextStart), toView(item2, nextStart.plusHours(1))));
+
+        KeysetPage<ItemDto> page = itemService.getItemsByUserId(userId, cursor, 2);
+
+        assertEquals(2, page.getContent().size());
+        assertEquals(item.getId(), page.getContent().get(0).getId());
+        assertEquals(new KeysetCursor(nextStart.plusHours(1), item2.getId()), page.getNext());
+        Mockito.verify(itemRepository, Mockito.times(1))
+                .findByOwnerIdWithNextBookingAfter(eq(userId), any(), eq(nextStart), eq(5L), any());
+        Mockito.verify(itemRepository, Mockito.never())
+                .findByOwnerIdWithoutNextBookingAfter(anyLong(), any(), anyLong(), any());
+    }
+
+    @Test
+    void getItemsByUserIdWithCursor_whenItemsWithNextBookingRunOut_thenPageFilledFromTail() {
+        Long userId = 1L;
+        LocalDateTime nextStart = LocalDateTime.now().plusDays(1);
+        KeysetCursor cursor = new KeysetCursor(nextStart, 5L);
+        User user = User.builder().id(userId).name("name").email("test@test.test").build();
+        Item item = Item.builder().id(6L).name("testItem").description("test description")
+                .owner(user).build();
+        Item item2 = Item.builder().id(2L).name("testItem2").description("test description2")
+                .owner(user).build();
+        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        Mockito.when(itemRepository.findByOwnerIdWithNextBookingAfter(anyLong(), any(), any(), anyLong(), any()))
+                .thenReturn(List.of(toView(item, nextStart.plusHours(1))));
+        Mockito.when(itemRepository.findByOwnerIdWithoutNextBookingAfter(anyLong(), any(), anyLong(), any()))
+                .thenReturn(List.of(toView(item2)));
+
+        KeysetPage<ItemDto> page = itemService.getItemsByUserId(userId, cursor, 2);
+
+        assertEquals(List.of(item.getId(), item2.getId()), page.getContent().stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals(new KeysetCursor(null, item2.getId()), page.getNext());
+        Mockito.verify(itemRepository, Mockito.times(1))
+                .findByOwnerIdWithoutNextBookingAfter(eq(userId), any(), eq(0L), eq(new OffsetPageRequest(0, 1)));
+    }
+
+    @Test
+    void getItemsByUserId_whenFromPastItemsWithNextBooking_thenTailSkipsTheRest() {
+        Long userId = 1L;
+        User user = User.builder().id(userId).name("name").email("test@test.test").build();
+        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        Mockito.when(itemRepository.countByOwnerIdWithNextBooking(eq(userId), any())).thenReturn(3L);
+
+        KeysetPage<ItemDto> page = itemService.getItemsByUserId(userId, 10, 5);
+
+        assertTrue(page.getContent().isEmpty());
+        assertNull(page.getNext());
+        Mockito.verify(itemRepository, Mockito.times(1))
+                .findByOwnerIdWithNextBookingAfter(eq(userId), any(), any(), eq(0L), eq(new OffsetPageRequest(10, 5)));
+        Mockito.verify(itemRepository, Mockito.times(1))
+                .findByOwnerIdWithoutNextBookingAfter(eq(userId), any(), eq(0L), eq(new OffsetPageRequest(7, 5)));
+    }
+
+    @Test
+    void getItemsByUserIdWithCursor_whenCursorWithoutNextStart_thenQueriedItemsWithoutNextBooking() {
+        Long userId = 1L;
+        KeysetCursor cursor = new KeysetCursor(null, 5L);
+        User user = User.builder().id(userId).name("name").email("test@test.test").build();
+        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        Mockito.when(itemRepository.findByOwnerIdWithoutNextBookingAfter(anyLong(), any(), anyLong(), any()))
+                .thenReturn(Collections.emptyList());
+
+        List<ItemDto> itemsDto = itemService.getItemsByUserId(userId, cursor, 2).getContent();
+
+        assertTrue(itemsDto.isEmpty());
+        Mockito.verify(itemRepository, Mockito.times(1))
+                .findByOwnerIdWithoutNextBookingAfter(eq(userId), any(), eq(5L), any());
+        Mockito.verify(itemBookingIndex, Mockito.never())
+                .findNextBookings(anyCollection(), any());
     }
 
     @Test
@@ -344,7 +476,7 @@ class ItemServiceImplTest {
         List<ItemDto> itemsDto = itemService.search(text, from, size);
 
         assertTrue(itemsDto.isEmpty());
-        Mockito.verify(itemRepository, Mockito.never()).search(any(), any());
+        Mockito.verify(itemSearchEngine, Mockito.never()).search(any(), any());
     }
 
     @Test
@@ -356,7 +488,7 @@ class ItemServiceImplTest {
         List<ItemDto> itemsDto = itemService.search(text, from, size);
 
         assertTrue(itemsDto.isEmpty());
-        Mockito.verify(itemRepository, Mockito.never()).search(any(), any());
+        Mockito.verify(itemSearchEngine, Mockito.never()).search(any(), any());
     }
 
     @Test
@@ -364,12 +496,12 @@ class ItemServiceImplTest {
         String text = "text";
         Integer from = 0;
         Integer size = 2;
-        Mockito.when(itemRepository.search(any(), any())).thenReturn(Collections.emptyList());
+        Mockito.when(itemSearchEngine.search(any(), any())).thenReturn(Collections.emptyList());
 
         List<ItemDto> itemsDto = itemService.search(text, from, size);
 
         assertTrue(itemsDto.isEmpty());
-        Mockito.verify(itemRepository, Mockito.times(1)).search(any(), any());
+        Mockito.verify(itemSearchEngine, Mockito.times(1)).search(any(), any());
     }
 
     @Test
@@ -380,14 +512,13 @@ class ItemServiceImplTest {
         User user = User.builder().id(1L).name("name").email("test@test.test").build();
         Item item = Item.builder().id(1L).name("testItem").description("test description")
                 .owner(user).build();
-        List<Item> items = List.of(item);
-        Mockito.when(itemRepository.search(any(), any())).thenReturn(items);
+        Mockito.when(itemSearchEngine.search(any(), any())).thenReturn(List.of(toView(item)));
 
         List<ItemDto> itemsDto = itemService.search(text, from, size);
 
         assertFalse(itemsDto.isEmpty());
         assertEquals(item.getId(), itemsDto.get(0).getId());
-        Mockito.verify(itemRepository, Mockito.times(1)).search(any(), any());
+        Mockito.verify(itemSearchEngine, Mockito.times(1)).search(any(), any());
     }
 
     @Test
@@ -436,6 +567,7 @@ class ItemServiceImplTest {
         assertEquals(itemDtoToCreate.getDescription(), itemDto.getDescription());
         assertEquals(itemDtoToCreate.getRequestId(), itemDto.getRequestId());
         Mockito.verify(itemRepository, Mockito.times(1)).save(any());
+        Mockito.verify(itemSearchEngine, Mockito.times(1)).index(savedItem);
         Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
         Mockito.verify(itemRequestRepository, Mockito.times(1)).findById(anyLong());
     }
@@ -483,6 +615,7 @@ class ItemServiceImplTest {
         Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
         Mockito.verify(itemRepository, Mockito.times(1)).findById(anyLong());
         Mockito.verify(itemRepository, Mockito.never()).save(any());
+        Mockito.verify(itemSearchEngine, Mockito.never()).index(any());
     }
 
     @Test
@@ -503,6 +636,8 @@ class ItemServiceImplTest {
         Mockito.verify(userRepository, Mockito.times(1)).findById(anyLong());
         Mockito.verify(itemRepository, Mockito.times(1)).findById(anyLong());
         Mockito.verify(itemRepository, Mockito.times(1)).save(any());
+        Mockito.verify(itemSearchEngine, Mockito.times(1)).index(item);
+        Mockito.verify(itemViewCache, Mockito.times(1)).evict(itemId);
     }
 
     @Test
@@ -547,6 +682,7 @@ class ItemServiceImplTest {
 
         assertThrows(AccessException.class, () -> itemService.delete(itemId, userId));
         Mockito.verify(itemRepository, Mockito.never()).deleteById(anyLong());
+        Mockito.verify(itemSearchEngine, Mockito.never()).remove(anyLong());
     }
 
     @Test
@@ -560,6 +696,9 @@ class ItemServiceImplTest {
         itemService.delete(itemId, userId);
 
         Mockito.verify(itemRepository, Mockito.times(1)).deleteById(anyLong());
+        Mockito.verify(itemSearchEngine, Mockito.times(1)).remove(itemId);
+        Mockito.verify(itemBookingIndex, Mockito.times(1)).evict(itemId);
+        Mockito.verify(itemViewCache, Mockito.times(1)).evict(itemId);
     }
 
     @Test
@@ -643,5 +782,16 @@ class ItemServiceImplTest {
         Mockito.verify(bookingRepository, Mockito.times(1))
                 .findByBookerIdAndItemIdAndStatusAndEndIsBefore(anyLong(), anyLong(), any(), any());
         Mockito.verify(commentRepository, Mockito.times(1)).save(any());
+        Mockito.verify(itemViewCache, Mockito.times(1)).evict(itemId);
+    }
+
+    private ItemView toView(Item item) {
+        return new ItemView(item.getId(), item.getName(), item.getDescription(), item.getAvailable(), null,
+                item.getOwner().getId(), item.getVersion());
+    }
+
+    private ItemView toView(Item item, LocalDateTime nextStart) {
+        return new ItemView(item.getId(), item.getName(), item.getDescription(), item.getAvailable(), null,
+                item.getOwner().getId(), item.getVersion(), nextStart);
     }
-}
\ No newline at end of file
+}
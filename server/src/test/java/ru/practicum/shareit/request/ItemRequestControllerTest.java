@@ -9,6 +9,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.utils.BatchResult;
+import ru.practicum.shareit.utils.KeysetCursor;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -17,9 +19,12 @@ import java.util.List;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -37,6 +42,24 @@ class ItemRequestControllerTest {
             .created(LocalDateTime.now())
             .build();
 
+    @Test
+    void createAllTest() throws Exception {
+        when(itemRequestService.createAll(anyLong(), anyList())).thenReturn(List.of(BatchResult.created(0,
+                itemRequestDto)));
+
+        mvc.perform(post("/requests/batch")
+                        .content(mapper.writeValueAsString(List.of(itemRequestDto)))
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].status", is(201)))
+                .andExpect(jsonPath("$[0].result.description", is(itemRequestDto.getDescription())));
+        verify(itemRequestService, times(1)).createAll(anyLong(), anyList());
+    }
+
     @Test
     void createTest() throws Exception {
         ItemRequestDto itemRequestDtoToCreate = ItemRequestDto.builder()
@@ -87,6 +110,27 @@ class ItemRequestControllerTest {
                 .andExpect(jsonPath("$[0].description", is(itemRequestDto.getDescription())));
     }
 
+    @Test
+    void getAllRequestsWithCursorTest() throws Exception {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2030, 1, 1, 12, 0), 5L);
+        when(itemRequestService.getAllRequests(anyLong(), any(KeysetCursor.class), anyInt()))
+                .thenReturn(List.of(itemRequestDto));
+
+        mvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("cursor", cursor.encode())
+                        .param("size", "1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(KeysetCursor.NEXT_CURSOR_HEADER,
+                        new KeysetCursor(itemRequestDto.getCreated(), itemRequestDto.getId()).encode()))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(itemRequestDto.getId()), Long.class));
+        verify(itemRequestService, times(1)).getAllRequests(1L, cursor, 1);
+    }
+
     @Test
     void getRequestByIdTest() throws Exception {
         when(itemRequestService.getRequestById(anyLong(), anyLong())).thenReturn(itemRequestDto);
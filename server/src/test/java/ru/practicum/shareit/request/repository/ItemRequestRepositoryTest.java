@@ -10,6 +10,7 @@ import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,20 +48,45 @@ class ItemRequestRepositoryTest {
 
     @Test
     void findByRequestorIdOrderByCreatedDescTest() {
-        List<ItemRequest> itemRequests = repository.findByRequestorIdOrderByCreatedDesc(users.get(1).getId());
+        List<ItemRequestView> itemRequests = repository.findByRequestorIdOrderByCreatedDesc(users.get(1).getId());
 
         assertEquals(2, itemRequests.size());
-        assertEquals(requests.get(2), itemRequests.get(0));
-        assertEquals(requests.get(1), itemRequests.get(1));
+        assertEquals(requests.get(2).getId(), itemRequests.get(0).getId());
+        assertEquals(requests.get(1).getId(), itemRequests.get(1).getId());
     }
 
     @Test
     void findByRequestorIdNotOrderByCreatedDescTest() {
-        List<ItemRequest> itemRequests = repository.findByRequestorIdNotOrderByCreatedDesc(users.get(0).getId(),
+        List<ItemRequestView> itemRequests = repository.findByRequestorIdNotOrderByCreatedDesc(users.get(0).getId(),
                 PageRequest.of(0, 3));
 
         assertEquals(2, itemRequests.size());
-        assertEquals(requests.get(2), itemRequests.get(0));
-        assertEquals(requests.get(1), itemRequests.get(1));
+        assertEquals(requests.get(2).getId(), itemRequests.get(0).getId());
+        assertEquals(requests.get(1).getId(), itemRequests.get(1).getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByRequestorIdNotBeforeTest() {
+        LocalDateTime created = LocalDateTime.now().minusDays(2).truncatedTo(ChronoUnit.SECONDS);
+        ItemRequest first = ItemRequest.builder().description("4").requestor(users.get(1)).created(created).build();
+        ItemRequest second = ItemRequest.builder().description("5").requestor(users.get(1)).created(created).build();
+        em.persist(first);
+        em.persist(second);
+
+        List<ItemRequestView> itemRequests = repository.findByRequestorIdNotBefore(users.get(0).getId(),
+                second.getCreated(), second.getId(), PageRequest.of(0, 3));
+
+        assertEquals(2, itemRequests.size());
+        assertEquals(first.getId(), itemRequests.get(0).getId());
+        assertEquals(requests.get(1).getId(), itemRequests.get(1).getId());
+    }
+
+    @Test
+    void findViewByIdTest() {
+        ItemRequestView itemRequest = repository.findViewById(requests.get(0).getId()).orElseThrow();
+
+        assertEquals(requests.get(0).getId(), itemRequest.getId());
+        assertEquals(requests.get(0).getDescription(), itemRequest.getDescription());
+        assertNotNull(itemRequest.getCreated());
+    }
+}
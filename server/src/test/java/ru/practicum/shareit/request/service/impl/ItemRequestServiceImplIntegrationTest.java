@@ -1,23 +1,31 @@
 package ru.practicum.shareit.request.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.BatchResult;
 
 import javax.persistence.EntityManager;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+@Slf4j
 @Transactional
 @SpringBootTest
 @ActiveProfiles("integrationtest")
@@ -50,6 +58,26 @@ class ItemRequestServiceImplIntegrationTest {
         assertNotNull(createdItemRequestDto.getCreated());
     }
 
+    @Test
+    void createAllTest() {
+        List<ItemRequestDto> itemRequestDtos = List.of(
+                makeItemRequestDto("test1 description"),
+                makeItemRequestDto("test2 description")
+        );
+
+        List<BatchResult<ItemRequestDto>> results = itemRequestService.createAll(users.get(0).getId(),
+                itemRequestDtos);
+
+        assertEquals(2, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals(201, results.get(i).getStatus());
+            assertEquals(itemRequestDtos.get(i).getDescription(), results.get(i).getResult().getDescription());
+            assertNotNull(results.get(i).getResult().getCreated());
+        }
+        assertEquals(2, itemRequestService.getRequestsByUserId(users.get(0).getId()).size());
+    }
+
     @Test
     void getRequestsByUserIdTest() {
         List<ItemRequestDto> itemRequestsDtoForCreate = List.of(
@@ -114,6 +142,40 @@ class ItemRequestServiceImplIntegrationTest {
         assertEquals(createdItemRequestsDto.get(0).getCreated(), itemRequestDto.getCreated());
     }
 
+    @Test
+    void getAllRequestsQueryCountDoesNotDependOnPageSizeTest() {
+        LocalDateTime created = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < 100; i++) {
+            ItemRequest itemRequest = ItemRequest.builder().description("request" + i)
+                    .requestor(users.get(1)).created(created.plusMinutes(i)).build();
+            entityManager.persist(itemRequest);
+            for (int j = 0; j < 2; j++) {
+                entityManager.persist(Item.builder().name("item" + i + "-" + j).description("answer")
+                        .available(true).owner(users.get(2)).request(itemRequest).build());
+            }
+        }
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+
+        List<Long> queryCounts = new ArrayList<>();
+        for (int size : List.of(10, 50, 100)) {
+            entityManager.clear();
+            statistics.clear();
+            long startedAt = System.nanoTime();
+            List<ItemRequestDto> page = itemRequestService.getAllRequests(users.get(0).getId(), 0, size);
+            long elapsedMicros = (System.nanoTime() - startedAt) / 1_000;
+            log.info("Лента запросов: размер страницы {}, запросов к БД {}, {} мкс.", size,
+                    statistics.getPrepareStatementCount(), elapsedMicros);
+
+            assertEquals(size, page.size());
+            assertTrue(page.stream().allMatch(itemRequestDto -> itemRequestDto.getItems().size() == 2));
+            queryCounts.add(statistics.getPrepareStatementCount());
+        }
+
+        assertEquals(queryCounts.get(0), queryCounts.get(2));
+    }
+
     private ItemRequestDto makeItemRequestDto(String description) {
         return ItemRequestDto.builder().description(description).build();
     }
@@ -8,25 +8,33 @@ import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.exception.model.NotFoundException;
+import ru.practicum.shareit.exception.model.ValidationException;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.mapper.impl.ItemMapperImpl;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemView;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.mapper.impl.ItemRequestMapperImpl;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.repository.ItemRequestView;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utils.KeysetCursor;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 
 @ExtendWith(MockitoExtension.class)
 class ItemRequestServiceImplTest {
@@ -87,20 +95,20 @@ class ItemRequestServiceImplTest {
         assertTrue(itemRequestsDto.isEmpty());
         Mockito.verify(itemRequestRepository, Mockito.times(1))
                 .findByRequestorIdOrderByCreatedDesc(userId);
-        Mockito.verify(itemRepository, Mockito.never()).findByRequestId(anyLong());
+        Mockito.verify(itemRepository, Mockito.never()).findByRequestIdIn(any());
     }
 
     @Test
     void getRequestsByUserIdTest_whenRequestsFound_thenReturnedRequestsList() {
         Long userId = 1L;
         User user = User.builder().id(1L).name("test").email("test@test.test").build();
-        ItemRequest firstItemRequest = ItemRequest.builder().id(1L).build();
-        ItemRequest secondItemRequest = ItemRequest.builder().id(2L).build();
-        List<ItemRequest> itemRequests = List.of(firstItemRequest, secondItemRequest);
+        ItemRequestView firstItemRequest = new ItemRequestView(1L, null, null);
+        ItemRequestView secondItemRequest = new ItemRequestView(2L, null, null);
+        List<ItemRequestView> itemRequests = List.of(firstItemRequest, secondItemRequest);
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         Mockito.when(itemRequestRepository.findByRequestorIdOrderByCreatedDesc(userId))
                 .thenReturn(itemRequests);
-        Mockito.when(itemRepository.findByRequestId(anyLong())).thenReturn(Collections.emptyList());
+        Mockito.when(itemRepository.findByRequestIdIn(any())).thenReturn(Collections.emptyList());
 
         List<ItemRequestDto> itemRequestsDto = itemRequestService.getRequestsByUserId(userId);
 
@@ -109,7 +117,7 @@ class ItemRequestServiceImplTest {
         assertEquals(2, itemRequestsDto.get(1).getId());
         Mockito.verify(itemRequestRepository, Mockito.times(1))
                 .findByRequestorIdOrderByCreatedDesc(userId);
-        Mockito.verify(itemRepository, Mockito.times(2)).findByRequestId(anyLong());
+        Mockito.verify(itemRepository, Mockito.times(1)).findByRequestIdIn(any());
     }
 
     @Test
@@ -119,7 +127,7 @@ class ItemRequestServiceImplTest {
 
         assertThrows(NotFoundException.class, () -> itemRequestService.getRequestsByUserId(userId));
         Mockito.verify(itemRequestRepository, Mockito.never()).findByRequestorIdOrderByCreatedDesc(any());
-        Mockito.verify(itemRepository, Mockito.never()).findByRequestId(anyLong());
+        Mockito.verify(itemRepository, Mockito.never()).findByRequestIdIn(any());
     }
 
     @Test
@@ -127,13 +135,13 @@ class ItemRequestServiceImplTest {
         Long userId = 1L;
         Integer from = 0;
         Integer size = 2;
-        ItemRequest firstItemRequest = ItemRequest.builder().id(1L).build();
-        ItemRequest secondItemRequest = ItemRequest.builder().id(2L).build();
-        ItemRequest thirdItemRequest = ItemRequest.builder().id(3L).build();
-        List<ItemRequest> itemRequests = List.of(firstItemRequest, secondItemRequest, thirdItemRequest);
+        ItemRequestView firstItemRequest = new ItemRequestView(1L, null, null);
+        ItemRequestView secondItemRequest = new ItemRequestView(2L, null, null);
+        ItemRequestView thirdItemRequest = new ItemRequestView(3L, null, null);
+        List<ItemRequestView> itemRequests = List.of(firstItemRequest, secondItemRequest, thirdItemRequest);
         Mockito.when(itemRequestRepository.findByRequestorIdNotOrderByCreatedDesc(anyLong(),
                 any())).thenReturn(itemRequests);
-        Mockito.when(itemRepository.findByRequestId(anyLong())).thenReturn(Collections.emptyList());
+        Mockito.when(itemRepository.findByRequestIdIn(any())).thenReturn(Collections.emptyList());
 
         List<ItemRequestDto> itemRequestsDto = itemRequestService.getAllRequests(userId, from, size);
 
@@ -143,7 +151,32 @@ class ItemRequestServiceImplTest {
         assertEquals(3, itemRequestsDto.get(2).getId());
         Mockito.verify(itemRequestRepository, Mockito.times(1))
                 .findByRequestorIdNotOrderByCreatedDesc(anyLong(), any());
-        Mockito.verify(itemRepository, Mockito.times(3)).findByRequestId(anyLong());
+        Mockito.verify(itemRepository, Mockito.times(1)).findByRequestIdIn(any());
+    }
+
+    @Test
+    void getAllRequestsTest_whenItemsAnswerRequests_thenItemsGroupedByRequest() {
+        Long userId = 1L;
+        ItemRequestView firstItemRequest = new ItemRequestView(1L, null, null);
+        ItemRequestView secondItemRequest = new ItemRequestView(2L, null, null);
+        ItemRequestView thirdItemRequest = new ItemRequestView(3L, null, null);
+        List<ItemView> items = List.of(
+                new ItemView(1L, "1", null, true, firstItemRequest.getId(), 2L, 0L),
+                new ItemView(2L, "2", null, true, thirdItemRequest.getId(), 2L, 0L),
+                new ItemView(3L, "3", null, true, firstItemRequest.getId(), 2L, 0L)
+        );
+        Mockito.when(itemRequestRepository.findByRequestorIdNotOrderByCreatedDesc(anyLong(), any()))
+                .thenReturn(List.of(firstItemRequest, secondItemRequest, thirdItemRequest));
+        Mockito.when(itemRepository.findByRequestIdIn(Set.of(1L, 2L, 3L))).thenReturn(items);
+
+        List<ItemRequestDto> itemRequestsDto = itemRequestService.getAllRequests(userId, 0, 3);
+
+        assertEquals(List.of(1L, 3L), itemRequestsDto.get(0).getItems().stream()
+                .map(ItemDto::getId).collect(Collectors.toList()));
+        assertTrue(itemRequestsDto.get(1).getItems().isEmpty());
+        assertEquals(List.of(2L), itemRequestsDto.get(2).getItems().stream()
+                .map(ItemDto::getId).collect(Collectors.toList()));
+        Mockito.verify(itemRepository, Mockito.times(1)).findByRequestIdIn(any());
     }
 
     @Test
@@ -159,7 +192,32 @@ class ItemRequestServiceImplTest {
         assertTrue(itemRequestsDto.isEmpty());
         Mockito.verify(itemRequestRepository, Mockito.times(1))
                 .findByRequestorIdNotOrderByCreatedDesc(anyLong(), any());
-        Mockito.verify(itemRepository, Mockito.never()).findByRequestId(anyLong());
+        Mockito.verify(itemRepository, Mockito.never()).findByRequestIdIn(any());
+    }
+
+    @Test
+    void getAllRequestsWithCursorTest_whenCursorHasCreated_thenQueriedRequestsBeforeCursor() {
+        Long userId = 1L;
+        LocalDateTime created = LocalDateTime.of(2023, 1, 1, 12, 0);
+        KeysetCursor cursor = new KeysetCursor(created, 5L);
+        ItemRequestView itemRequest = new ItemRequestView(4L, null, created);
+        Mockito.when(itemRequestRepository.findByRequestorIdNotBefore(eq(userId), eq(created), eq(5L), any()))
+                .thenReturn(List.of(itemRequest));
+        Mockito.when(itemRepository.findByRequestIdIn(any())).thenReturn(Collections.emptyList());
+
+        List<ItemRequestDto> itemRequestsDto = itemRequestService.getAllRequests(userId, cursor, 2);
+
+        assertEquals(1, itemRequestsDto.size());
+        assertEquals(itemRequest.getId(), itemRequestsDto.get(0).getId());
+        Mockito.verify(itemRequestRepository, Mockito.never())
+                .findByRequestorIdNotOrderByCreatedDesc(anyLong(), any());
+    }
+
+    @Test
+    void getAllRequestsWithCursorTest_whenCursorWithoutCreated_thenValidationException() {
+        assertThrows(ValidationException.class, () -> itemRequestService.getAllRequests(1L,
+                new KeysetCursor(null, 5L), 2));
+        Mockito.verifyNoInteractions(itemRequestRepository);
     }
 
     @Test
@@ -167,18 +225,18 @@ class ItemRequestServiceImplTest {
         Long userId = 1L;
         Long requestId = 1L;
         User user = User.builder().id(1L).name("test").email("test@test.test").build();
-        ItemRequest itemRequest = ItemRequest.builder().id(1L).build();
+        ItemRequestView itemRequest = new ItemRequestView(1L, null, null);
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        Mockito.when(itemRequestRepository.findById(requestId))
+        Mockito.when(itemRequestRepository.findViewById(requestId))
                 .thenReturn(Optional.of(itemRequest));
-        Mockito.when(itemRepository.findByRequestId(anyLong())).thenReturn(Collections.emptyList());
+        Mockito.when(itemRepository.findByRequestIdIn(any())).thenReturn(Collections.emptyList());
 
         ItemRequestDto itemRequestDto = itemRequestService.getRequestById(userId, requestId);
 
         assertEquals(1, itemRequestDto.getId());
         Mockito.verify(itemRequestRepository, Mockito.times(1))
-                .findById(requestId);
-        Mockito.verify(itemRepository, Mockito.times(1)).findByRequestId(anyLong());
+                .findViewById(requestId);
+        Mockito.verify(itemRepository, Mockito.times(1)).findByRequestIdIn(any());
     }
 
     @Test
@@ -188,8 +246,8 @@ class ItemRequestServiceImplTest {
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> itemRequestService.getRequestById(userId, requestId));
-        Mockito.verify(itemRequestRepository, Mockito.never()).findById(any());
-        Mockito.verify(itemRepository, Mockito.never()).findByRequestId(anyLong());
+        Mockito.verify(itemRequestRepository, Mockito.never()).findViewById(any());
+        Mockito.verify(itemRepository, Mockito.never()).findByRequestIdIn(any());
     }
 
     @Test
@@ -199,10 +257,10 @@ class ItemRequestServiceImplTest {
         User user = User.builder().id(1L).name("test").email("test@test.test").build();
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.empty());
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        Mockito.when(itemRequestRepository.findById(requestId))
+        Mockito.when(itemRequestRepository.findViewById(requestId))
                 .thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> itemRequestService.getRequestById(userId, requestId));
-        Mockito.verify(itemRepository, Mockito.never()).findByRequestId(anyLong());
+        Mockito.verify(itemRepository, Mockito.never()).findByRequestIdIn(any());
     }
 }
\ No newline at end of file
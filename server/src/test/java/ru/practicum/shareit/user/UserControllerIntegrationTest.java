@@ -0,0 +1,71 @@
+package ru.practicum.shareit.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//not transactional: the unique email is only checked once the request's own transaction writes the row
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("integrationtest")
+class UserControllerIntegrationTest {
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper mapper;
+    @Autowired
+    private UserService userService;
+
+    @AfterEach
+    void afterEach() {
+        userService.getAll().forEach(user -> userService.deleteById(user.getId()));
+    }
+
+    @Test
+    void createTest_whenEmailTaken_thenConflict() throws Exception {
+        create("first", "taken@example.com");
+
+        mvc.perform(post("/users")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(makeUserDto("second", "taken@example.com"))))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void updateTest_whenEmailTaken_thenConflict() throws Exception {
+        create("first", "taken@example.com");
+        UserDto second = create("second", "free@example.com");
+
+        mvc.perform(patch("/users/{id}", second.getId())
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(makeUserDto(null, "taken@example.com"))))
+                .andExpect(status().isConflict());
+    }
+
+    private UserDto create(String name, String email) {
+        return userService.create(makeUserDto(name, email));
+    }
+
+    private UserDto makeUserDto(String name, String email) {
+        return UserDto.builder()
+                .name(name)
+                .email(email)
+                .build();
+    }
+}
@@ -5,12 +5,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.exception.model.AlreadyExistException;
 import ru.practicum.shareit.exception.model.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.BatchResult;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -112,6 +114,23 @@ class UserControllerTest {
                 .andExpect(status().isConflict());
     }
 
+    @Test
+    void createAll() throws Exception {
+        when(userService.createAll(anyList())).thenReturn(List.of(BatchResult.created(0, userDto),
+                BatchResult.failed(1, HttpStatus.CONFLICT, "Пользователь с таким email уже существует!")));
+
+        mvc.perform(post("/users/batch")
+                        .content(mapper.writeValueAsString(List.of(userDto, userDto)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].result.email", is(userDto.getEmail())))
+                .andExpect(jsonPath("$[1].index", is(1)))
+                .andExpect(jsonPath("$[1].status", is(409)));
+    }
+
     @Test
     void update() throws Exception {
         UserDto userDtoToUpdate = UserDto.builder()
@@ -8,9 +8,11 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.BatchResult;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,6 +34,25 @@ class UserServiceImplIntegrationTest {
         assertEquals(createdUserDto.getEmail(), userDto.getEmail());
     }
 
+    @Test
+    void createAllTest_whenEmailTaken_thenDuplicatesFailed() {
+        userService.create(makeUserDto("existing", "existing@test.test"));
+
+        List<BatchResult<UserDto>> results = userService.createAll(List.of(
+                makeUserDto("first", "first@test.test"),
+                makeUserDto("existing", "existing@test.test"),
+                makeUserDto("second", "second@test.test"),
+                makeUserDto("first again", "first@test.test")
+        ));
+
+        assertEquals(List.of(201, 409, 201, 409), results.stream()
+                .map(BatchResult::getStatus)
+                .collect(Collectors.toList()));
+        assertEquals("first", results.get(0).getResult().getName());
+        assertEquals("second@test.test", results.get(2).getResult().getEmail());
+        assertEquals(3, userService.getAll().size());
+    }
+
     @Test
     void updateTest() {
         UserDto userDto = makeUserDto("test", "test@test.test");
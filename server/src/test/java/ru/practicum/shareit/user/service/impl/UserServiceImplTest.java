@@ -8,13 +8,18 @@ import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
+import ru.practicum.shareit.booking.index.ItemBookingIndex;
 import ru.practicum.shareit.exception.model.AlreadyExistException;
 import ru.practicum.shareit.exception.model.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.mapper.impl.UserMapperImpl;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utils.EntityCache;
 
 import java.util.Collections;
 import java.util.List;
@@ -28,6 +33,12 @@ import static org.mockito.ArgumentMatchers.anyLong;
 class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ItemBookingIndex itemBookingIndex;
+    @Mock
+    private EntityCache entityCache;
+    @Mock
+    private ItemViewCache itemViewCache;
     @Spy
     private UserMapper userMapper = new UserMapperImpl();
     @InjectMocks
@@ -76,24 +87,24 @@ class UserServiceImplTest {
         UserDto userDtoToSave = UserDto.builder().name("test").email("test@test.test").build();
         User userToSave = User.builder().name("test").email("test@test.test").build();
         User savedUser = User.builder().id(1L).name("test").email("test@test.test").build();
-        Mockito.when(userRepository.save(userToSave)).thenReturn(savedUser);
+        Mockito.when(userRepository.saveAndFlush(userToSave)).thenReturn(savedUser);
 
         UserDto savedUserDto = userService.create(userDtoToSave);
 
         assertEquals(1L, savedUserDto.getId());
         assertEquals("test", savedUserDto.getName());
         assertEquals("test@test.test", savedUserDto.getEmail());
-        Mockito.verify(userRepository, Mockito.times(1)).save(userToSave);
+        Mockito.verify(userRepository, Mockito.times(1)).saveAndFlush(userToSave);
     }
 
     @Test
     void createTest_whenUserEmailAlreadyExist_thenAlreadyExistException() {
         UserDto userDtoToSave = UserDto.builder().name("test").email("test@test.test").build();
         User userToSave = User.builder().name("test").email("test@test.test").build();
-        Mockito.when(userRepository.save(userToSave)).thenThrow(DataIntegrityViolationException.class);
+        Mockito.when(userRepository.saveAndFlush(userToSave)).thenThrow(DataIntegrityViolationException.class);
 
         assertThrows(AlreadyExistException.class, () -> userService.create(userDtoToSave));
-        Mockito.verify(userRepository, Mockito.times(1)).save(userToSave);
+        Mockito.verify(userRepository, Mockito.times(1)).saveAndFlush(userToSave);
     }
 
     @Test
@@ -104,7 +115,7 @@ class UserServiceImplTest {
         User userBeforeUpdate = User.builder().id(1L).name("test").email("test@test.test").build();
         User updatedUser = User.builder().id(1L).name("test").email("test-update@test.test").build();
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(userBeforeUpdate));
-        Mockito.when(userRepository.save(userToUpdate)).thenReturn(updatedUser);
+        Mockito.when(userRepository.saveAndFlush(userToUpdate)).thenReturn(updatedUser);
 
         UserDto updatedUserDto = userService.update(userId, userDtoToUpdate);
 
@@ -112,7 +123,8 @@ class UserServiceImplTest {
         assertEquals(userBeforeUpdate.getName(), updatedUserDto.getName());
         assertEquals(userDtoToUpdate.getEmail(), updatedUserDto.getEmail());
         Mockito.verify(userRepository, Mockito.times(1)).findById(userId);
-        Mockito.verify(userRepository, Mockito.times(1)).save(userToUpdate);
+        Mockito.verify(userRepository, Mockito.times(1)).saveAndFlush(userToUpdate);
+        Mockito.verify(itemViewCache, Mockito.never()).evictAll();
     }
 
     @Test
@@ -122,7 +134,7 @@ class UserServiceImplTest {
         User userToUpdate = User.builder().id(1L).name("test").email("test@test.test").build();
         User updatedUser = User.builder().id(1L).name("test_update").email("test@test.test").build();
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(userToUpdate));
-        Mockito.when(userRepository.save(userToUpdate)).thenReturn(updatedUser);
+        Mockito.when(userRepository.saveAndFlush(userToUpdate)).thenReturn(updatedUser);
 
         UserDto updatedUserDto = userService.update(userId, userDtoToUpdate);
 
@@ -130,7 +142,8 @@ class UserServiceImplTest {
         assertEquals(userDtoToUpdate.getName(), updatedUserDto.getName());
         assertEquals(userToUpdate.getEmail(), updatedUserDto.getEmail());
         Mockito.verify(userRepository, Mockito.times(1)).findById(userId);
-        Mockito.verify(userRepository, Mockito.times(1)).save(userToUpdate);
+        Mockito.verify(userRepository, Mockito.times(1)).saveAndFlush(userToUpdate);
+        Mockito.verify(itemViewCache, Mockito.times(1)).evictAll();
     }
 
     @Test
@@ -140,7 +153,7 @@ class UserServiceImplTest {
         User userToUpdate = User.builder().id(1L).name("test").email("test@test.test").build();
         User updatedUser = User.builder().id(1L).name("test_update").email("test-update@test.test").build();
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(userToUpdate));
-        Mockito.when(userRepository.save(userToUpdate)).thenReturn(updatedUser);
+        Mockito.when(userRepository.saveAndFlush(userToUpdate)).thenReturn(updatedUser);
 
         UserDto updatedUserDto = userService.update(userId, userDtoToUpdate);
 
@@ -148,7 +161,7 @@ class UserServiceImplTest {
         assertEquals(userDtoToUpdate.getName(), updatedUserDto.getName());
         assertEquals(userToUpdate.getEmail(), updatedUserDto.getEmail());
         Mockito.verify(userRepository, Mockito.times(1)).findById(userId);
-        Mockito.verify(userRepository, Mockito.times(1)).save(userToUpdate);
+        Mockito.verify(userRepository, Mockito.times(1)).saveAndFlush(userToUpdate);
     }
 
     @Test
@@ -157,10 +170,10 @@ class UserServiceImplTest {
         UserDto userDtoToUpdate = UserDto.builder().name("test_update").email("exist@mail.test").build();
         User userToUpdate = User.builder().id(1L).name("test").email("test@test.test").build();
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(userToUpdate));
-        Mockito.when(userRepository.save(userToUpdate)).thenThrow(DataIntegrityViolationException.class);
+        Mockito.when(userRepository.saveAndFlush(userToUpdate)).thenThrow(DataIntegrityViolationException.class);
 
         assertThrows(AlreadyExistException.class, () -> userService.update(userId, userDtoToUpdate));
-        Mockito.verify(userRepository, Mockito.times(1)).save(any());
+        Mockito.verify(userRepository, Mockito.times(1)).saveAndFlush(any());
     }
 
     @Test
@@ -170,7 +183,7 @@ class UserServiceImplTest {
         Mockito.when(userRepository.findById(userId)).thenThrow(NotFoundException.class);
 
         assertThrows(NotFoundException.class, () -> userService.update(userId, userDtoToUpdate));
-        Mockito.verify(userRepository, Mockito.never()).save(any());
+        Mockito.verify(userRepository, Mockito.never()).saveAndFlush(any());
     }
 
     @Test
@@ -180,5 +193,9 @@ class UserServiceImplTest {
         userService.deleteById(userId);
 
         Mockito.verify(userRepository, Mockito.times(1)).deleteById(userId);
+        Mockito.verify(itemBookingIndex, Mockito.times(1)).evictAll();
+        Mockito.verify(entityCache, Mockito.times(1)).evictAll(Item.class);
+        Mockito.verify(entityCache, Mockito.times(1)).evictAll(ItemRequest.class);
+        Mockito.verify(itemViewCache, Mockito.times(1)).evictAll();
     }
 }
\ No newline at end of file
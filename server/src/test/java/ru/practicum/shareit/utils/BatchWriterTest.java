@@ -0,0 +1,90 @@
+package ru.practicum.shareit.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.model.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchWriterTest {
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private BatchWriter batchWriter;
+
+    @BeforeEach
+    void beforeEach() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        batchWriter = new BatchWriter(new TransactionTemplate(transactionManager), 2);
+    }
+
+    @Test
+    void writeTest_whenAllSaved_thenOneTransactionPerChunk() {
+        List<BatchResult<String>> results = batchWriter.write(List.of(1, 2, 3, 4, 5), String::valueOf);
+
+        assertEquals(List.of(BatchResult.created(0, "1"), BatchResult.created(1, "2"), BatchResult.created(2, "3"),
+                BatchResult.created(3, "4"), BatchResult.created(4, "5")), results);
+        verify(transactionManager, times(3)).commit(any());
+        verify(transactionManager, never()).rollback(any());
+    }
+
+    @Test
+    void writeTest_whenCheckFailed_thenElementNotSaved() {
+        List<Integer> saved = new ArrayList<>();
+
+        List<BatchResult<String>> results = batchWriter.write(List.of(1, 2, 3), element -> {
+            if (element == 2) {
+                throw new NotFoundException("not found");
+            }
+        }, element -> {
+            saved.add(element);
+            return String.valueOf(element);
+        });
+
+        assertEquals(List.of(BatchResult.created(0, "1"), BatchResult.failed(1, HttpStatus.NOT_FOUND, "not found"),
+                BatchResult.created(2, "3")), results);
+        assertEquals(List.of(1, 3), saved);
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void writeTest_whenChunkFailed_thenElementsSavedOneByOne() {
+        List<BatchResult<String>> results = batchWriter.write(List.of(1, 2, 3), element -> {
+            if (element == 2) {
+                throw new DataIntegrityViolationException("duplicate");
+            }
+            return String.valueOf(element);
+        });
+
+        assertEquals(BatchResult.created(0, "1"), results.get(0));
+        assertEquals(HttpStatus.CONFLICT.value(), results.get(1).getStatus());
+        assertNull(results.get(1).getResult());
+        assertEquals(BatchResult.created(2, "3"), results.get(2));
+        //the first chunk and its second element are rolled back
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void writeTest_whenUnexpectedException_thenInternalServerError() {
+        List<BatchResult<String>> results = batchWriter.write(List.of(1), element -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertEquals(List.of(BatchResult.failed(0, HttpStatus.INTERNAL_SERVER_ERROR,
+                "Произошла непредвиденная ошибка.")), results);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityTagTest {
+    @Test
+    void toETagTest_whenSameValues_thenSameWeakTag() {
+        String tag = new EntityTag().add(1L).add(0L).toETag();
+
+        assertEquals(tag, new EntityTag().add(1L).add(0L).toETag());
+        assertTrue(tag.matches("W/\"[0-9a-f]{16}\""));
+    }
+
+    @Test
+    void toETagTest_whenVersionChanged_thenTagChanged() {
+        assertNotEquals(new EntityTag().add(1L).add(0L).toETag(), new EntityTag().add(1L).add(1L).toETag());
+    }
+
+    @Test
+    void toETagTest_whenValuesSplitDifferently_thenTagChanged() {
+        assertNotEquals(new EntityTag().add("1").add("23").toETag(), new EntityTag().add("12").add("3").toETag());
+    }
+
+    @Test
+    void toETagTest_whenNullAndNullString_thenTagChanged() {
+        assertNotEquals(new EntityTag().add(null).toETag(), new EntityTag().add("null").toETag());
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.utils;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.model.ValidationException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+    @Test
+    void encodeAndDecodeTest() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2023, 5, 1, 12, 30, 15), 42L);
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void encodeAndDecodeWithoutKeyTest() {
+        KeysetCursor cursor = new KeysetCursor(null, 42L);
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        assertNull(decoded.getKey());
+        assertEquals(42L, decoded.getId());
+    }
+
+    @Test
+    void createKeysetCursorWithoutIdTest() {
+        assertThrows(IllegalArgumentException.class, () -> new KeysetCursor(LocalDateTime.now(), null));
+    }
+
+    @Test
+    void decodeInvalidCursorTest() {
+        assertThrows(ValidationException.class, () -> KeysetCursor.decode("not a cursor"));
+        assertThrows(ValidationException.class, () -> KeysetCursor.decode("MTIz"));
+    }
+
+    @Test
+    void getRequiredKeyTest() {
+        LocalDateTime key = LocalDateTime.of(2023, 5, 1, 12, 30, 15);
+
+        assertEquals(key, new KeysetCursor(key, 1L).getRequiredKey());
+        assertThrows(ValidationException.class, () -> new KeysetCursor(null, 1L).getRequiredKey());
+    }
+}